@@ -0,0 +1,47 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous variant of {@link DataFetcher}.
+ * <p>
+ * Returned futures complete exceptionally with a {@link java.util.concurrent.TimeoutException} when the deadline
+ * passes.  Cancelling a future (or missing its deadline) interrupts the underlying request.
+ */
+public interface AsyncDataFetcher {
+
+    /**
+     * Fetches a Google spreadsheet.
+     * @param credentialFetcher Wraps credentials needed to access Google APIs.
+     * @param schema The schema name where data will be stored in the database.
+     * @param documentId The Google document ID to fetch.
+     * @param sheetRange The spreadsheet range: 'SheetName!A1:G11'
+     * @param deadline The maximum time to wait for the result.
+     * @return A future result containing the table schema and associated data.
+     */
+    CompletableFuture<DataFetcher.Result> fetchDocumentSheet(
+            CredentialFetcher credentialFetcher,
+            String schema,
+            String documentId,
+            String sheetRange,
+            Duration deadline
+    );
+
+    /**
+     * Fetches the last time a given document was modified.
+     * @param documentId The Google document ID.
+     * @param credentialFetcher Wraps credentials needed to access Google APIs.
+     * @param deadline The maximum time to wait for the result.
+     * @return A future timestamp of the last document modification.
+     */
+    CompletableFuture<String> fetchLastUpdateTime(
+            String documentId,
+            CredentialFetcher credentialFetcher,
+            Duration deadline
+    );
+}
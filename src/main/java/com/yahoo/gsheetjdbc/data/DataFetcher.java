@@ -9,6 +9,8 @@ import com.yahoo.gsheetjdbc.schema.Table;
 import lombok.Builder;
 import lombok.Value;
 
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
 
 /**
@@ -18,13 +20,35 @@ import java.util.List;
 public interface DataFetcher {
 
     /**
-     * Data fetcher result.
+     * Data fetcher result.  Rows are either fully materialized in data or streamed through batches
+     * while they are still being parsed.
      */
     @Value
     @Builder
     public class Result {
         private Table schema;
         private List<List<Object>> data;
+        private RowBatchQueue batches;
+
+        /**
+         * Returns the rows in batches, regardless of whether they are materialized or streamed.
+         * @return An iterator over the row batches.
+         */
+        public Iterator<List<List<Object>>> getBatches() {
+            if (batches != null) {
+                return batches;
+            }
+            return data == null ? Collections.emptyIterator() : List.of(data).iterator();
+        }
+
+        /**
+         * Stops any parsing still in progress.
+         */
+        public void close() {
+            if (batches != null) {
+                batches.close();
+            }
+        }
     }
 
     /**
@@ -36,4 +60,15 @@ public interface DataFetcher {
      * @return A result object containg the table schema and associated data.
      */
     Result fetchDocumentSheet(CredentialFetcher credentialFetcher, String documentId, String sheetRange, String schema);
+
+    /**
+     * Fetches the last time a given document was modified.  Fetchers which cannot tell return null, and their
+     * documents are fetched again by every connection.
+     * @param documentId The Google document ID.
+     * @param credentialFetcher Wraps credentials needed to access Google APIs.
+     * @return A string representing the timestamp of the last document modification or null if unknown.
+     */
+    default String fetchLastUpdateTime(String documentId, CredentialFetcher credentialFetcher) {
+        return null;
+    }
 }
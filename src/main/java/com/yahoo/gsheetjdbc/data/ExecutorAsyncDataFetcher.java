@@ -0,0 +1,76 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adapts a blocking {@link DataFetcher} to {@link AsyncDataFetcher} by running each call on an executor.
+ */
+public class ExecutorAsyncDataFetcher implements AsyncDataFetcher {
+
+    private final DataFetcher fetcher;
+    private final ExecutorService executor;
+
+    /**
+     * Constructor.
+     * @param fetcher The blocking fetcher.
+     * @param executor Runs the blocking calls.
+     */
+    public ExecutorAsyncDataFetcher(DataFetcher fetcher, ExecutorService executor) {
+        this.fetcher = fetcher;
+        this.executor = executor;
+    }
+
+    @Override
+    public CompletableFuture<DataFetcher.Result> fetchDocumentSheet(
+            CredentialFetcher credentialFetcher,
+            String schema,
+            String documentId,
+            String sheetRange,
+            Duration deadline
+    ) {
+        return submit(() -> fetcher.fetchDocumentSheet(credentialFetcher, schema, documentId, sheetRange),
+                deadline);
+    }
+
+    @Override
+    public CompletableFuture<String> fetchLastUpdateTime(
+            String documentId,
+            CredentialFetcher credentialFetcher,
+            Duration deadline
+    ) {
+        return submit(() -> fetcher.fetchLastUpdateTime(documentId, credentialFetcher), deadline);
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> call, Duration deadline) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> task = executor.submit(() -> {
+            try {
+                result.complete(call.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        //Propagate cancellation and missed deadlines to the running request.
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+
+        if (deadline != null) {
+            result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return result;
+    }
+}
@@ -13,13 +13,15 @@ import java.io.IOException;
 import java.util.List;
 
 /**
- * Fetches Google service account credentials.
+ * Fetches Google service account credentials.  The credentials are parsed once per instance and reused, so access
+ * tokens are refreshed only when they expire rather than for every request.
  */
 public class GoogleServiceAccountCredentialFetcher implements CredentialFetcher {
 
     public static final String CREDENTIAL_ENVIRONMENT_VAR = "GSHEET_JDBC_CREDENTIALS";
 
     private final String credentialJson;
+    private GoogleCredentials credentials;
 
     /**
      * Constructor.
@@ -42,8 +44,11 @@ public class GoogleServiceAccountCredentialFetcher implements CredentialFetcher
     }
 
     @Override
-    public GoogleCredentials getCredentials() throws IOException {
-        return GoogleCredentials.fromStream(new ByteArrayInputStream(credentialJson.getBytes()))
-                .createScoped(List.of(SheetsScopes.SPREADSHEETS_READONLY, DriveScopes.DRIVE_METADATA_READONLY));
+    public synchronized GoogleCredentials getCredentials() throws IOException {
+        if (credentials == null) {
+            credentials = GoogleCredentials.fromStream(new ByteArrayInputStream(credentialJson.getBytes()))
+                    .createScoped(List.of(SheetsScopes.SPREADSHEETS_READONLY, DriveScopes.DRIVE_METADATA_READONLY));
+        }
+        return credentials;
     }
 }
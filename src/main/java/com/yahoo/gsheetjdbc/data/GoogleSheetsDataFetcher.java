@@ -4,13 +4,18 @@
  */
 package com.yahoo.gsheetjdbc.data;
 
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import com.yahoo.gsheetjdbc.metrics.Metrics;
+import com.yahoo.gsheetjdbc.metrics.NoopMetrics;
 import com.yahoo.gsheetjdbc.schema.Column;
 import com.yahoo.gsheetjdbc.schema.Table;
 import com.yahoo.gsheetjdbc.utils.DateUtils;
 
 import com.google.api.client.googleapis.javanet.GoogleNetHttpTransport;
+import com.google.api.client.http.HttpResponse;
 import com.google.api.client.http.javanet.NetHttpTransport;
 import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.JsonParser;
 import com.google.api.client.json.jackson2.JacksonFactory;
 import com.google.api.client.util.DateTime;
 import com.google.api.services.drive.Drive;
@@ -18,19 +23,29 @@ import com.google.api.services.sheets.v4.Sheets;
 import com.google.api.services.sheets.v4.model.CellData;
 import com.google.api.services.sheets.v4.model.ExtendedValue;
 import com.google.api.services.sheets.v4.model.GridData;
+import com.google.api.services.sheets.v4.model.GridProperties;
 import com.google.api.services.sheets.v4.model.NumberFormat;
 import com.google.api.services.sheets.v4.model.RowData;
 import com.google.api.services.sheets.v4.model.Sheet;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
 import com.google.auth.http.HttpCredentialsAdapter;
+import com.google.common.io.CountingInputStream;
 
+import lombok.Builder;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
 import java.security.GeneralSecurityException;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -45,6 +60,114 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
     private static final String LEGAL_NAME_REGEX = "^[ a-zA-Z0-9_-]+$";
     private static final Pattern LEGAL_NAME_PATTERN = Pattern.compile(LEGAL_NAME_REGEX);
 
+    /**
+     * Number of rows handed to the loader at a time when streaming.
+     */
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * Number of parsed batches that can wait for the loader before parsing blocks.
+     */
+    static final int QUEUE_CAPACITY = 8;
+
+    /**
+     * System property which selects how spreadsheet responses are decoded.  When true (the default) cell values
+     * are read straight off the JSON token stream.  When false the response is bound to the Sheets API model
+     * classes first.
+     */
+    public static final String STREAMING_PROPERTY = "gsheetjdbc.json.streaming";
+
+    /**
+     * System property which overrides the root URL of the Drive and Sheets APIs (for example to point the driver
+     * at a local simulator).  The Google endpoints are used when it is not set.
+     */
+    public static final String ROOT_URL_PROPERTY = "gsheetjdbc.api.rootUrl";
+
+    /**
+     * System property which splits ranges of more rows than this into bands of this many rows, fetched and decoded
+     * concurrently.  Zero (the default) fetches every range with a single request.
+     */
+    public static final String CHUNK_ROWS_PROPERTY = "gsheetjdbc.fetch.chunkRows";
+
+    /**
+     * System property which limits how many bands of a chunked range are fetched and decoded at the same time.
+     */
+    public static final String CHUNK_CONCURRENCY_PROPERTY = "gsheetjdbc.fetch.chunkConcurrency";
+
+    /**
+     * Default number of bands of a chunked range fetched at the same time.
+     */
+    public static final int DEFAULT_CHUNK_CONCURRENCY = 4;
+
+    private static final String FIELDS = "sheets(data(rowData(values(effectiveValue,effectiveFormat(numberFormat))))"
+            + ",properties(title))";
+
+    //Column types come from the first band, so later bands only need the values.
+    private static final String VALUE_FIELDS = "sheets(data(rowData(values(effectiveValue))),properties(title))";
+
+    private static volatile NetHttpTransport httpTransport;
+
+    private final Metrics metrics;
+    private final Executor parseExecutor;
+    private final boolean streaming;
+    private final String rootUrl;
+    private final int chunkRows;
+    private final int chunkConcurrency;
+
+    /**
+     * Builds fetchers.  Settings which are not set default to their system properties.
+     */
+    public static class GoogleSheetsDataFetcherBuilder {
+        private Metrics metrics = NoopMetrics.INSTANCE;
+        private boolean streaming = Boolean.parseBoolean(System.getProperty(STREAMING_PROPERTY, "true"));
+        private String rootUrl = System.getProperty(ROOT_URL_PROPERTY);
+        private int chunkRows = Integer.getInteger(CHUNK_ROWS_PROPERTY, 0);
+        private int chunkConcurrency = Integer.getInteger(CHUNK_CONCURRENCY_PROPERTY, DEFAULT_CHUNK_CONCURRENCY);
+    }
+
+    /**
+     * Constructor.  Every setting defaults to its system property (see {@link #builder()}).
+     */
+    public GoogleSheetsDataFetcher() {
+        this(builder());
+    }
+
+    private GoogleSheetsDataFetcher(GoogleSheetsDataFetcherBuilder builder) {
+        this(builder.metrics, builder.parseExecutor, builder.streaming, builder.rootUrl, builder.chunkRows,
+                builder.chunkConcurrency);
+    }
+
+    /**
+     * Constructor.
+     * @param metrics Records fetch and extraction timings.
+     * @param parseExecutor If not null, cell data is extracted on this executor and streamed to the
+     *                      loader in batches rather than materialized before the fetch returns.  Chunked
+     *                      fetches run every band on it, so it must not queue tasks behind running ones
+     *                      (see FetchExecutors.newParseExecutor).
+     * @param streaming Whether to decode responses from the JSON token stream rather than the API model.
+     * @param rootUrl The root URL of the Drive and Sheets APIs (ending with a slash) or null for Google's.
+     * @param chunkRows Ranges of more rows are fetched in bands of this many rows (at least 2) or 0 to fetch every
+     *                  range at once.  Only applies to streamed decoding with a parse executor.
+     * @param chunkConcurrency The maximum number of bands of a range fetched at the same time.
+     */
+    @Builder
+    private GoogleSheetsDataFetcher(
+            Metrics metrics,
+            Executor parseExecutor,
+            boolean streaming,
+            String rootUrl,
+            int chunkRows,
+            int chunkConcurrency
+    ) {
+        this.metrics = metrics;
+        this.parseExecutor = parseExecutor;
+        this.streaming = streaming;
+        this.rootUrl = rootUrl;
+        //The first band must hold the header and the first data row.
+        this.chunkRows = chunkRows <= 0 ? 0 : Math.max(2, chunkRows);
+        this.chunkConcurrency = Math.max(1, chunkConcurrency);
+    }
+
     @Override
     public Result fetchDocumentSheet(
             CredentialFetcher credentialFetcher,
@@ -53,6 +176,21 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
             String range
     ) {
         try {
+            SheetRange sheetRange = SheetRange.parse(range);
+            //Chunked ranges are clipped to the grid too, so that no band starts past the end of the sheet.
+            if (!sheetRange.isBounded() || isChunked(sheetRange)) {
+                range = boundRange(sheetRange, fetchGridProperties(document, sheetRange, credentialFetcher));
+                sheetRange = SheetRange.parse(range);
+            }
+
+            if (isChunked(sheetRange)) {
+                return fetchBands(credentialFetcher, document, bands(sheetRange, chunkRows), schema);
+            }
+
+            if (streaming) {
+                return parseDocumentSheet(requestSpreadsheet(document, range, credentialFetcher), schema);
+            }
+
             Spreadsheet spreadsheet = fetchSpreadsheet(document, range, credentialFetcher);
 
             if (spreadsheet == null || spreadsheet.getSheets() == null || spreadsheet.getSheets().size() != 1) {
@@ -62,8 +200,18 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
             }
 
             Sheet sheet = spreadsheet.getSheets().get(0);
+            long start = System.nanoTime();
             Table table = extractTableSchema(sheet, schema);
+
+            if (parseExecutor != null) {
+                return Result.builder()
+                        .schema(table)
+                        .batches(streamSheetData(table, sheet))
+                        .build();
+            }
+
             List<List<Object>> data = extractSheetData(table, sheet);
+            metrics.recordTimeSince(MetricNames.EXTRACT, start);
 
             return Result.builder()
                     .schema(table)
@@ -81,17 +229,20 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
      * @param credentialFetcher Google API credentials
      * @return A string representing the timestamp of the last document modification.
      */
+    @Override
     public String fetchLastUpdateTime(
             String documentId,
             CredentialFetcher credentialFetcher
     ) {
+        long start = System.nanoTime();
         try {
-            final NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-
-            Drive service = new Drive.Builder(httpTransport, JSON_FACTORY,
+            Drive.Builder builder = new Drive.Builder(httpTransport(), JSON_FACTORY,
                     new HttpCredentialsAdapter(credentialFetcher.getCredentials()))
-                    .setApplicationName(APP_NAME)
-                    .build();
+                    .setApplicationName(APP_NAME);
+            if (rootUrl != null) {
+                builder.setRootUrl(rootUrl);
+            }
+            Drive service = builder.build();
 
             DateTime modifiedDate = service.files().get(documentId)
                     .setFields("modifiedTime")
@@ -107,6 +258,8 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
         } catch (IOException | GeneralSecurityException e) {
             log.error(e.getMessage());
             throw new IllegalStateException(e);
+        } finally {
+            metrics.recordTimeSince(MetricNames.FRESHNESS_CHECK, start);
         }
     }
 
@@ -115,34 +268,410 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
             String range,
             CredentialFetcher credentialFetcher
     ) throws IOException, GeneralSecurityException {
-        final NetHttpTransport httpTransport = GoogleNetHttpTransport.newTrustedTransport();
-        Sheets service = new Sheets.Builder(httpTransport, JSON_FACTORY,
-                new HttpCredentialsAdapter(credentialFetcher.getCredentials()))
-                .setApplicationName(APP_NAME)
-                .build();
+        HttpResponse response = requestSpreadsheet(documentId, range, credentialFetcher);
 
-        Spreadsheet spreadsheet = service.spreadsheets()
+        long start = System.nanoTime();
+        CountingInputStream content = new CountingInputStream(response.getContent());
+        try {
+            return JSON_FACTORY.createJsonObjectParser()
+                    .parseAndClose(content, response.getContentCharset(), Spreadsheet.class);
+        } finally {
+            response.disconnect();
+            metrics.recordTimeSince(MetricNames.JSON_PARSE, start);
+            metrics.increment(MetricNames.BYTES_FETCHED, content.getCount());
+        }
+    }
+
+    /**
+     * Fetches the grid size of the sheet a range refers to (without any cell data).
+     * @param documentId The Google document ID.
+     * @param range The range.
+     * @param credentialFetcher Google API credentials
+     * @return The spreadsheet with only the grid properties of the sheet populated.
+     */
+    Spreadsheet fetchGridProperties(
+            String documentId,
+            SheetRange range,
+            CredentialFetcher credentialFetcher
+    ) throws IOException, GeneralSecurityException {
+        long start = System.nanoTime();
+        try {
+            return sheetsService(credentialFetcher).spreadsheets()
+                    .get(documentId)
+                    .setRanges(List.of(range.getSheet()))
+                    .setFields("sheets(properties(gridProperties(rowCount,columnCount)))")
+                    .setIncludeGridData(false)
+                    .execute();
+        } finally {
+            metrics.recordTimeSince(MetricNames.GRID_FETCH, start);
+        }
+    }
+
+    /**
+     * Closes an open ended range at the edges of the sheet grid.
+     * @param range The open ended range.
+     * @param spreadsheet The grid properties of the sheet.
+     * @return The range of the populated grid.
+     */
+    static String boundRange(SheetRange range, Spreadsheet spreadsheet) {
+        if (spreadsheet == null || spreadsheet.getSheets() == null || spreadsheet.getSheets().size() != 1
+                || spreadsheet.getSheets().get(0).getProperties() == null
+                || spreadsheet.getSheets().get(0).getProperties().getGridProperties() == null) {
+            String message = "No grid properties returned from server for range: " + range;
+            log.error(message);
+            throw new IllegalStateException(message);
+        }
+
+        GridProperties grid = spreadsheet.getSheets().get(0).getProperties().getGridProperties();
+        int rowCount = grid.getRowCount() == null ? 0 : grid.getRowCount();
+        int columnCount = grid.getColumnCount() == null ? 0 : grid.getColumnCount();
+        if (rowCount < range.getStartRow() || columnCount <= range.getStartColumn()) {
+            String message = "Range starts outside of the sheet: " + range;
+            log.error(message);
+            throw new IllegalStateException(message);
+        }
+        return range.bound(rowCount, columnCount).toString();
+    }
+
+    HttpResponse requestSpreadsheet(
+            String documentId,
+            String range,
+            CredentialFetcher credentialFetcher
+    ) throws IOException, GeneralSecurityException {
+        return requestSpreadsheet(documentId, range, credentialFetcher, FIELDS);
+    }
+
+    private HttpResponse requestSpreadsheet(
+            String documentId,
+            String range,
+            CredentialFetcher credentialFetcher,
+            String fields
+    ) throws IOException, GeneralSecurityException {
+        Sheets service = sheetsService(credentialFetcher);
+
+        long start = System.nanoTime();
+        HttpResponse response = service.spreadsheets()
                 .get(documentId)
                 .setRanges(List.of(range))
-                .setFields("sheets(data(rowData(values(effectiveValue,effectiveFormat(numberFormat))))"
-                        + ",properties(title))")
+                .setFields(fields)
                 .setIncludeGridData(true)
-                .execute();
+                .executeUnparsed();
+        metrics.recordTimeSince(MetricNames.SHEET_FETCH, start);
+        return response;
+    }
 
-        return spreadsheet;
+    private Sheets sheetsService(CredentialFetcher credentialFetcher)
+            throws IOException, GeneralSecurityException {
+        Sheets.Builder builder = new Sheets.Builder(httpTransport(), JSON_FACTORY,
+                new HttpCredentialsAdapter(credentialFetcher.getCredentials()))
+                .setApplicationName(APP_NAME);
+        if (rootUrl != null) {
+            builder.setRootUrl(rootUrl);
+        }
+        return builder.build();
+    }
+
+    private Result parseDocumentSheet(HttpResponse response, String schema) throws IOException {
+        try {
+            return parseDocumentSheet(response.getContent(), response.getContentCharset(), schema,
+                    () -> disconnect(response));
+        } catch (IOException | RuntimeException e) {
+            disconnect(response);
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the HTTP transport shared by all requests.  Building a transport loads the trusted certificates,
+     * so it is only done once.  The transport is thread safe.
+     */
+    private static NetHttpTransport httpTransport() throws IOException, GeneralSecurityException {
+        NetHttpTransport transport = httpTransport;
+        if (transport == null) {
+            synchronized (GoogleSheetsDataFetcher.class) {
+                if (httpTransport == null) {
+                    httpTransport = GoogleNetHttpTransport.newTrustedTransport();
+                }
+                transport = httpTransport;
+            }
+        }
+        return transport;
+    }
+
+    private static void disconnect(HttpResponse response) {
+        try {
+            response.disconnect();
+        } catch (IOException e) {
+            log.debug("Failed to disconnect: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Decodes a spreadsheets.get response with {@link SheetResponseParser}.  Without a parse executor the rows
+     * are decoded before returning.  With one, this returns as soon as the table schema has been decoded and
+     * the remaining rows are streamed to the result's batch queue.
+     * @param content The response body.
+     * @param charset The response character set.
+     * @param schema The database schema name.
+     * @param onComplete Run once the response has been consumed (or decoding failed).
+     * @return The decoded sheet.
+     * @throws IOException If the response cannot be read.
+     */
+    Result parseDocumentSheet(
+            InputStream content,
+            Charset charset,
+            String schema,
+            Runnable onComplete
+    ) throws IOException {
+        CountingInputStream counted = new CountingInputStream(content);
+        JsonParser jsonParser = JSON_FACTORY.createJsonParser(counted, charset);
+
+        if (parseExecutor == null) {
+            long start = System.nanoTime();
+            List<List<Object>> data = new ArrayList<>();
+            AtomicReference<Table> table = new AtomicReference<>();
+            try {
+                new SheetResponseParser(jsonParser, schema, Integer.MAX_VALUE,
+                        table::set, data::addAll).parse();
+            } finally {
+                jsonParser.close();
+                onComplete.run();
+                metrics.recordTimeSince(MetricNames.JSON_PARSE, start);
+                metrics.increment(MetricNames.BYTES_FETCHED, counted.getCount());
+            }
+            return Result.builder()
+                    .schema(table.get())
+                    .data(data)
+                    .build();
+        }
+
+        RowBatchQueue queue = new RowBatchQueue(QUEUE_CAPACITY);
+        CompletableFuture<Table> schemaFuture = new CompletableFuture<>();
+
+        parseExecutor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                new SheetResponseParser(jsonParser, schema, BATCH_SIZE, schemaFuture::complete, queue::put).parse();
+                queue.finish();
+            } catch (IOException | RuntimeException e) {
+                if (!schemaFuture.completeExceptionally(e)) {
+                    queue.fail(e);
+                }
+            } finally {
+                try {
+                    jsonParser.close();
+                } catch (IOException e) {
+                    log.debug("Failed to close response: {}", e.getMessage());
+                }
+                onComplete.run();
+                metrics.recordTimeSince(MetricNames.JSON_PARSE, start);
+                metrics.increment(MetricNames.BYTES_FETCHED, counted.getCount());
+            }
+        });
+
+        return streamedResult(schemaFuture, queue);
+    }
+
+    /**
+     * Waits for the table schema of a sheet whose rows are streamed to a batch queue.
+     * @param schemaFuture Completed with the table schema (or the decoding failure).
+     * @param queue The batch queue.
+     * @return The streamed result.
+     */
+    private static Result streamedResult(CompletableFuture<Table> schemaFuture, RowBatchQueue queue) {
+        try {
+            return Result.builder()
+                    .schema(schemaFuture.get())
+                    .batches(queue)
+                    .build();
+        } catch (InterruptedException e) {
+            queue.close();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while decoding sheet.", e);
+        } catch (ExecutionException e) {
+            queue.close();
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns whether a range is fetched in bands.  Open ended ranges may be, once they are bound to the grid.
+     * @param range The range.
+     * @return True if the range has (or may have) more rows than a band.
+     */
+    private boolean isChunked(SheetRange range) {
+        return chunkRows > 0 && streaming && parseExecutor != null
+                && (range.getEndRow() == null || range.getEndRow() - range.getStartRow() + 1 > chunkRows);
+    }
+
+    /**
+     * Splits a bounded range into consecutive bands of rows.
+     * @param range The range.
+     * @param rows The number of rows per band (the last band may have fewer).
+     * @return The bands, in sheet order.
+     */
+    static List<SheetRange> bands(SheetRange range, int rows) {
+        List<SheetRange> bands = new ArrayList<>();
+        for (long start = range.getStartRow(); start <= range.getEndRow(); start += rows) {
+            bands.add(range.withRows((int) start, (int) Math.min(start + rows - 1, range.getEndRow())));
+        }
+        return bands;
+    }
+
+    /**
+     * Fetches a range in bands of rows.  Up to chunkConcurrency bands are requested and decoded at the same time
+     * on the parse executor, each into its own buffer, while a coordinating task hands the buffered rows on to
+     * the result's batch queue band by band, in sheet order.  The first band holds the header row and decides the
+     * table schema; later bands are decoded against it.  A band in which the table ends (at an empty or
+     * incomplete row, or with fewer rows than requested because the sheet has no more) cancels the bands after
+     * it, so the rows are exactly those a single request returns.
+     * @param credentialFetcher Google API credentials
+     * @param document The Google document ID.
+     * @param ranges The bands.
+     * @param schema The database schema name.
+     * @return The streamed result.
+     */
+    private Result fetchBands(CredentialFetcher credentialFetcher, String document, List<SheetRange> ranges,
+                              String schema) {
+        RowBatchQueue queue = new RowBatchQueue(QUEUE_CAPACITY);
+        CompletableFuture<Table> schemaFuture = new CompletableFuture<>();
+        parseExecutor.execute(() -> forwardBands(credentialFetcher, document, ranges, schema, schemaFuture, queue));
+        return streamedResult(schemaFuture, queue);
+    }
+
+    private void forwardBands(CredentialFetcher credentialFetcher, String document, List<SheetRange> ranges,
+                              String schema, CompletableFuture<Table> schemaFuture, RowBatchQueue queue) {
+        List<Band> bands = new ArrayList<>();
+        try {
+            for (int idx = 0; idx < ranges.size(); idx++) {
+                for (int next = bands.size(); next < Math.min(ranges.size(), idx + chunkConcurrency); next++) {
+                    Band band = new Band(ranges.get(next), next == 0);
+                    bands.add(band);
+                    parseExecutor.execute(() -> band.fetch(credentialFetcher, document, schema, schemaFuture));
+                }
+                Band band = bands.get(idx);
+                while (band.rows.hasNext()) {
+                    queue.put(band.rows.next());
+                }
+                if (band.ended) {
+                    break;
+                }
+            }
+            queue.finish();
+        } catch (RuntimeException e) {
+            //Also reached when the consumer closed the queue.
+            if (!schemaFuture.completeExceptionally(e)) {
+                queue.fail(e);
+            }
+        } finally {
+            bands.forEach(Band::cancel);
+        }
+    }
+
+    /**
+     * One band of rows of a chunked range, buffered in full until the bands before it have been handed on.
+     */
+    private class Band {
+        private final SheetRange range;
+        private final boolean first;
+        private final RowBatchQueue rows;
+        private volatile HttpResponse response;
+        private volatile boolean cancelled = false;
+
+        //Published to the coordinating task by the end of the row queue.
+        private boolean ended = false;
+
+        Band(SheetRange range, boolean first) {
+            this.range = range;
+            this.first = first;
+            int rowCount = range.getEndRow() - range.getStartRow() + 1;
+            //Room for every batch of the band and the end marker, so decoding never waits for the loader.
+            this.rows = new RowBatchQueue(rowCount / BATCH_SIZE + 2);
+        }
+
+        void fetch(CredentialFetcher credentialFetcher, String document, String schema,
+                   CompletableFuture<Table> schemaFuture) {
+            metrics.increment(MetricNames.CHUNKS_FETCHED, 1);
+            try {
+                response = requestSpreadsheet(document, range.toString(), credentialFetcher,
+                        first ? FIELDS : VALUE_FIELDS);
+                if (cancelled) {
+                    throw new CancellationException("Band cancelled.");
+                }
+                parse(schema, schemaFuture);
+                rows.finish();
+            } catch (IOException | GeneralSecurityException | RuntimeException e) {
+                fail(e, schemaFuture);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e, schemaFuture);
+            } catch (ExecutionException e) {
+                //The first band failed before publishing the schema.
+                fail(e.getCause(), schemaFuture);
+            } finally {
+                if (response != null) {
+                    disconnect(response);
+                }
+            }
+        }
+
+        private void parse(String schema, CompletableFuture<Table> schemaFuture)
+                throws IOException, InterruptedException, ExecutionException {
+            Table table = first ? null : schemaFuture.get();
+            long start = System.nanoTime();
+            CountingInputStream counted = new CountingInputStream(response.getContent());
+            JsonParser jsonParser = JSON_FACTORY.createJsonParser(counted, response.getContentCharset());
+            try {
+                SheetResponseParser parser = first
+                        ? new SheetResponseParser(jsonParser, schema, BATCH_SIZE, schemaFuture::complete, rows::put)
+                        : new SheetResponseParser(jsonParser, table, BATCH_SIZE, rows::put);
+                parser.parse();
+                ended = parser.isEnded() || parser.getRowsRead() < range.getEndRow() - range.getStartRow() + 1;
+            } finally {
+                jsonParser.close();
+                metrics.recordTimeSince(MetricNames.JSON_PARSE, start);
+                metrics.increment(MetricNames.BYTES_FETCHED, counted.getCount());
+            }
+        }
+
+        private void fail(Throwable error, CompletableFuture<Table> schemaFuture) {
+            if (first) {
+                schemaFuture.completeExceptionally(error);
+            }
+            rows.fail(error);
+        }
+
+        /**
+         * Stops the band.  Closing the connection aborts a download in progress.
+         */
+        void cancel() {
+            cancelled = true;
+            rows.close();
+            HttpResponse current = response;
+            if (current != null) {
+                disconnect(current);
+            }
+        }
     }
 
     String extractTitle(Sheet sheet) {
-        if (sheet.getProperties() == null
-                || sheet.getProperties().getTitle() == null
-                || sheet.getProperties().getTitle().isEmpty()
-        ) {
+        return validateTitle(sheet.getProperties() == null ? null : sheet.getProperties().getTitle());
+    }
+
+    String extractColumn(CellData headerCell) {
+        return validateColumnName(headerCell.getEffectiveValue().getStringValue());
+    }
+
+    static String validateTitle(String title) {
+        if (title == null || title.isEmpty()) {
             String message = "Sheet title is missing or invalid title.";
             log.error(message);
             throw new IllegalStateException(message);
         }
 
-        String title =  sheet.getProperties().getTitle();
         title = title.substring(0, Math.min(256, title.length()));
 
         Matcher matcher = LEGAL_NAME_PATTERN.matcher(title);
@@ -156,16 +685,13 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
         return title;
     }
 
-    String extractColumn(CellData headerCell) {
-        if (headerCell.getEffectiveValue().getStringValue() == null
-                || headerCell.getEffectiveValue().getStringValue().isEmpty()
-        ) {
+    static String validateColumnName(String heading) {
+        if (heading == null || heading.isEmpty()) {
             String message = "Header row must contain all string values.";
             log.error(message);
             throw new IllegalStateException(message);
         }
 
-        String heading = headerCell.getEffectiveValue().getStringValue();
         heading = heading.substring(0, Math.min(256, heading.length()));
 
         Matcher matcher = LEGAL_NAME_PATTERN.matcher(heading);
@@ -231,82 +757,192 @@ public class GoogleSheetsDataFetcher implements DataFetcher {
         return table;
     }
 
+    RowBatchQueue streamSheetData(Table table, Sheet sheet) {
+        RowBatchQueue queue = new RowBatchQueue(QUEUE_CAPACITY);
+
+        parseExecutor.execute(() -> {
+            long start = System.nanoTime();
+            try {
+                extractSheetData(table, sheet, BATCH_SIZE, queue::put);
+                queue.finish();
+            } catch (RuntimeException e) {
+                queue.fail(e);
+            } finally {
+                metrics.recordTimeSince(MetricNames.EXTRACT, start);
+            }
+        });
+        return queue;
+    }
+
     List<List<Object>> extractSheetData(Table table, Sheet sheet) {
+        List<List<Object>> results = new ArrayList<>();
+        extractSheetData(table, sheet, Integer.MAX_VALUE, results::addAll);
+        return results;
+    }
+
+    void extractSheetData(Table table, Sheet sheet, int batchSize, Consumer<List<List<Object>>> sink) {
         List<List<Object>> results = new ArrayList<>();
         GridData gridData = sheet.getData().get(0);
         int startRow = 1;
 
+        List<Column> columns = table.getColumns();
+        CellExtractor[] extractors = new CellExtractor[columns.size()];
+        for (int idx = 0; idx < extractors.length; idx++) {
+            extractors[idx] = cellExtractor(columns.get(idx).getType());
+        }
+
         for (int row = startRow; row < gridData.getRowData().size(); row++) {
-            List<Object> rowResults = new ArrayList<>();
+            List<Object> rowResults = new ArrayList<>(extractors.length);
             RowData rowData = gridData.getRowData().get(row);
 
-            if (rowData.getValues().size() < table.getColumns().size()) {
+            if (rowData.getValues().size() < extractors.length) {
                 //Can't process this row.
                 break;
             }
-            int columnIndex = 0;
-            for (Column column: table.getColumns()) {
-                CellData cellData = rowData.getValues().get(columnIndex);
+            boolean empty = true;
+            for (int columnIndex = 0; columnIndex < extractors.length; columnIndex++) {
+                ExtendedValue value = rowData.getValues().get(columnIndex).getEffectiveValue();
 
-                if (cellData.getEffectiveValue() == null) {
+                if (value == null) {
                     rowResults.add(null);
                 } else {
-                    rowResults.add(extractCellData(column, cellData));
+                    rowResults.add(extractors[columnIndex].extract(columns.get(columnIndex), value));
+                    empty = false;
                 }
-                columnIndex++;
             }
 
-            if (rowResults.stream().allMatch((obj) -> obj == null)) {
+            if (empty) {
                 //first empty row.
                 break;
             }
 
             results.add(rowResults);
+
+            if (results.size() >= batchSize) {
+                sink.accept(results);
+                results = new ArrayList<>();
+            }
+        }
+
+        if (!results.isEmpty()) {
+            sink.accept(results);
         }
-        return results;
     }
 
     Column.ColumnType extractColumnType(CellData cellData) {
-        if (cellData.getEffectiveFormat() != null) {
-            if (cellData.getEffectiveFormat().getNumberFormat() != null) {
-                NumberFormat numberFormat = cellData.getEffectiveFormat().getNumberFormat();
-
-                if (numberFormat.getType().equals("DATE")) {
-                    return Column.ColumnType.DATE;
-                } else if (numberFormat.getType().equals("DATE_TIME")) {
-                    return Column.ColumnType.DATETIME;
-                } else {
-                    return Column.ColumnType.NUMBER;
-                }
-            }
+        String numberFormatType = null;
+        if (cellData.getEffectiveFormat() != null && cellData.getEffectiveFormat().getNumberFormat() != null) {
+            NumberFormat numberFormat = cellData.getEffectiveFormat().getNumberFormat();
+            numberFormatType = numberFormat.getType() == null ? "" : numberFormat.getType();
         }
+
+        Object value = null;
         if (cellData.getEffectiveValue() != null) {
-            ExtendedValue value = cellData.getEffectiveValue();
-            if (value.getBoolValue() != null) {
-                return Column.ColumnType.BOOLEAN;
-            } else if (value.getNumberValue() != null) {
+            ExtendedValue effectiveValue = cellData.getEffectiveValue();
+            value = effectiveValue.getBoolValue() != null ? effectiveValue.getBoolValue()
+                    : effectiveValue.getNumberValue();
+        }
+        return columnType(numberFormatType, value);
+    }
+
+    /**
+     * Derives a column type from the first data cell of the column.
+     * @param numberFormatType The cell's number format type or null if the cell has no number format.
+     * @param value The cell's effective value or null.
+     * @return The column type.
+     */
+    static Column.ColumnType columnType(String numberFormatType, Object value) {
+        if (numberFormatType != null) {
+            if (numberFormatType.equals("DATE")) {
+                return Column.ColumnType.DATE;
+            } else if (numberFormatType.equals("DATE_TIME")) {
+                return Column.ColumnType.DATETIME;
+            } else {
                 return Column.ColumnType.NUMBER;
             }
         }
+        if (value instanceof Boolean) {
+            return Column.ColumnType.BOOLEAN;
+        } else if (value instanceof Number) {
+            return Column.ColumnType.NUMBER;
+        }
 
         return Column.ColumnType.STRING;
     }
 
     Object extractCellData(Column column, CellData cellData) {
-        Collection<Object> values = cellData.getEffectiveValue().values();
+        return cellExtractor(column.getType()).extract(column, cellData.getEffectiveValue());
+    }
 
-        if (values == null || values.size() != 1) {
-            String message = String.format("Invalid value %s for column %s", cellData.getEffectiveValue(),
-                    column.getName());
+    /**
+     * Reads the value of a single cell for a column of a known type.
+     */
+    @FunctionalInterface
+    interface CellExtractor {
+
+        /**
+         * Extracts the cell value.
+         * @param column The column the cell belongs to.
+         * @param value The cell's effective value (not null).
+         * @return The value to load into the column.
+         */
+        Object extract(Column column, ExtendedValue value);
+    }
+
+    /**
+     * Selects the extractor for a column type.  Each extractor reads the field matching the column type
+     * directly and only falls back to inspecting every field for cells whose type differs from the column.
+     * @param type The column type.
+     * @return The extractor.
+     */
+    static CellExtractor cellExtractor(Column.ColumnType type) {
+        switch (type) {
+            case DATE:
+            case DATETIME:
+                return GoogleSheetsDataFetcher::extractDate;
+            case NUMBER:
+                return (column, value) -> value.getNumberValue() != null && isSingleValue(value)
+                        ? value.getNumberValue() : singleValue(column, value);
+            case BOOLEAN:
+                return (column, value) -> value.getBoolValue() != null && isSingleValue(value)
+                        ? value.getBoolValue() : singleValue(column, value);
+            default:
+                return (column, value) -> value.getStringValue() != null && isSingleValue(value)
+                        ? value.getStringValue() : singleValue(column, value);
+        }
+    }
+
+    private static Object extractDate(Column column, ExtendedValue value) {
+        Double serialDate = value.getNumberValue();
+        if (serialDate != null && isSingleValue(value)) {
+            return DateUtils.convert(serialDate.doubleValue());
+        }
+        return DateUtils.convert(singleValue(column, value));
+    }
+
+    private static boolean isSingleValue(ExtendedValue value) {
+        int count = (value.getBoolValue() == null ? 0 : 1)
+                + (value.getErrorValue() == null ? 0 : 1)
+                + (value.getFormulaValue() == null ? 0 : 1)
+                + (value.getNumberValue() == null ? 0 : 1)
+                + (value.getStringValue() == null ? 0 : 1);
+        return count == 1 && value.getUnknownKeys().isEmpty();
+    }
+
+    private static Object singleValue(Column column, ExtendedValue value) {
+        if (!isSingleValue(value) || value.getErrorValue() != null) {
+            String message = String.format("Invalid value %s for column %s", value, column.getName());
             log.error(message);
             throw new IllegalStateException(message);
         }
 
-        Object value = values.iterator().next();
-
-        if (column.getType().equals(Column.ColumnType.DATE) || column.getType().equals(Column.ColumnType.DATETIME)) {
-            return DateUtils.convert(value);
+        if (value.getStringValue() != null) {
+            return value.getStringValue();
+        } else if (value.getNumberValue() != null) {
+            return value.getNumberValue();
+        } else if (value.getBoolValue() != null) {
+            return value.getBoolValue();
         }
-        return value;
+        return value.getFormulaValue();
     }
 }
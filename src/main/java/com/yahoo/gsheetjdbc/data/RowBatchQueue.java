@@ -0,0 +1,110 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+
+/**
+ * Bounded hand-off of row batches from a single parsing thread to a single loading thread.
+ * <p>
+ * The producer calls {@link #put} for each batch and then {@link #finish} (or {@link #fail}).  The consumer
+ * iterates over the batches; a producer failure is rethrown from {@link #hasNext}.  Closing the queue makes any
+ * further {@link #put} fail so the producer stops if the consumer gives up.
+ */
+public class RowBatchQueue implements Iterator<List<List<Object>>>, Closeable {
+
+    private static final List<List<Object>> END = new ArrayList<>();
+
+    private final BlockingQueue<List<List<Object>>> queue;
+    private volatile Throwable failure;
+    private volatile boolean closed = false;
+    private List<List<Object>> nextBatch;
+
+    /**
+     * Constructor.
+     * @param capacity The maximum number of batches waiting to be loaded.
+     */
+    public RowBatchQueue(int capacity) {
+        queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Hands a batch to the consumer, blocking while the queue is full.
+     * @param batch The batch of rows.
+     * @throws CancellationException If the consumer closed the queue.
+     */
+    public void put(List<List<Object>> batch) {
+        if (closed) {
+            throw new CancellationException("Row batch queue closed.");
+        }
+        try {
+            queue.put(batch);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queueing rows.");
+        }
+    }
+
+    /**
+     * Signals that all batches have been produced.
+     */
+    public void finish() {
+        if (!closed) {
+            put(END);
+        }
+    }
+
+    /**
+     * Signals that the producer failed.  The failure is rethrown to the consumer.
+     * @param error The failure.
+     */
+    public void fail(Throwable error) {
+        failure = error;
+        finish();
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (nextBatch == null) {
+            try {
+                nextBatch = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for rows.", e);
+            }
+        }
+        if (nextBatch == END && failure != null) {
+            if (failure instanceof RuntimeException) {
+                throw (RuntimeException) failure;
+            }
+            throw new IllegalStateException(failure);
+        }
+        return nextBatch != END;
+    }
+
+    @Override
+    public List<List<Object>> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        List<List<Object>> batch = nextBatch;
+        nextBatch = null;
+        return batch;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        //Frees a producer blocked on a full queue.
+        queue.clear();
+    }
+}
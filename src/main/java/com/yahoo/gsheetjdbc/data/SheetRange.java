@@ -0,0 +1,176 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A sheet name and a rectangular block of cells in A1 notation (for example {@code Sheet1!A1:G11}).
+ * <p>
+ * The block may be open ended: {@code Sheet1!A:G} or {@code Sheet1!A2:G} run to the last row of the sheet,
+ * {@code Sheet1!1:2} spans every column of two rows and a bare sheet name ({@code Sheet1}) covers the whole
+ * sheet.  Open ended ranges are {@link #bound bound} to the sheet's grid size before they are fetched.
+ */
+@Value
+@Builder(toBuilder = true)
+public class SheetRange {
+
+    private static final Pattern RANGE_PATTERN =
+            Pattern.compile("^([^/!]+)(?:!(?:([a-zA-Z]+)([0-9]*):([a-zA-Z]+)([0-9]*)|([0-9]+):([0-9]+)))?$");
+
+    /**
+     * The sheet name as written in the range (including any quotes).
+     */
+    @NonNull
+    private String sheet;
+
+    /**
+     * Zero based index of the first column.
+     */
+    private int startColumn;
+
+    /**
+     * One based number of the first row.
+     */
+    private int startRow;
+
+    /**
+     * Zero based index of the last column (inclusive) or null to run to the last column of the sheet.
+     */
+    private Integer endColumn;
+
+    /**
+     * One based number of the last row (inclusive) or null to run to the last row of the sheet.
+     */
+    private Integer endRow;
+
+    /**
+     * Parses a range in A1 notation.
+     * @param range The range.
+     * @return The parsed range.
+     * @throws IllegalArgumentException If the range is not a sheet name optionally followed by two cell
+     *     references or two row numbers.
+     */
+    public static SheetRange parse(String range) {
+        Matcher matcher = RANGE_PATTERN.matcher(range);
+        if (!matcher.matches()) {
+            throw new IllegalArgumentException("Invalid sheet range : " + range);
+        }
+        if (matcher.group(6) != null) {
+            return SheetRange.builder()
+                    .sheet(matcher.group(1))
+                    .startRow(Integer.parseInt(matcher.group(6)))
+                    .endRow(Integer.parseInt(matcher.group(7)))
+                    .build();
+        }
+        if (matcher.group(2) == null) {
+            return SheetRange.builder()
+                    .sheet(matcher.group(1))
+                    .startRow(1)
+                    .build();
+        }
+        return SheetRange.builder()
+                .sheet(matcher.group(1))
+                .startColumn(columnIndex(matcher.group(2)))
+                .startRow(matcher.group(3).isEmpty() ? 1 : Integer.parseInt(matcher.group(3)))
+                .endColumn(columnIndex(matcher.group(4)))
+                .endRow(matcher.group(5).isEmpty() ? null : Integer.parseInt(matcher.group(5)))
+                .build();
+    }
+
+    /**
+     * Converts a column name (A, B, ..., Z, AA, ...) into a zero based index.
+     * @param column The column name.
+     * @return The column index.
+     */
+    public static int columnIndex(String column) {
+        int index = 0;
+        for (char letter : column.toUpperCase(Locale.ENGLISH).toCharArray()) {
+            index = index * 26 + (letter - 'A' + 1);
+        }
+        return index - 1;
+    }
+
+    /**
+     * Converts a zero based column index into a column name.
+     * @param index The column index.
+     * @return The column name.
+     */
+    public static String columnName(int index) {
+        StringBuilder name = new StringBuilder();
+        for (int remaining = index + 1; remaining > 0; remaining = (remaining - 1) / 26) {
+            name.insert(0, (char) ('A' + (remaining - 1) % 26));
+        }
+        return name.toString();
+    }
+
+    /**
+     * Returns the sheet name without the quotes A1 notation requires around names with spaces.
+     * @return The sheet name.
+     */
+    public String getSheetName() {
+        if (sheet.length() > 1 && sheet.startsWith("'") && sheet.endsWith("'")) {
+            return sheet.substring(1, sheet.length() - 1).replace("''", "'");
+        }
+        return sheet;
+    }
+
+    /**
+     * Returns whether the range has a last row and a last column.
+     * @return True if the range is a closed block of cells.
+     */
+    public boolean isBounded() {
+        return endColumn != null && endRow != null;
+    }
+
+    /**
+     * Closes an open ended range at the edges of the sheet grid.  Closed ranges are only clipped to the grid.
+     * @param rowCount The number of rows in the sheet.
+     * @param columnCount The number of columns in the sheet.
+     * @return The bounded range.
+     */
+    public SheetRange bound(int rowCount, int columnCount) {
+        return toBuilder()
+                .endColumn(Math.min(endColumn == null ? Integer.MAX_VALUE : endColumn, columnCount - 1))
+                .endRow(Math.min(endRow == null ? Integer.MAX_VALUE : endRow, rowCount))
+                .build();
+    }
+
+    /**
+     * Returns the same rows restricted to a span of columns.
+     * @param start Zero based index of the first column.
+     * @param end Zero based index of the last column (inclusive).
+     * @return The narrowed range.
+     */
+    public SheetRange withColumns(int start, int end) {
+        return toBuilder().startColumn(start).endColumn(end).build();
+    }
+
+    /**
+     * Returns the same columns restricted to a span of rows.
+     * @param start One based number of the first row.
+     * @param end One based number of the last row (inclusive).
+     * @return The narrowed range.
+     */
+    public SheetRange withRows(int start, int end) {
+        return toBuilder().startRow(start).endRow(end).build();
+    }
+
+    @Override
+    public String toString() {
+        if (endColumn == null) {
+            //Only whole sheets (or whole rows of them) have no last column.
+            return endRow == null && startRow == 1 ? sheet : sheet + "!" + startRow + ":" + endRow;
+        }
+        return sheet + "!" + columnName(startColumn) + startRow + ":" + columnName(endColumn)
+                + (endRow == null ? "" : endRow);
+    }
+}
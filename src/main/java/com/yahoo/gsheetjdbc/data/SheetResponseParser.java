@@ -0,0 +1,427 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+import com.yahoo.gsheetjdbc.utils.DateUtils;
+
+import com.google.api.client.json.JsonParser;
+import com.google.api.client.json.JsonToken;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Decodes a Sheets API spreadsheets.get response token by token.
+ * <p>
+ * Cell values are read straight from the JSON stream into row lists without building the
+ * Spreadsheet / GridData / RowData / CellData object tree.  The table schema is published as soon as the sheet
+ * title, header row and first data row have been read, and rows follow in batches.  Validation and type
+ * inference match {@link GoogleSheetsDataFetcher#extractTableSchema} and
+ * {@link GoogleSheetsDataFetcher#extractSheetData}.
+ */
+@Slf4j
+class SheetResponseParser {
+
+    //Marks an effectiveValue which does not hold exactly one value.
+    private static final Object INVALID = new Object();
+
+    private final JsonParser parser;
+    private final String schema;
+    private final int batchSize;
+    private final Consumer<Table> schemaSink;
+    private final Consumer<List<List<Object>>> batchSink;
+
+    private String title;
+    private int sheetCount = 0;
+    private int rowIndex = 0;
+    private int rowsRead = 0;
+    private boolean finishedRows = false;
+    private List<String> headers;
+    private List<Column> columns;
+    private Table table;
+    private List<List<Object>> batch = new ArrayList<>();
+
+    //Number format type of the most recently read cell (only read for the first data row).
+    private String cellFormatType;
+
+    /**
+     * Constructor.
+     * @param parser The JSON parser positioned before the response object.
+     * @param schema The database schema name for the table.
+     * @param batchSize The number of rows per batch.
+     * @param schemaSink Receives the table schema before any rows.
+     * @param batchSink Receives batches of rows.
+     */
+    SheetResponseParser(
+            JsonParser parser,
+            String schema,
+            int batchSize,
+            Consumer<Table> schemaSink,
+            Consumer<List<List<Object>>> batchSink
+    ) {
+        this.parser = parser;
+        this.schema = schema;
+        this.batchSize = batchSize;
+        this.schemaSink = schemaSink;
+        this.batchSink = batchSink;
+    }
+
+    /**
+     * Constructor for a band of rows further down a sheet whose first band has already been decoded.  The
+     * response has no header row: every row is data of the known table.
+     * @param parser The JSON parser positioned before the response object.
+     * @param table The table decoded from the first band.
+     * @param batchSize The number of rows per batch.
+     * @param batchSink Receives batches of rows.
+     */
+    SheetResponseParser(
+            JsonParser parser,
+            Table table,
+            int batchSize,
+            Consumer<List<List<Object>>> batchSink
+    ) {
+        this(parser, table.getSchema(), batchSize, (ignored) -> { }, batchSink);
+        this.table = table;
+        this.title = table.getTableName();
+        this.columns = table.getColumns();
+        //Past the header and the first data row, which are only special in the first band.
+        this.rowIndex = 2;
+    }
+
+    /**
+     * Returns whether an empty or incomplete row ended the table (later rows were skipped).
+     * @return True if the table ended within the response.
+     */
+    boolean isEnded() {
+        return finishedRows;
+    }
+
+    /**
+     * Returns the number of rows in the response, including any skipped after the table ended.
+     * @return The number of rows read.
+     */
+    int getRowsRead() {
+        return rowsRead;
+    }
+
+    /**
+     * Parses the whole response.
+     * @throws IOException If the response cannot be read.
+     * @throws IllegalStateException If the response does not contain a valid sheet.
+     */
+    void parse() throws IOException {
+        if (parser.nextToken() != JsonToken.START_OBJECT) {
+            fail("No spreadsheets returned from server.");
+        }
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("sheets") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                parseSheets();
+            } else {
+                parser.skipChildren();
+            }
+        }
+
+        if (sheetCount != 1) {
+            fail("No spreadsheets returned from server.");
+        }
+        if (columns == null) {
+            fail("Google sheets require at least two rows to determine the schema.");
+        }
+        title = GoogleSheetsDataFetcher.validateTitle(title);
+        publishSchema();
+        if (!batch.isEmpty()) {
+            batchSink.accept(batch);
+            batch = new ArrayList<>();
+        }
+    }
+
+    private void parseSheets() throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            sheetCount++;
+            if (sheetCount == 1) {
+                parseSheet();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseSheet() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("properties")) {
+                parseProperties();
+            } else if (field.equals("data") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                parseGrids();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseProperties() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("title")) {
+                title = GoogleSheetsDataFetcher.validateTitle(parser.getText());
+            } else {
+                parser.skipChildren();
+            }
+        }
+        publishSchema();
+    }
+
+    private void parseGrids() throws IOException {
+        boolean first = true;
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (first) {
+                parseGrid();
+                first = false;
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseGrid() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("rowData") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                parseRows();
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void parseRows() throws IOException {
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            rowsRead++;
+            if (finishedRows) {
+                parser.skipChildren();
+                continue;
+            }
+
+            List<Object> values = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.getCurrentName();
+                parser.nextToken();
+                if (field.equals("values") && parser.getCurrentToken() == JsonToken.START_ARRAY) {
+                    values = parseCells();
+                } else {
+                    parser.skipChildren();
+                }
+            }
+            processRow(values == null ? List.of() : values);
+            rowIndex++;
+        }
+    }
+
+    private List<Object> parseCells() throws IOException {
+        List<Object> values = new ArrayList<>(columns == null ? 16 : columns.size());
+        List<String> formatTypes = rowIndex == 1 ? new ArrayList<>() : null;
+
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (columns != null && values.size() >= columns.size()) {
+                //Cells past the last column are ignored.
+                parser.skipChildren();
+                continue;
+            }
+            Column.ColumnType type = columns == null ? null : columns.get(values.size()).getType();
+            values.add(parseCell(type, formatTypes != null));
+            if (formatTypes != null) {
+                formatTypes.add(cellFormatType);
+            }
+        }
+
+        if (rowIndex == 1) {
+            inferColumns(values, formatTypes);
+        }
+        return values;
+    }
+
+    private Object parseCell(Column.ColumnType type, boolean readFormat) throws IOException {
+        Object value = null;
+        cellFormatType = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("effectiveValue")) {
+                value = parseExtendedValue(type);
+            } else if (readFormat && field.equals("effectiveFormat")) {
+                parseCellFormat();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Reads an effectiveValue.  Once the column type is known, numbers in date columns are converted straight
+     * from the parsed primitive.
+     */
+    private Object parseExtendedValue(Column.ColumnType type) throws IOException {
+        if (parser.getCurrentToken() == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (parser.getCurrentToken() != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return INVALID;
+        }
+        Object value = INVALID;
+        int count = 0;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken token = parser.nextToken();
+            count++;
+            if (field.equals("numberValue")) {
+                double number = token == JsonToken.VALUE_STRING
+                        ? Double.parseDouble(parser.getText()) : parser.getDoubleValue();
+                value = type == Column.ColumnType.DATE || type == Column.ColumnType.DATETIME
+                        ? DateUtils.convert(number) : (Object) number;
+            } else if (field.equals("boolValue")) {
+                value = token == JsonToken.VALUE_TRUE;
+            } else if (field.equals("stringValue") || field.equals("formulaValue")) {
+                value = parser.getText();
+            } else {
+                //errorValue or an unknown kind of value.
+                parser.skipChildren();
+                value = INVALID;
+            }
+        }
+        return count == 1 ? value : INVALID;
+    }
+
+    private void parseCellFormat() throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            parser.nextToken();
+            if (field.equals("numberFormat") && parser.getCurrentToken() == JsonToken.START_OBJECT) {
+                cellFormatType = "";
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String formatField = parser.getCurrentName();
+                    parser.nextToken();
+                    if (formatField.equals("type")) {
+                        cellFormatType = parser.getText();
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+    }
+
+    private void processHeader(List<Object> values) {
+        headers = new ArrayList<>();
+        for (Object value : values) {
+            //Done processing columns...
+            if (value == null) {
+                break;
+            }
+            String heading = value instanceof String ? (String) value : null;
+            headers.add(GoogleSheetsDataFetcher.validateColumnName(heading));
+        }
+    }
+
+    private void processRow(List<Object> values) {
+        if (rowIndex == 0) {
+            processHeader(values);
+            return;
+        }
+
+        if (columns == null) {
+            inferColumns(values, List.of());
+        }
+
+        if (values.size() < columns.size()) {
+            //Can't process this row.
+            finishedRows = true;
+            return;
+        }
+
+        List<Object> row = new ArrayList<>(columns.size());
+        boolean empty = true;
+        for (int idx = 0; idx < columns.size(); idx++) {
+            Object value = values.get(idx);
+            Column column = columns.get(idx);
+
+            if (value == INVALID) {
+                String message = String.format("Invalid value for column %s", column.getName());
+                log.error(message);
+                throw new IllegalStateException(message);
+            } else if (value != null && !(value instanceof LocalDateTime)
+                    && (column.getType() == Column.ColumnType.DATE
+                    || column.getType() == Column.ColumnType.DATETIME)) {
+                //Cells read before the column types were known.
+                value = DateUtils.convert(value);
+            }
+            empty = empty && value == null;
+            row.add(value);
+        }
+
+        if (empty) {
+            //first empty row.
+            finishedRows = true;
+            return;
+        }
+
+        batch.add(row);
+        publishSchema();
+        if (table != null && batch.size() >= batchSize) {
+            batchSink.accept(batch);
+            batch = new ArrayList<>();
+        }
+    }
+
+    private void inferColumns(List<Object> values, List<String> formatTypes) {
+        if (columns != null || headers == null) {
+            return;
+        }
+        if (headers.isEmpty()) {
+            fail("Spreadsheet is missing header row starting at row 0.");
+        }
+
+        columns = new ArrayList<>(headers.size());
+        for (int idx = 0; idx < headers.size(); idx++) {
+            Object value = idx < values.size() ? values.get(idx) : null;
+            String formatType = idx < formatTypes.size() ? formatTypes.get(idx) : null;
+            columns.add(Column.builder()
+                    .name(headers.get(idx))
+                    .type(GoogleSheetsDataFetcher.columnType(formatType, value))
+                    .build());
+        }
+    }
+
+    private void publishSchema() {
+        if (table != null || title == null || columns == null) {
+            return;
+        }
+        table = Table.builder()
+                .schema(schema)
+                .tableName(title)
+                .columns(columns)
+                .build();
+        schemaSink.accept(table);
+    }
+
+    private static void fail(String message) {
+        log.error(message);
+        throw new IllegalStateException(message);
+    }
+}
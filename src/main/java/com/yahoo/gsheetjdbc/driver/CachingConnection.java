@@ -0,0 +1,233 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps a database connection so that queries are answered from a {@link ResultCache} when possible.
+ * <p>
+ * Only {@code executeQuery} is cached, and only while the connection is in auto-commit mode.  Parameters bound
+ * with streams, readers, arrays or LOBs make a prepared statement uncacheable.  A table counts as referenced
+ * by a query when its name appears in the SQL as a whole identifier (see {@link LazyConnection}), so the key
+ * may hold more table versions than the query strictly reads, never fewer.
+ * <p>
+ * Only loaded sheets have versions.  Queries which reference none of them, or which read the driver's metadata
+ * ({@link DatabaseLoader#META_SCHEMA}) or the database catalog (INFORMATION_SCHEMA), are never cached: those
+ * change without any version changing.
+ */
+class CachingConnection implements InvocationHandler {
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            "executeUpdate", "executeLargeUpdate", "executeBatch", "executeLargeBatch");
+
+    private static final List<Pattern> UNVERSIONED_SCHEMAS = List.of(
+            LazyConnection.identifierPattern(DatabaseLoader.META_SCHEMA),
+            LazyConnection.identifierPattern("INFORMATION_SCHEMA"));
+
+    private final Connection connection;
+    private final ResultCache cache;
+    private final Supplier<Map<String, Long>> tableVersions;
+    private final Connection proxy;
+
+    private CachingConnection(Connection connection, ResultCache cache, Supplier<Map<String, Long>> tableVersions) {
+        this.connection = connection;
+        this.cache = cache;
+        this.tableVersions = tableVersions;
+        this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, this);
+    }
+
+    /**
+     * Wraps a connection.
+     * @param connection The database connection.
+     * @param cache The cache shared by the driver's connections.
+     * @param tableVersions Supplies the current version of every loaded table by table name.
+     * @return The wrapped connection.
+     */
+    static Connection wrap(Connection connection, ResultCache cache, Supplier<Map<String, Long>> tableVersions) {
+        return new CachingConnection(connection, cache, tableVersions).proxy;
+    }
+
+    /**
+     * Normalizes SQL for use as a cache key: surrounding whitespace is removed and runs of whitespace outside of
+     * quoted literals and identifiers are collapsed into a single space.
+     * @param sql The SQL.
+     * @return The normalized SQL.
+     */
+    static String normalize(String sql) {
+        StringBuilder normalized = new StringBuilder(sql.length());
+        char quote = 0;
+        boolean space = false;
+        for (char character : sql.trim().toCharArray()) {
+            if (quote == 0 && Character.isWhitespace(character)) {
+                space = true;
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+            }
+            if (quote == 0 && (character == '\'' || character == '"' || character == '`')) {
+                quote = character;
+            } else if (character == quote) {
+                //A doubled quote re-opens the literal on the next character.
+                quote = 0;
+            }
+            normalized.append(character);
+        }
+        return normalized.toString();
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return target == args[0];
+        } else if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(target);
+        }
+
+        Object result = invokeTarget(connection, method, args);
+
+        if (result instanceof PreparedStatement && method.getName().equals("prepareStatement")) {
+            return new CachingStatement((Statement) result, (String) args[0]).wrap(method.getReturnType());
+        } else if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            return new CachingStatement((Statement) result, null).wrap(method.getReturnType());
+        }
+        return result;
+    }
+
+    private ResultSet executeQuery(String sql, List<Object> parameters, QueryRunner runner) throws Throwable {
+        if (parameters == null || !connection.getAutoCommit()) {
+            return runner.run();
+        }
+
+        //Versions are read before the query runs: a concurrent swap can only make the entry unreachable.
+        Map<String, Long> versions = new TreeMap<>();
+        tableVersions.get().forEach((table, version) -> {
+            if (LazyConnection.identifierPattern(table).matcher(sql).find()) {
+                versions.put(table, version);
+            }
+        });
+        if (versions.isEmpty() || UNVERSIONED_SCHEMAS.stream().anyMatch((schema) -> schema.matcher(sql).find())) {
+            return runner.run();
+        }
+        ResultCache.Key key = new ResultCache.Key(connection.getCatalog(), connection.getSchema(), normalize(sql),
+                parameters, versions);
+
+        ResultSet cached = cache.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        return cache.put(key, runner.run());
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    @FunctionalInterface
+    private interface QueryRunner {
+        ResultSet run() throws Throwable;
+    }
+
+    /**
+     * Intercepts queries and tracks the parameters bound to a prepared statement.
+     */
+    private class CachingStatement implements InvocationHandler {
+        private final Statement statement;
+
+        //The prepared SQL or null for plain statements.
+        private final String sql;
+
+        //Bound parameters by index (the setter name followed by its arguments) or null once uncacheable.
+        private Map<Integer, List<Object>> parameters = new TreeMap<>();
+
+        CachingStatement(Statement statement, String sql) {
+            this.statement = statement;
+            this.sql = sql;
+        }
+
+        Object wrap(Class<?> type) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {type}, this);
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("getConnection")) {
+                return proxy;
+            } else if (name.equals("executeQuery")) {
+                if (args != null && args.length == 1) {
+                    String query = (String) args[0];
+                    return executeQuery(query, List.of(), () -> (ResultSet) invokeTarget(statement, method, args));
+                } else if (sql != null) {
+                    return executeQuery(sql, parameters == null ? null : new ArrayList<>(parameters.values()),
+                            () -> (ResultSet) invokeTarget(statement, method, args));
+                }
+            } else if (name.equals("clearParameters")) {
+                parameters = new TreeMap<>();
+            } else if (sql != null && isParameterSetter(method)) {
+                bind(name, args);
+            }
+
+            Object result = invokeTarget(statement, method, args);
+
+            //Anything which may have changed data (or whose effect is unknown) drops the cached results.
+            if (WRITE_METHODS.contains(name) || (name.equals("execute") && !Boolean.TRUE.equals(result))) {
+                cache.clear();
+            }
+            return result;
+        }
+
+        private boolean isParameterSetter(Method method) {
+            return method.getName().startsWith("set") && method.getParameterCount() >= 2
+                    && method.getParameterTypes()[0] == int.class;
+        }
+
+        private void bind(String setter, Object[] args) {
+            if (parameters == null) {
+                return;
+            }
+            for (int idx = 1; idx < args.length; idx++) {
+                if (!isCacheable(args[idx])) {
+                    parameters = null;
+                    return;
+                }
+            }
+            List<Object> binding = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+            binding.add(0, setter);
+            parameters.put((Integer) args[0], binding);
+        }
+
+        private boolean isCacheable(Object value) {
+            return value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                    || value instanceof Date || value instanceof TemporalAccessor || value instanceof Enum;
+        }
+    }
+}
@@ -0,0 +1,271 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.data.DataFetcher;
+import com.yahoo.gsheetjdbc.data.SheetRange;
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Narrows the range fetched for a document to the span of columns a statement references.
+ * <p>
+ * The header row of each document is fetched once to map column names to sheet columns.  A statement's
+ * columns are matched by name (as whole identifiers, case insensitively) and {@code SELECT *} references every
+ * column.  The span only ever widens: a statement that needs a column outside of the loaded span reloads the
+ * table with the union of both spans, so tables in use by other connections keep their columns.
+ * <p>
+ * A narrowed table holds the same rows as the full range.  The full range ends at its first row without a value
+ * in the last header column (the Sheets API leaves trailing empty cells out, so such rows are too short to load),
+ * while a narrowed fetch ends at the first row without a value in the last column of its span.  Unless the span
+ * ends at the last header column, that column is fetched on its own to count the rows of the full range, and rows
+ * the span cuts short are filled in from the span extended to the last header column.
+ */
+class ColumnProjection {
+
+    /**
+     * Fetches the schema of a document from its header and first data row.
+     */
+    @FunctionalInterface
+    interface HeaderFetcher {
+
+        /**
+         * Fetches a table schema.
+         * @param document The document restricted to its first two rows.
+         * @return The table schema.
+         * @throws SQLException If the header cannot be fetched.
+         */
+        Table fetch(DocConfig document) throws SQLException;
+    }
+
+    /**
+     * Fetches another range of a narrowed document.
+     */
+    @FunctionalInterface
+    interface RangeFetcher {
+
+        /**
+         * Starts fetching a range.
+         * @param range The range.
+         * @return The fetch result.
+         */
+        CompletableFuture<DataFetcher.Result> fetch(String range);
+    }
+
+    private static final Pattern SELECT_ALL = Pattern.compile("(?i)(select\\s+(all\\s+|distinct\\s+)?|,\\s*|\\.)\\*");
+
+    private final Map<DocConfig, List<Pattern>> headers = new ConcurrentHashMap<>();
+    private final Map<DocConfig, SheetRange> loadedSpans = new ConcurrentHashMap<>();
+
+    /**
+     * Narrows a document to the columns a statement references.
+     * @param document The document as configured in the JDBC URL.
+     * @param sql The statement.
+     * @param headerFetcher Fetches the document header the first time the document is projected.
+     * @return The document restricted to the loaded column span widened to cover the statement.
+     * @throws SQLException If the document header cannot be fetched.
+     */
+    DocConfig project(DocConfig document, String sql, HeaderFetcher headerFetcher) throws SQLException {
+        SheetRange range = SheetRange.parse(document.getRange());
+        List<Pattern> columns = getColumnPatterns(document, range, headerFetcher);
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        boolean all = SELECT_ALL.matcher(sql).find();
+        for (int idx = 0; idx < columns.size(); idx++) {
+            if (all || columns.get(idx).matcher(sql).find()) {
+                first = Math.min(first, idx);
+                last = Math.max(last, idx);
+            }
+        }
+
+        boolean referenced = first <= last;
+        int start = range.getStartColumn() + (referenced ? first : 0);
+        int end = range.getStartColumn() + (referenced ? last : 0);
+
+        //When no column is referenced (for example COUNT(*)) any loaded span will do, else the first column.
+        SheetRange span = loadedSpans.compute(document, (key, loaded) -> loaded == null
+                ? range.withColumns(start, end)
+                : !referenced ? loaded
+                : range.withColumns(Math.min(start, loaded.getStartColumn()), Math.max(end, loaded.getEndColumn())));
+
+        return DocConfig.builder()
+                .id(document.getId())
+                .schema(document.getSchema())
+                .range(span.toString())
+                .storage(document.getStorage())
+                .lastHeaderColumn(range.getStartColumn() + columns.size() - 1)
+                .build();
+    }
+
+    /**
+     * Returns the range which decides how many rows a narrowed document has.
+     * @param document A document narrowed by {@link #project}.
+     * @return The last header column over the rows of the document, or null if the narrowed span ends at that
+     *     column and so ends where the full range does.
+     */
+    static String extentRange(DocConfig document) {
+        SheetRange span = SheetRange.parse(document.getRange());
+        int last = document.getLastHeaderColumn();
+        return span.getEndColumn() >= last ? null : span.withColumns(last, last).toString();
+    }
+
+    /**
+     * Counts the rows of a fetch (and closes it).
+     * @param result The fetch result.
+     * @return The number of rows.
+     */
+    static int countRows(DataFetcher.Result result) {
+        int rows = 0;
+        try {
+            for (Iterator<List<List<Object>>> batches = result.getBatches(); batches.hasNext();) {
+                rows += batches.next().size();
+            }
+        } finally {
+            result.close();
+        }
+        return rows;
+    }
+
+    /**
+     * Gives a narrowed document exactly the rows of the full range.
+     * @param document A document narrowed by {@link #project}.
+     * @param batches The rows fetched for the narrowed span.
+     * @param rowCount The number of rows of the full range (from the {@link #extentRange}).
+     * @param rangeFetcher Fetches the span extended to the last header column if the narrowed fetch is short.
+     * @return The rows of the full range restricted to the narrowed span.
+     */
+    static Iterator<List<List<Object>>> extend(
+            DocConfig document,
+            Iterator<List<List<Object>>> batches,
+            int rowCount,
+            RangeFetcher rangeFetcher
+    ) {
+        SheetRange span = SheetRange.parse(document.getRange());
+        String extended = span.withColumns(span.getStartColumn(), document.getLastHeaderColumn()).toString();
+        return new ExtendedRows(batches, rowCount, span.getEndColumn() - span.getStartColumn() + 1,
+                () -> rangeFetcher.fetch(extended));
+    }
+
+    private List<Pattern> getColumnPatterns(
+            DocConfig document,
+            SheetRange range,
+            HeaderFetcher headerFetcher
+    ) throws SQLException {
+        List<Pattern> patterns = headers.get(document);
+        if (patterns != null) {
+            return patterns;
+        }
+
+        Table header = headerFetcher.fetch(DocConfig.builder()
+                .id(document.getId())
+                .schema(document.getSchema())
+                .range(range.withRows(range.getStartRow(), range.getStartRow() + 1).toString())
+                .storage(document.getStorage())
+                .build());
+
+        patterns = header.getColumns().stream()
+                .map(Column::getName)
+                .map(LazyConnection::identifierPattern)
+                .collect(Collectors.toList());
+        headers.put(document, patterns);
+        return patterns;
+    }
+
+    /**
+     * The rows of a narrowed fetch up to the row count of the full range, continued from a fetch of the span
+     * extended to the last header column if the narrowed fetch ends early.
+     */
+    private static class ExtendedRows implements Iterator<List<List<Object>>> {
+        private final Iterator<List<List<Object>>> batches;
+        private final int rowCount;
+        private final int columns;
+        private final Supplier<CompletableFuture<DataFetcher.Result>> extension;
+        private Iterator<List<List<Object>>> extended;
+        private int rows = 0;
+
+        ExtendedRows(
+                Iterator<List<List<Object>>> batches,
+                int rowCount,
+                int columns,
+                Supplier<CompletableFuture<DataFetcher.Result>> extension
+        ) {
+            this.batches = batches;
+            this.rowCount = rowCount;
+            this.columns = columns;
+            this.extension = extension;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (rows >= rowCount) {
+                return false;
+            }
+            if (extended == null) {
+                if (batches.hasNext()) {
+                    return true;
+                }
+                extended = fetchMissingRows();
+            }
+            return extended.hasNext();
+        }
+
+        @Override
+        public List<List<Object>> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            List<List<Object>> batch = extended == null ? batches.next() : extended.next();
+            if (batch.size() > rowCount - rows) {
+                batch = batch.subList(0, rowCount - rows);
+            }
+            rows += batch.size();
+            return batch;
+        }
+
+        private Iterator<List<List<Object>>> fetchMissingRows() {
+            DataFetcher.Result result;
+            try {
+                result = extension.get().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException(e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            }
+
+            //Rare, so the missing rows are collected rather than streamed.
+            List<List<Object>> missing = new ArrayList<>();
+            int skipped = 0;
+            try {
+                for (Iterator<List<List<Object>>> extendedBatches = result.getBatches(); extendedBatches.hasNext();) {
+                    for (List<Object> row : extendedBatches.next()) {
+                        if (skipped < rows) {
+                            skipped++;
+                        } else {
+                            missing.add(row.subList(0, columns));
+                        }
+                    }
+                }
+            } finally {
+                result.close();
+            }
+            return missing.isEmpty() ? List.<List<List<Object>>>of().iterator() : List.of(missing).iterator();
+        }
+    }
+}
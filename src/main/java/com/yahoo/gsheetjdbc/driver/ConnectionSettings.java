@@ -0,0 +1,69 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.loader.StorageMode;
+
+import lombok.Value;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * A parsed JDBC URL together with the connection properties the driver understands.
+ */
+@Value
+class ConnectionSettings {
+
+    /**
+     * Deadline for each freshness check and sheet fetch when {@link Driver#FETCH_TIMEOUT_PROPERTY} is not set.
+     */
+    static final Duration DEFAULT_FETCH_TIMEOUT = Duration.ofMinutes(2);
+
+    private Set<DocConfig> documents;
+    private Duration fetchTimeout;
+    private boolean lazyLoad;
+    private boolean projectionPushdown;
+    private boolean resultCache;
+
+    //The storage mode selected by the URL or null for the driver's default.
+    private StorageMode storageMode;
+
+    /**
+     * Parses a JDBC URL and connection properties.
+     * @param url The JDBC URL.
+     * @param info The connection properties (may be null).
+     * @return The settings.
+     * @throws SQLException If the URL or a property is invalid.
+     */
+    static ConnectionSettings parse(String url, Properties info) throws SQLException {
+        Set<DocConfig> documents = Driver.parseUrl(url);
+        return new ConnectionSettings(
+                documents,
+                getFetchTimeout(info),
+                isEnabled(info, Driver.LAZY_LOAD_PROPERTY),
+                isEnabled(info, Driver.PROJECTION_PUSHDOWN_PROPERTY),
+                isEnabled(info, Driver.RESULT_CACHE_PROPERTY),
+                documents.iterator().next().getStorage());
+    }
+
+    private static Duration getFetchTimeout(Properties info) throws SQLException {
+        String timeout = info == null ? null : info.getProperty(Driver.FETCH_TIMEOUT_PROPERTY);
+        if (timeout == null) {
+            return DEFAULT_FETCH_TIMEOUT;
+        }
+        try {
+            return Duration.ofSeconds(Long.parseLong(timeout));
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid " + Driver.FETCH_TIMEOUT_PROPERTY + " : " + timeout);
+        }
+    }
+
+    private static boolean isEnabled(Properties info, String property) {
+        return info != null && Boolean.parseBoolean(info.getProperty(property));
+    }
+}
@@ -4,6 +4,8 @@
  */
 package com.yahoo.gsheetjdbc.driver;
 
+import com.yahoo.gsheetjdbc.loader.StorageMode;
+
 import lombok.Builder;
 import lombok.Data;
 
@@ -16,4 +18,11 @@ public class DocConfig {
     private final String id;
     private final String range;
     private final String schema;
+
+    //Where the schema's tables are stored or null for the driver's default.
+    private final StorageMode storage;
+
+    //Zero based index of the last header column of the configured range when the range has been narrowed to the
+    //columns a statement references (see ColumnProjection), else null.
+    private final Integer lastHeaderColumn;
 }
@@ -4,14 +4,26 @@
  */
 package com.yahoo.gsheetjdbc.driver;
 
+import com.yahoo.gsheetjdbc.data.AsyncDataFetcher;
 import com.yahoo.gsheetjdbc.data.CredentialFetcher;
 import com.yahoo.gsheetjdbc.data.DataFetcher;
+import com.yahoo.gsheetjdbc.data.ExecutorAsyncDataFetcher;
 import com.yahoo.gsheetjdbc.data.GoogleServiceAccountCredentialFetcher;
 import com.yahoo.gsheetjdbc.data.GoogleSheetsDataFetcher;
 import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
-
+import com.yahoo.gsheetjdbc.loader.LoadStatistics;
+import com.yahoo.gsheetjdbc.loader.RefreshStatistics;
+import com.yahoo.gsheetjdbc.loader.StorageMode;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import com.yahoo.gsheetjdbc.metrics.Metrics;
+import com.yahoo.gsheetjdbc.metrics.NoopMetrics;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
+import java.io.IOException;
 import java.net.URLDecoder;
 import java.nio.charset.Charset;
 import java.sql.Connection;
@@ -19,11 +31,28 @@ import java.sql.DriverManager;
 import java.sql.DriverPropertyInfo;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -36,39 +65,235 @@ public class Driver implements java.sql.Driver {
 
     private static final String URL_PREFIX = "jdbc:gsheet:";
 
+    /**
+     * System property which, when set to true, records driver metrics in memory and exposes them through JMX.
+     */
+    public static final String METRICS_PROPERTY = "gsheetjdbc.metrics.enabled";
+
+    /**
+     * Connection property with the deadline (in seconds) for each freshness check and sheet fetch.
+     */
+    public static final String FETCH_TIMEOUT_PROPERTY = "fetchTimeout";
+
+    /**
+     * Connection property which, when true, defers fetching each document until a statement references its table.
+     */
+    public static final String LAZY_LOAD_PROPERTY = "lazyLoad";
+
+    /**
+     * Connection property which, when true, loads documents lazily and only fetches the span of columns
+     * referenced by statements.  Tables are widened when later statements reference more columns.
+     */
+    public static final String PROJECTION_PUSHDOWN_PROPERTY = "projectionPushdown";
+
+    /**
+     * Connection property which, when true, answers repeated queries from a result cache shared by the driver's
+     * connections.  Cached results are dropped when a referenced table is reloaded with new content.
+     */
+    public static final String RESULT_CACHE_PROPERTY = "resultCache";
+
+    /**
+     * System property with the location of a manifest of documents to load as soon as the driver is registered:
+     * a file path or a classpath resource prefixed with {@code classpath:}.  Without it, a
+     * {@value #DEFAULT_PRELOAD_MANIFEST} resource on the classpath is used if present.
+     */
+    public static final String PRELOAD_PROPERTY = "gsheetjdbc.preload";
+
+    /**
+     * Classpath resource preloaded when {@link #PRELOAD_PROPERTY} is not set.
+     */
+    public static final String DEFAULT_PRELOAD_MANIFEST = "gsheetjdbc-preload.txt";
+
     //https://developers.google.com/docs/api/how-tos/overview#document_id
     private static final String DOC_ID_REGEX = "([a-zA-Z0-9-_]+)";
     private static final String SCHEMA_NAME_REGEX = "([a-zA-Z][a-zA-Z0-9_]*)";
+    private static final String STORAGE_REGEX = "(?:\\?storage=([a-zA-Z_-]+))?";
 
-    //doc=(id=abcdefg,range=MySheet!A1:G11)
+    //doc=(id=abcdefg,range=MySheet!A1:G11), doc=(id=abcdefg,range=MySheet!A:G) or doc=(id=abcdefg,range=MySheet)
     private static final String DOC_REGEX =
-            "doc=\\(id=([a-zA-Z0-9-_]+),range=([^/!]+![a-zA-Z]+[0-9]+:[a-zA-Z]+[0-9]+)\\)";
+            "doc=\\(id=([a-zA-Z0-9-_]+),range=([^/!(),]+|[^/!]+![a-zA-Z]+[0-9]*:[a-zA-Z]+[0-9]*)\\)";
 
     // Multi Sheet
     // jdbc:gsheet://doc=(id=abcdefg,range=Sheet1!A1:G11),doc=(id=xyz123,range=Sheet2!A1:G11)/MySchema
     // OR Single Sheet
     // jdbc:gsheet://doc=(id=abcdefg,range=Sheet1!A1:G11)/MySchema
-    private static final String URL_REGEX =
-            "^" + URL_PREFIX + "//" + DOC_REGEX + "((," + DOC_REGEX + ")*)/" + SCHEMA_NAME_REGEX + "$";
+    // OR with a storage mode for the schema
+    // jdbc:gsheet://doc=(id=abcdefg,range=Sheet1!A1:G11)/MySchema?storage=compressed
+    private static final String URL_REGEX = "^" + URL_PREFIX + "//" + DOC_REGEX + "((," + DOC_REGEX + ")*)/"
+            + SCHEMA_NAME_REGEX + STORAGE_REGEX + "$";
 
     private static final Pattern URL_PATTERN = Pattern.compile(URL_REGEX);
     private static final Pattern DOC_PATTERN = Pattern.compile("," + DOC_REGEX);
 
+    //The instance registered with the DriverManager.
+    private static final Driver REGISTERED;
+
     static {
         Driver driver = new Driver();
+        REGISTERED = driver;
         try {
             DriverManager.registerDriver(driver);
         } catch (SQLException e) {
             log.error("Unable to register driver: " + e.getMessage());
             throw new IllegalStateException(e);
         }
+
+        String manifest = System.getProperty(PRELOAD_PROPERTY);
+        if (manifest == null && Driver.class.getClassLoader().getResource(DEFAULT_PRELOAD_MANIFEST) != null) {
+            manifest = PreloadManifest.CLASSPATH_PREFIX + DEFAULT_PRELOAD_MANIFEST;
+        }
+        if (manifest != null) {
+            driver.preload(manifest);
+        }
     }
 
     Map<DocConfig, String> documents = new ConcurrentHashMap<>();
     private final DatabaseLoader loader;
 
+    //The database of each storage mode.  Schemas which select a storage mode other than the default live there.
+    private final Map<StorageMode, DatabaseLoader> loaders = new ConcurrentHashMap<>();
+
+    //Tables narrowed by projection pushdown live in databases of their own, so that they never replace the full
+    //tables connections without pushdown read.
+    private final Map<StorageMode, DatabaseLoader> projectedLoaders = new ConcurrentHashMap<>();
+    private final Metrics metrics;
+    private final AsyncDataFetcher fetcher;
+    private final Supplier<CredentialFetcher> credentials;
+    private final ColumnProjection projection = new ColumnProjection();
+    private final ResultCache resultCache;
+
+    //Loads fetched documents into the database.  Loads wait for fetches, so they must not share the fetch executor.
+    private final ExecutorService loadExecutor = FetchExecutors.newLoadExecutor();
+    private volatile CompletableFuture<Void> preload = CompletableFuture.completedFuture(null);
+
+    /**
+     * A document whose freshness check (and possibly fetch) has been started but not yet loaded.
+     */
+    @Value
+    private static class PendingLoad {
+        private DocConfig document;
+        private long start;
+        private CompletableFuture<String> lastModified;
+
+        //Completes with null if the document is still fresh.
+        private CompletableFuture<DataFetcher.Result> result;
+
+        //Completes with the row count pass of a narrowed document (see ColumnProjection) or null if it needs none.
+        private CompletableFuture<DataFetcher.Result> extent;
+
+        //Fetches other ranges of the document.
+        private ColumnProjection.RangeFetcher rangeFetcher;
+
+        //Every future started for the document.
+        private Queue<CompletableFuture<?>> inFlight;
+    }
+
     public Driver() {
-        loader = new DatabaseLoader("gsheets");
+        this(Boolean.getBoolean(METRICS_PROPERTY) ? new InMemoryMetrics().registerMBean() : NoopMetrics.INSTANCE);
+    }
+
+    /**
+     * Constructor.
+     * @param metrics Records timings and counters for driver operations.
+     */
+    public Driver(Metrics metrics) {
+        this(metrics, FetchExecutors.create());
+    }
+
+    private Driver(Metrics metrics, ExecutorService executor) {
+        this(DatabaseLoader.builder().dbName("gsheets").metrics(metrics).build(),
+                GoogleSheetsDataFetcher.builder()
+                        .metrics(metrics)
+                        .parseExecutor(FetchExecutors.newParseExecutor())
+                        .build(),
+                GoogleServiceAccountCredentialFetcher::new, executor, metrics);
+    }
+
+    /**
+     * Constructor.
+     * @param loader Loads fetched sheets into the database.
+     * @param fetcher Fetches sheets and document modification times.
+     * @param credentials Supplies API credentials for each connection.
+     * @param executor Runs freshness checks and sheet fetches.
+     * @param metrics Records timings and counters for driver operations.
+     */
+    Driver(
+            DatabaseLoader loader,
+            DataFetcher fetcher,
+            Supplier<CredentialFetcher> credentials,
+            ExecutorService executor,
+            Metrics metrics
+    ) {
+        this.loader = loader;
+        this.loaders.put(loader.getStorageMode(), loader);
+        this.fetcher = new ExecutorAsyncDataFetcher(fetcher, executor);
+        this.credentials = credentials;
+        this.metrics = metrics;
+        this.resultCache = new ResultCache(ResultCache.DEFAULT_MAX_ENTRIES, ResultCache.DEFAULT_MAX_BYTES, metrics);
+    }
+
+    /**
+     * Returns the metrics registry used by this driver.
+     * @return The metrics registry.
+     */
+    public Metrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Starts loading the documents listed in a manifest in the background.  Documents are fetched concurrently
+     * and connections opened meanwhile wait for the load to finish rather than fetching the documents again.
+     * Each document loads independently: one which fails to load is reported in
+     * {@link DatabaseLoader#META_TABLES} and the others are still loaded.  The preload does not retry failed
+     * documents.  They are never marked fresh, so a later connection which references one fetches it itself.
+     * @param manifest The manifest location: a file path or a classpath resource prefixed with
+     *     {@code classpath:}.  See {@link PreloadManifest} for the format.
+     * @return Completes once every document has been processed.  Completes exceptionally if the manifest is
+     *     invalid or any of its documents failed to load.
+     */
+    public CompletableFuture<Void> preload(String manifest) {
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        preload = future;
+
+        //A dedicated thread, as refreshing blocks on fetches running in the fetch executor.
+        Thread thread = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                Set<DocConfig> configs = PreloadManifest.load(manifest);
+                List<DocConfig> failed = refresh(configs, credentials.get(),
+                        ConnectionSettings.DEFAULT_FETCH_TIMEOUT, true);
+                metrics.recordTimeSince(MetricNames.PRELOAD, start);
+                if (!failed.isEmpty()) {
+                    throw new SQLException(String.format("Unable to preload %d of %d documents: %s",
+                            failed.size(), configs.size(), failed));
+                }
+                log.info("Preloaded {} documents from {}", configs.size(), manifest);
+                future.complete(null);
+            } catch (IOException | SQLException | RuntimeException e) {
+                log.error("Unable to preload documents from {}: {}", manifest, e.getMessage());
+                future.completeExceptionally(e);
+            }
+        }, "gsheetjdbc-preload");
+        thread.setDaemon(true);
+        thread.start();
+        return future;
+    }
+
+    /**
+     * Returns whether the last preload started by {@link #preload} has loaded its documents.  Drivers which
+     * were never asked to preload are always ready.
+     * @return True once the preload completed successfully, false while it runs or if any document failed.
+     */
+    public boolean isReady() {
+        return preload.isDone() && !preload.isCompletedExceptionally();
+    }
+
+    /**
+     * Returns the last preload started by {@link #preload}.
+     * @return The preload, already complete if none was started.
+     */
+    public CompletableFuture<Void> getPreload() {
+        return preload;
     }
 
     @Override
@@ -76,43 +301,379 @@ public class Driver implements java.sql.Driver {
         if (!acceptsURL(url)) {
             return null;
         }
-        GoogleServiceAccountCredentialFetcher credentialFetcher = new GoogleServiceAccountCredentialFetcher();
-        GoogleSheetsDataFetcher fetcher = new GoogleSheetsDataFetcher();
+        return connect(ConnectionSettings.parse(url, info), credentials.get());
+    }
+
+    /**
+     * Opens a connection from already parsed settings.
+     * @param settings The documents and connection properties.
+     * @param credentialFetcher Google API credentials.
+     * @return The connection.
+     * @throws SQLException If a fetch times out or is interrupted.
+     */
+    Connection connect(ConnectionSettings settings, CredentialFetcher credentialFetcher) throws SQLException {
+        return connect(settings, credentialFetcher, settings.getFetchTimeout(), true);
+    }
+
+    /**
+     * Opens a connection from already parsed settings.
+     * @param settings The documents and connection properties.
+     * @param credentialFetcher Google API credentials.
+     * @param connectDeadline The deadline for each freshness check and sheet fetch made before the connection is
+     *     returned.  Lazily loaded documents use the fetch timeout of the settings.
+     * @param checkFreshness Whether documents which are not lazily loaded are checked for freshness.  Otherwise
+     *     the caller guarantees they were loaded before.
+     * @return The connection.
+     * @throws SQLException If a fetch times out or is interrupted.
+     */
+    Connection connect(
+            ConnectionSettings settings,
+            CredentialFetcher credentialFetcher,
+            Duration connectDeadline,
+            boolean checkFreshness
+    ) throws SQLException {
+        long start = System.nanoTime();
+        Duration deadline = settings.getFetchTimeout();
+        Set<DocConfig> configs = settings.getDocuments();
+
+        if (settings.isProjectionPushdown()) {
+            //Each narrowed range is checked for freshness once per connection.
+            Set<DocConfig> refreshed = ConcurrentHashMap.newKeySet();
+            Connection connection = LazyConnection.wrapEveryReference(openConnection(settings), configs,
+                    (documents, sql) -> {
+                        List<DocConfig> projected = new ArrayList<>();
+                        for (DocConfig document : documents) {
+                            DocConfig narrowed = projection.project(document, sql,
+                                    (header) -> fetchHeader(header, credentialFetcher, deadline));
+                            if (refreshed.add(narrowed)) {
+                                projected.add(narrowed);
+                            }
+                        }
+                        refresh(projected, credentialFetcher, deadline);
+                    });
+            metrics.recordTimeSince(MetricNames.CONNECT, start);
+            return connection;
+        }
+
+        if (settings.isLazyLoad()) {
+            Connection connection = LazyConnection.wrap(openConnection(settings), configs,
+                    (documents, sql) -> refresh(documents, credentialFetcher, deadline));
+            metrics.recordTimeSince(MetricNames.CONNECT, start);
+            return connection;
+        }
+
+        if (checkFreshness) {
+            refresh(configs, credentialFetcher, connectDeadline);
+        }
 
-        Set<DocConfig> configs = parseUrl(url);
+        Connection connection = openConnection(settings);
+        metrics.recordTimeSince(MetricNames.CONNECT, start);
+        return connection;
+    }
+
+    /**
+     * Returns the driver instance registered with the {@link DriverManager}.
+     * @return The registered driver.
+     */
+    static Driver getRegisteredDriver() {
+        return REGISTERED;
+    }
 
+    /**
+     * Creates the credentials used to fetch documents.
+     * @return The credentials.
+     */
+    CredentialFetcher getCredentialFetcher() {
+        return credentials.get();
+    }
+
+    private Connection openConnection(ConnectionSettings settings) throws SQLException {
+        DatabaseLoader database = settings.isProjectionPushdown()
+                ? projectedLoader(settings.getStorageMode())
+                : loader(settings.getStorageMode());
+        Connection connection = database.getConnection();
+        if (settings.isResultCache()) {
+            return CachingConnection.wrap(connection, resultCache, database::getTableVersions);
+        }
+        return connection;
+    }
+
+    /**
+     * Returns the loader of the database which stores tables in a storage mode, creating it on first use.
+     * @param storageMode The storage mode or null for the default.
+     * @return The loader.
+     */
+    DatabaseLoader loader(StorageMode storageMode) {
+        if (storageMode == null) {
+            return loader;
+        }
+        return loaders.computeIfAbsent(storageMode, loader::withStorageMode);
+    }
+
+    /**
+     * Returns the loader of the database which stores tables narrowed by projection pushdown in a storage mode,
+     * creating it on first use.
+     * @param storageMode The storage mode or null for the default.
+     * @return The loader.
+     */
+    DatabaseLoader projectedLoader(StorageMode storageMode) {
+        return projectedLoaders.computeIfAbsent(storageMode == null ? loader.getStorageMode() : storageMode,
+                (mode) -> loader.withDatabase("_projected", mode));
+    }
+
+    private DatabaseLoader loader(DocConfig document) {
+        return document.getLastHeaderColumn() == null
+                ? loader(document.getStorage())
+                : projectedLoader(document.getStorage());
+    }
+
+    /**
+     * Checks documents for freshness and reloads the stale ones.
+     * @param configs The documents.
+     * @param credentialFetcher Google API credentials.
+     * @param deadline The deadline for each freshness check and sheet fetch.
+     * @throws SQLException If a fetch times out or is interrupted.
+     */
+    private void refresh(
+            Collection<DocConfig> configs,
+            CredentialFetcher credentialFetcher,
+            Duration deadline
+    ) throws SQLException {
+        refresh(configs, credentialFetcher, deadline, false);
+    }
+
+    /**
+     * Checks documents for freshness and reloads the stale ones.
+     * @param configs The documents.
+     * @param credentialFetcher Google API credentials.
+     * @param deadline The deadline for each freshness check and sheet fetch.
+     * @param independent Whether a document which fails to load leaves the others loading.  Otherwise the first
+     *     failure cancels the remaining documents and is thrown.
+     * @return The documents which failed to load.
+     * @throws SQLException If a fetch times out or is interrupted and the documents are not independent.
+     */
+    private List<DocConfig> refresh(
+            Collection<DocConfig> configs,
+            CredentialFetcher credentialFetcher,
+            Duration deadline,
+            boolean independent
+    ) throws SQLException {
+        long lockStart = System.nanoTime();
         synchronized (this) {
-            for (DocConfig config : configs) {
-                String lastModified = fetcher.fetchLastUpdateTime(config.getId(), credentialFetcher);
+            metrics.recordTimeSince(MetricNames.LOCK_WAIT, lockStart);
 
-                if (!documents.containsKey(config)) {
-                    fetchAndLoad(config, credentialFetcher, loader);
-                    documents.put(config, lastModified);
-                } else {
-                    String previouslyModified = documents.get(config);
+            //Every document is checked for freshness concurrently.  Stale documents are fetched as soon as their
+            //check completes and loaded concurrently while the remaining fetches are still in flight.
+            List<PendingLoad> pendingLoads = new ArrayList<>();
+            for (DocConfig config : configs) {
+                Queue<CompletableFuture<?>> inFlight = new ConcurrentLinkedQueue<>();
+                CompletableFuture<String> lastModified =
+                        fetcher.fetchLastUpdateTime(config.getId(), credentialFetcher, deadline);
+                ColumnProjection.RangeFetcher rangeFetcher = (range) -> {
+                    CompletableFuture<DataFetcher.Result> fetch = fetcher.fetchDocumentSheet(credentialFetcher,
+                            config.getSchema(), config.getId(), range, deadline);
+                    inFlight.add(fetch);
+                    return fetch;
+                };
+
+                CompletableFuture<Boolean> stale = lastModified.thenApply((modified) -> {
+                    boolean isStale = isStale(config, modified);
+                    metrics.increment(isStale ? MetricNames.CACHE_MISSES : MetricNames.CACHE_HITS);
+                    return isStale;
+                });
+                CompletableFuture<DataFetcher.Result> result = stale.thenCompose((isStale) -> isStale
+                        ? rangeFetcher.fetch(config.getRange())
+                        : CompletableFuture.completedFuture(null));
+
+                //Narrowed documents may need to count the rows of the full range as well.
+                String extentRange = config.getLastHeaderColumn() == null
+                        ? null
+                        : ColumnProjection.extentRange(config);
+                CompletableFuture<DataFetcher.Result> extent = stale.thenCompose((isStale) -> isStale
+                        && extentRange != null
+                        ? rangeFetcher.fetch(extentRange)
+                        : CompletableFuture.completedFuture(null));
+
+                inFlight.add(lastModified);
+                pendingLoads.add(new PendingLoad(config, System.nanoTime(), lastModified, result, extent,
+                        rangeFetcher, inFlight));
+            }
 
-                    if (previouslyModified == null || !previouslyModified.equals(lastModified)) {
-                        fetchAndLoad(config, credentialFetcher, loader);
-                        documents.put(config, lastModified);
+            //Each document loads (on its own writer connection) as soon as its fetch completes.
+            List<CompletableFuture<Boolean>> loads = new ArrayList<>();
+            for (PendingLoad pendingLoad : pendingLoads) {
+                loads.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return load(pendingLoad);
+                    } catch (SQLException e) {
+                        throw new CompletionException(e);
                     }
+                }, loadExecutor));
+            }
 
+            List<DocConfig> failed = new ArrayList<>();
+            try {
+                for (int idx = 0; idx < pendingLoads.size(); idx++) {
+                    PendingLoad pendingLoad = pendingLoads.get(idx);
+                    try {
+                        if (!await(loads.get(idx))) {
+                            failed.add(pendingLoad.getDocument());
+                        }
+                    } catch (SQLException | RuntimeException e) {
+                        if (!independent) {
+                            throw e;
+                        }
+                        log.error("Unable to load document: {} {}", pendingLoad.getDocument(), e.getMessage());
+                        cancel(pendingLoad);
+                        failed.add(pendingLoad.getDocument());
+                    }
                 }
+            } catch (SQLException | RuntimeException e) {
+                pendingLoads.forEach(Driver::cancel);
+                //The other loads fail fast once their fetches are cancelled.  None of them may outlive the lock.
+                CompletableFuture.allOf(loads.toArray(new CompletableFuture[0]))
+                        .exceptionally((error) -> null)
+                        .join();
+                throw e;
             }
-            return loader.getConnection();
+            return failed;
         }
     }
 
-    private void fetchAndLoad(DocConfig document, CredentialFetcher credentialFetcher, DatabaseLoader loader) {
-        GoogleSheetsDataFetcher fetcher = new GoogleSheetsDataFetcher();
+    private static void cancel(PendingLoad pendingLoad) {
+        pendingLoad.getInFlight().forEach((future) -> future.cancel(true));
+        //Fetches which finished before they were cancelled may still have a parser streaming rows.
+        pendingLoad.getResult().thenAccept(Driver::close);
+        pendingLoad.getExtent().thenAccept(Driver::close);
+    }
+
+    private boolean isStale(DocConfig config, String lastModified) {
+        String previouslyModified = documents.get(config);
+        return lastModified == null || previouslyModified == null || !previouslyModified.equals(lastModified);
+    }
 
-        DataFetcher.Result result = fetcher.fetchDocumentSheet(credentialFetcher,
-                document.getSchema(), document.getId(), document.getRange());
+    /**
+     * Loads a document once its fetches complete.
+     * @param pendingLoad The document.
+     * @return True if the document was loaded or still fresh, false if loading it into the database failed.
+     * @throws SQLException If a fetch times out or is interrupted.
+     */
+    private boolean load(PendingLoad pendingLoad) throws SQLException {
+        DocConfig document = pendingLoad.getDocument();
+        String lastModified;
+        DataFetcher.Result result = null;
+        Iterator<List<List<Object>>> batches = null;
 
         try {
-            loader.refreshTempTable(result.getSchema(), result.getData());
-            loader.swapTables(result.getSchema());
+            try {
+                lastModified = await(pendingLoad.getLastModified());
+                result = await(pendingLoad.getResult());
+                if (result != null) {
+                    batches = result.getBatches();
+                }
+                DataFetcher.Result extent = await(pendingLoad.getExtent());
+                if (extent != null) {
+                    batches = ColumnProjection.extend(document, batches, ColumnProjection.countRows(extent),
+                            pendingLoad.getRangeFetcher());
+                }
+            } catch (SQLException | RuntimeException e) {
+                //Fetch failures and missed deadlines fail the connection.
+                pendingLoad.getExtent().thenAccept(Driver::close);
+                if (!(e instanceof CancellationException)) {
+                    //Cancelled because another document failed.
+                    recordRefreshError(document, e);
+                }
+                throw e;
+            }
+            return result == null || load(pendingLoad, lastModified, result.getSchema(), batches);
+        } finally {
+            close(result);
+        }
+    }
+
+    private boolean load(
+            PendingLoad pendingLoad,
+            String lastModified,
+            Table table,
+            Iterator<List<List<Object>>> batches
+    ) throws SQLException {
+        DocConfig document = pendingLoad.getDocument();
+        DatabaseLoader database = loader(document);
+        LoadStatistics loaded;
+        try {
+            loaded = database.refreshTempTable(table, batches);
+            database.swapTables(table);
         } catch (SQLException e) {
+            //The document is not marked fresh, so the next connection loads it again.
             log.error("Unable to reload table: {} {}", document, e.getMessage());
+            recordRefreshError(document, e);
+            return false;
+        } catch (RuntimeException e) {
+            recordRefreshError(document, e);
+            throw e;
+        }
+        if (lastModified != null) {
+            documents.put(document, lastModified);
+        }
+
+        metrics.recordTimeSince(MetricNames.FETCH_AND_LOAD, pendingLoad.getStart());
+        try {
+            database.recordRefresh(RefreshStatistics.builder()
+                    .schema(document.getSchema())
+                    .documentId(document.getId())
+                    .range(document.getRange())
+                    .tableName(table.getTableName())
+                    .modifiedTime(lastModified)
+                    .refreshMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - pendingLoad.getStart()))
+                    .rowCount(loaded.getRowCount())
+                    .approximateBytes(loaded.getApproximateBytes())
+                    .build());
+        } catch (SQLException e) {
+            log.error("Unable to record refresh: {} {}", document, e.getMessage());
+        }
+        return true;
+    }
+
+    private Table fetchHeader(DocConfig document, CredentialFetcher credentialFetcher, Duration deadline)
+            throws SQLException {
+        DataFetcher.Result result = await(fetcher.fetchDocumentSheet(credentialFetcher, document.getSchema(),
+                document.getId(), document.getRange(), deadline));
+        result.close();
+        return result.getSchema();
+    }
+
+    private static void close(DataFetcher.Result result) {
+        if (result != null) {
+            result.close();
+        }
+    }
+
+    private void recordRefreshError(DocConfig document, Exception error) {
+        try {
+            loader(document).recordRefreshError(document.getSchema(), document.getId(),
+                    document.getRange(), String.valueOf(error.getMessage()));
+        } catch (SQLException e) {
+            log.error("Unable to record refresh error: {} {}", document, e.getMessage());
+        }
+    }
+
+    private static <T> T await(Future<T> future) throws SQLException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while fetching documents", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new SQLTimeoutException("Timed out fetching documents", e.getCause());
+            }
+            if (e.getCause() instanceof SQLException) {
+                throw (SQLException) e.getCause();
+            }
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
         }
     }
 
@@ -159,18 +720,26 @@ public class Driver implements java.sql.Driver {
 
         int numberOfGroups = urlMatcher.groupCount();
 
-        if (numberOfGroups != 7) {
+        if (numberOfGroups != 8) {
             throw new SQLException("Invalid JDBC URL : " + url);
         }
 
         Set<DocConfig> results = new LinkedHashSet<>();
-        String schema = urlMatcher.group(numberOfGroups);
+        String schema = urlMatcher.group(7);
+        StorageMode storage = null;
+        if (urlMatcher.group(8) != null) {
+            storage = StorageMode.parse(urlMatcher.group(8));
+            if (storage == null) {
+                throw new SQLException("Invalid storage mode : " + urlMatcher.group(8));
+            }
+        }
         String range = URLDecoder.decode(urlMatcher.group(2), Charset.defaultCharset());
 
         results.add(DocConfig.builder()
                 .schema(schema)
                 .range(range)
                 .id(urlMatcher.group(1))
+                .storage(storage)
                 .build());
 
         Matcher idMatcher = DOC_PATTERN.matcher(urlMatcher.group(3));
@@ -182,6 +751,7 @@ public class Driver implements java.sql.Driver {
                     .schema(schema)
                     .range(range)
                     .id(idMatcher.group(1))
+                    .storage(storage)
                     .build());
         }
 
@@ -0,0 +1,200 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates the executor used for blocking Drive and Sheets API calls.
+ * <p>
+ * On runtimes with virtual threads (Java 21+), every fetch runs on its own virtual thread, but no more than
+ * {@link #THREADS_PROPERTY} of them call Google at once: the others wait (cheaply, as virtual threads) for a
+ * permit.  Older runtimes fall back to a fixed pool of daemon platform threads.  The driver is compiled for
+ * Java 11, so virtual threads are discovered reflectively.
+ */
+@Slf4j
+public final class FetchExecutors {
+
+    /**
+     * System property selecting the executor: 'auto' (default), 'virtual' or 'fixed'.
+     */
+    public static final String MODE_PROPERTY = "gsheetjdbc.fetch.executor";
+
+    /**
+     * System property with the number of threads in the fixed pool, which is also the maximum number of
+     * concurrent requests when fetches run on virtual threads.
+     */
+    public static final String THREADS_PROPERTY = "gsheetjdbc.fetch.threads";
+
+    public static final int DEFAULT_THREADS = 16;
+
+    private FetchExecutors() {
+    }
+
+    /**
+     * Creates an executor based on the system properties.
+     * @return A new executor.
+     */
+    public static ExecutorService create() {
+        String mode = System.getProperty(MODE_PROPERTY, "auto").toLowerCase(Locale.ENGLISH);
+        int threads = Integer.getInteger(THREADS_PROPERTY, DEFAULT_THREADS);
+
+        if (!mode.equals("fixed")) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor != null) {
+                return bounded(executor, threads);
+            }
+            if (mode.equals("virtual")) {
+                log.warn("Virtual threads are not supported by this runtime.  Using a fixed pool of {}.", threads);
+            }
+        }
+        return newFixedThreadPool(threads);
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads.
+     * @param threads The pool size.
+     * @return A new executor.
+     */
+    public static ExecutorService newFixedThreadPool(int threads) {
+        AtomicInteger counter = new AtomicInteger();
+        ThreadFactory factory = (runnable) -> {
+            Thread thread = new Thread(runnable, "gsheet-fetch-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        return Executors.newFixedThreadPool(threads, factory);
+    }
+
+    /**
+     * Limits how many tasks of an executor run at once.  Every task is handed to the executor immediately and
+     * waits there for one of the permits, so the executor should be cheap to block (virtual threads).  A task
+     * cancelled while it waits never runs.
+     * @param executor The executor running the tasks.
+     * @param permits The maximum number of tasks running at once.
+     * @return The bounded executor.  Shutting it down shuts down the underlying executor.
+     */
+    public static ExecutorService bounded(ExecutorService executor, int permits) {
+        return new BoundedExecutor(executor, permits);
+    }
+
+    /**
+     * Creates the executor which decodes streamed sheet responses.  Every decode has a fetch waiting for it, so
+     * decoding on a bounded fetch pool can starve: once all threads hold fetches, no decode can start.  Decodes
+     * instead run on virtual threads or a cached pool of daemon threads (which never exceeds the number of
+     * concurrent fetches).
+     * @return A new executor.
+     */
+    public static ExecutorService newParseExecutor() {
+        return newUnboundedExecutor("gsheet-parse-");
+    }
+
+    /**
+     * Creates the executor which loads fetched documents into the database.  Each load waits on its fetches, so
+     * like decodes, loads must not run on the bounded fetch pool.
+     * @return A new executor.
+     */
+    static ExecutorService newLoadExecutor() {
+        return newUnboundedExecutor("gsheet-load-");
+    }
+
+    private static ExecutorService newUnboundedExecutor(String threadPrefix) {
+        ExecutorService executor = newVirtualThreadExecutor();
+        if (executor != null) {
+            return executor;
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, threadPrefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Runs tasks on a delegate executor, holding one of a fixed number of permits while each task runs.
+     */
+    private static class BoundedExecutor extends AbstractExecutorService {
+        private final ExecutorService executor;
+        private final Semaphore permits;
+
+        BoundedExecutor(ExecutorService executor, int permits) {
+            this.executor = executor;
+            this.permits = new Semaphore(permits);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            executor.execute(() -> {
+                try {
+                    permits.acquire();
+                } catch (InterruptedException e) {
+                    //Shut down while waiting for a permit.
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            executor.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return executor.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return executor.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return executor.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return executor.awaitTermination(timeout, unit);
+        }
+    }
+
+    /**
+     * Creates a virtual thread per task executor if the runtime supports it.
+     * @return A new executor or null if virtual threads are unavailable.
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (InvocationTargetException e) {
+            //Preview feature disabled on Java 19/20.
+            log.debug("Virtual threads unavailable: {}", e.getCause().getMessage());
+            return null;
+        }
+    }
+}
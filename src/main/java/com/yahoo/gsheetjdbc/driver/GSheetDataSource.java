@@ -0,0 +1,240 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.data.CredentialFetcher;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+import javax.sql.DataSource;
+
+/**
+ * A {@link DataSource} for Google Sheets backed databases.
+ * <p>
+ * Unlike {@link java.sql.DriverManager#getConnection}, the JDBC URL and connection properties are parsed once
+ * and the same credentials are used for every connection.  The documents are checked for freshness at most once
+ * per {@link #setRefreshInterval refresh interval} (and never with {@code lazyLoad}), so most checkouts just hand
+ * out a pooled database connection.  Data sources share the database and fetchers of the registered
+ * {@link Driver}.
+ * <p>
+ * A {@link #setLoginTimeout login timeout} replaces the {@code fetchTimeout} of the freshness checks and fetches
+ * made by {@link #getConnection}.
+ * <p>
+ * The data source can be configured through its constructors or, for containers which expect a JavaBean, through
+ * {@link #setUrl} and {@link #setConnectionProperties}.
+ */
+public class GSheetDataSource implements DataSource {
+
+    /**
+     * Seconds between freshness checks when {@link #setRefreshInterval} is not called.
+     */
+    public static final int DEFAULT_REFRESH_INTERVAL = 60;
+
+    private final Driver driver;
+    private String url;
+    private Properties connectionProperties = new Properties();
+    private PrintWriter logWriter;
+    private int loginTimeout = 0;
+    private int refreshInterval = DEFAULT_REFRESH_INTERVAL;
+
+    //Parsed on first use and reset when the configuration changes.
+    private ConnectionSettings settings;
+    private CredentialFetcher credentialFetcher;
+
+    //System.nanoTime() when the last successful freshness check started, or null if none since the last change.
+    private Long lastRefresh;
+
+    /**
+     * Constructor for containers which configure the data source through its setters.
+     */
+    public GSheetDataSource() {
+        this(Driver.getRegisteredDriver(), null, new Properties());
+    }
+
+    /**
+     * Constructor.
+     * @param url The JDBC URL.
+     */
+    public GSheetDataSource(String url) {
+        this(Driver.getRegisteredDriver(), url, new Properties());
+    }
+
+    /**
+     * Constructor.
+     * @param url The JDBC URL.
+     * @param connectionProperties The connection properties (for example {@link Driver#LAZY_LOAD_PROPERTY}).
+     */
+    public GSheetDataSource(String url, Properties connectionProperties) {
+        this(Driver.getRegisteredDriver(), url, connectionProperties);
+    }
+
+    /**
+     * Constructor.
+     * @param driver The driver which loads the documents.
+     * @param url The JDBC URL.
+     * @param connectionProperties The connection properties.
+     */
+    GSheetDataSource(Driver driver, String url, Properties connectionProperties) {
+        this.driver = driver;
+        this.url = url;
+        setConnectionProperties(connectionProperties);
+    }
+
+    /**
+     * Returns the JDBC URL.
+     * @return The JDBC URL.
+     */
+    public synchronized String getUrl() {
+        return url;
+    }
+
+    /**
+     * Sets the JDBC URL.
+     * @param url The JDBC URL.
+     */
+    public synchronized void setUrl(String url) {
+        this.url = url;
+        this.settings = null;
+        this.lastRefresh = null;
+    }
+
+    /**
+     * Returns a copy of the connection properties.
+     * @return The connection properties.
+     */
+    public synchronized Properties getConnectionProperties() {
+        Properties copy = new Properties();
+        copy.putAll(connectionProperties);
+        return copy;
+    }
+
+    /**
+     * Sets the connection properties.
+     * @param connectionProperties The connection properties (for example {@link Driver#LAZY_LOAD_PROPERTY}).
+     */
+    public synchronized void setConnectionProperties(Properties connectionProperties) {
+        this.connectionProperties = new Properties();
+        if (connectionProperties != null) {
+            this.connectionProperties.putAll(connectionProperties);
+        }
+        this.settings = null;
+        this.lastRefresh = null;
+    }
+
+    /**
+     * Returns how long a freshness check is reused by later checkouts.
+     * @return The refresh interval in seconds.
+     */
+    public synchronized int getRefreshInterval() {
+        return refreshInterval;
+    }
+
+    /**
+     * Sets how long a freshness check is reused by later checkouts.  Changes to the documents are only seen by
+     * checkouts after the interval has passed.
+     * @param seconds The refresh interval in seconds.  Zero checks the documents on every checkout.
+     */
+    public synchronized void setRefreshInterval(int seconds) {
+        this.refreshInterval = seconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        ConnectionSettings current;
+        CredentialFetcher credentials;
+        Duration deadline;
+        boolean checkFreshness;
+        synchronized (this) {
+            if (settings == null) {
+                if (url == null || !driver.acceptsURL(url)) {
+                    throw new SQLException("Invalid JDBC URL : " + url);
+                }
+                settings = ConnectionSettings.parse(url, connectionProperties);
+            }
+            if (credentialFetcher == null) {
+                credentialFetcher = driver.getCredentialFetcher();
+            }
+            current = settings;
+            credentials = credentialFetcher;
+            deadline = loginTimeout > 0 ? Duration.ofSeconds(loginTimeout) : settings.getFetchTimeout();
+            checkFreshness = lastRefresh == null
+                    || start - lastRefresh >= TimeUnit.SECONDS.toNanos(refreshInterval);
+        }
+
+        Connection connection = driver.connect(current, credentials, deadline, checkFreshness);
+        if (checkFreshness) {
+            synchronized (this) {
+                //Unless the configuration changed or a later check already finished.
+                if (settings == current && (lastRefresh == null || start - lastRefresh > 0)) {
+                    lastRefresh = start;
+                }
+            }
+        }
+        return connection;
+    }
+
+    /**
+     * Returns a connection.  Documents are always fetched with the credentials of the environment, so the user
+     * name and password are ignored.
+     * @param username Ignored.
+     * @param password Ignored.
+     * @return The connection.
+     * @throws SQLException If the connection cannot be opened.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection();
+    }
+
+    @Override
+    public synchronized PrintWriter getLogWriter() {
+        return logWriter;
+    }
+
+    @Override
+    public synchronized void setLogWriter(PrintWriter out) {
+        this.logWriter = out;
+    }
+
+    /**
+     * Sets the deadline for each freshness check and sheet fetch made by {@link #getConnection}, replacing the
+     * {@code fetchTimeout} connection property.  Lazily loaded documents keep the fetch timeout.
+     * @param seconds The login timeout in seconds.  Zero uses the fetch timeout.
+     */
+    @Override
+    public synchronized void setLoginTimeout(int seconds) {
+        this.loginTimeout = seconds;
+    }
+
+    @Override
+    public synchronized int getLoginTimeout() {
+        return loginTimeout;
+    }
+
+    @Override
+    public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+        throw new SQLFeatureNotSupportedException();
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> type) throws SQLException {
+        if (type.isInstance(this)) {
+            return type.cast(this);
+        }
+        throw new SQLException("Not a wrapper for " + type.getName());
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> type) {
+        return type.isInstance(this);
+    }
+}
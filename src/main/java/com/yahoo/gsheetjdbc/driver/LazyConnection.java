@@ -0,0 +1,181 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.data.SheetRange;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Wraps a database connection so that documents are only fetched and loaded once a statement references
+ * their table.
+ * <p>
+ * A table is considered referenced when its sheet name appears as a whole identifier anywhere in the SQL
+ * passed to {@code prepareStatement}, {@code prepareCall}, {@code execute*} or {@code addBatch}.  The match is
+ * case insensitive and may load more documents than a query strictly needs, never fewer.
+ */
+class LazyConnection implements InvocationHandler {
+
+    /**
+     * Loads documents into the database.
+     */
+    @FunctionalInterface
+    interface DocumentLoader {
+
+        /**
+         * Fetches and loads documents.
+         * @param documents The documents to load.
+         * @param sql The statement referencing the documents' tables.
+         * @throws SQLException If the documents cannot be loaded.
+         */
+        void load(Collection<DocConfig> documents, String sql) throws SQLException;
+    }
+
+    private static final Set<String> CONNECTION_SQL_METHODS = Set.of("prepareStatement", "prepareCall");
+    private static final Set<String> STATEMENT_SQL_METHODS = Set.of(
+            "execute", "executeQuery", "executeUpdate", "executeLargeUpdate", "addBatch");
+
+    private final Connection connection;
+    private final DocumentLoader loader;
+    private final Connection proxy;
+
+    //Whether documents are passed to the loader on every reference rather than just the first.
+    private final boolean everyReference;
+
+    //Documents not yet loaded by this connection and the pattern matching a reference to their table.
+    private final Map<DocConfig, Pattern> pending = new LinkedHashMap<>();
+
+    private LazyConnection(
+            Connection connection,
+            Collection<DocConfig> documents,
+            DocumentLoader loader,
+            boolean everyReference
+    ) {
+        this.connection = connection;
+        this.loader = loader;
+        this.everyReference = everyReference;
+        for (DocConfig document : documents) {
+            pending.put(document, identifierPattern(tableName(document)));
+        }
+        this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[] {Connection.class}, this);
+    }
+
+    /**
+     * Wraps a connection.
+     * @param connection The database connection.
+     * @param documents The documents which are loaded on first reference.
+     * @param loader Loads referenced documents.
+     * @return The wrapped connection.
+     */
+    static Connection wrap(Connection connection, Collection<DocConfig> documents, DocumentLoader loader) {
+        return new LazyConnection(connection, documents, loader, false).proxy;
+    }
+
+    /**
+     * Wraps a connection.  Documents are passed to the loader every time a statement references their table.
+     * @param connection The database connection.
+     * @param documents The documents.
+     * @param loader Loads referenced documents.
+     * @return The wrapped connection.
+     */
+    static Connection wrapEveryReference(
+            Connection connection,
+            Collection<DocConfig> documents,
+            DocumentLoader loader
+    ) {
+        return new LazyConnection(connection, documents, loader, true).proxy;
+    }
+
+    /**
+     * Builds a case insensitive pattern matching a name as a whole identifier.
+     * @param name The table or column name.
+     * @return The pattern.
+     */
+    static Pattern identifierPattern(String name) {
+        return Pattern.compile("(^|[^a-zA-Z0-9_])" + Pattern.quote(name) + "($|[^a-zA-Z0-9_])",
+                Pattern.CASE_INSENSITIVE);
+    }
+
+    /**
+     * Derives the table name a document is loaded into from the sheet name in its range.
+     * @param document The document.
+     * @return The table name.
+     */
+    static String tableName(DocConfig document) {
+        return SheetRange.parse(document.getRange()).getSheetName();
+    }
+
+    @Override
+    public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return target == args[0];
+        } else if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(target);
+        } else if (CONNECTION_SQL_METHODS.contains(method.getName()) && args != null && args[0] instanceof String) {
+            loadReferenced((String) args[0]);
+        }
+
+        Object result = invokeTarget(connection, method, args);
+
+        if (result instanceof Statement && Statement.class.isAssignableFrom(method.getReturnType())) {
+            return wrapStatement((Statement) result, method.getReturnType());
+        }
+        return result;
+    }
+
+    private Object wrapStatement(Statement statement, Class<?> type) {
+        return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {type},
+                (target, method, args) -> {
+                    if (STATEMENT_SQL_METHODS.contains(method.getName()) && args != null
+                            && args.length > 0 && args[0] instanceof String) {
+                        loadReferenced((String) args[0]);
+                    } else if (method.getName().equals("getConnection")) {
+                        return proxy;
+                    }
+                    return invokeTarget(statement, method, args);
+                });
+    }
+
+    private void loadReferenced(String sql) throws SQLException {
+        List<DocConfig> referenced = new ArrayList<>();
+        synchronized (pending) {
+            pending.forEach((document, pattern) -> {
+                if (pattern.matcher(sql).find()) {
+                    referenced.add(document);
+                }
+            });
+            if (referenced.isEmpty()) {
+                return;
+            }
+
+            loader.load(referenced, sql);
+            if (!everyReference) {
+                referenced.forEach(pending::remove);
+            }
+        }
+    }
+
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
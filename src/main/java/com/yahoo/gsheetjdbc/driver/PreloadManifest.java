@@ -0,0 +1,81 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Reads the documents to preload when the driver starts.
+ * <p>
+ * A manifest is a text file with one JDBC URL per line (each naming its documents, ranges and schema).  Blank
+ * lines and lines starting with {@code #} are ignored.  For example:
+ * <pre>
+ * # Sales dashboards
+ * jdbc:gsheet://doc=(id=abcdefg,range=Sheet1!A1:G11),doc=(id=xyz123,range=Sheet2)/Sales
+ * jdbc:gsheet://doc=(id=hijklm,range=Targets!A:D)/Planning
+ * </pre>
+ */
+final class PreloadManifest {
+
+    /**
+     * Prefix of manifest locations on the classpath.
+     */
+    static final String CLASSPATH_PREFIX = "classpath:";
+
+    private PreloadManifest() {
+    }
+
+    /**
+     * Reads a manifest from a file or, with a {@code classpath:} prefix, a classpath resource.
+     * @param location The manifest location.
+     * @return The documents to preload.
+     * @throws IOException If the manifest cannot be read.
+     * @throws SQLException If a line is not a valid JDBC URL.
+     */
+    static Set<DocConfig> load(String location) throws IOException, SQLException {
+        if (location.startsWith(CLASSPATH_PREFIX)) {
+            String resource = location.substring(CLASSPATH_PREFIX.length());
+            InputStream stream = PreloadManifest.class.getClassLoader().getResourceAsStream(resource);
+            if (stream == null) {
+                throw new IOException("Preload manifest not found on the classpath: " + resource);
+            }
+            try (Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+                return parse(reader);
+            }
+        }
+        try (Reader reader = Files.newBufferedReader(Path.of(location), StandardCharsets.UTF_8)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Parses a manifest.
+     * @param manifest The manifest contents.
+     * @return The documents of every URL in the manifest.
+     * @throws IOException If the manifest cannot be read.
+     * @throws SQLException If a line is not a valid JDBC URL.
+     */
+    static Set<DocConfig> parse(Reader manifest) throws IOException, SQLException {
+        Set<DocConfig> documents = new LinkedHashSet<>();
+        BufferedReader reader = new BufferedReader(manifest);
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            line = line.trim();
+            if (!line.isEmpty() && !line.startsWith("#")) {
+                documents.addAll(Driver.parseUrl(line));
+            }
+        }
+        return documents;
+    }
+}
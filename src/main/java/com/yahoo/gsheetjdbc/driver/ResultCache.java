@@ -0,0 +1,216 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import com.yahoo.gsheetjdbc.metrics.Metrics;
+
+import lombok.Value;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetFactory;
+import javax.sql.rowset.RowSetProvider;
+
+/**
+ * A size bounded, least recently used cache of query results shared by the connections of a driver.
+ * <p>
+ * Entries are keyed by the connection's database and schema, the normalized SQL, the bound parameters and the
+ * versions of the tables the SQL references.  Swapping in a new version of a table changes the key, so results
+ * computed from the previous version are never returned again (they age out of the cache).  Writes through a
+ * caching connection clear the whole cache since they can touch tables the cache knows nothing about.
+ * <p>
+ * Cached rows are kept as arrays of values and never change.  Every lookup hands out its own read only
+ * {@link CachedRowSet} filled from them, which is far cheaper than {@link CachedRowSet#createCopy} (that
+ * serializes the whole row set).
+ */
+class ResultCache {
+
+    /**
+     * Default maximum number of cached results.
+     */
+    static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    /**
+     * Default maximum approximate size of all cached results.
+     */
+    static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    /**
+     * Identifies a cached result.
+     */
+    @Value
+    static class Key {
+        private String catalog;
+        private String schema;
+        private String sql;
+        private List<Object> parameters;
+        private Map<String, Long> tableVersions;
+    }
+
+    @Value
+    private static class Entry {
+        private ResultSetMetaData metaData;
+        private List<Object[]> rows;
+        private long bytes;
+    }
+
+    private final RowSetFactory rowSets;
+    private final int maxEntries;
+    private final long maxBytes;
+    private final Metrics metrics;
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    /**
+     * Constructor.
+     * @param maxEntries The maximum number of cached results.
+     * @param maxBytes The maximum approximate size of all cached results.
+     * @param metrics Records hits, misses and evictions.
+     */
+    ResultCache(int maxEntries, long maxBytes, Metrics metrics) {
+        try {
+            this.rowSets = RowSetProvider.newFactory();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Looks up a result.
+     * @param key The key.
+     * @return A private copy of the cached result (positioned before the first row) or null.
+     * @throws SQLException If the cached result cannot be copied.
+     */
+    ResultSet get(Key key) throws SQLException {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+        }
+        if (entry == null) {
+            metrics.increment(MetricNames.RESULT_CACHE_MISSES);
+            return null;
+        }
+        metrics.increment(MetricNames.RESULT_CACHE_HITS);
+        return copy(entry);
+    }
+
+    /**
+     * Reads a result and caches it (unless it is larger than the whole cache).
+     * @param key The key.
+     * @param result The result to read.  It is closed.
+     * @return A private copy of the result positioned before the first row.
+     * @throws SQLException If the result cannot be read.
+     */
+    ResultSet put(Key key, ResultSet result) throws SQLException {
+        CachedRowSet rows = rowSets.createCachedRowSet();
+        try (ResultSet closing = result) {
+            rows.populate(closing);
+        }
+
+        int columns = rows.getMetaData().getColumnCount();
+        List<Object[]> values = new ArrayList<>(rows.size());
+        long size = 0;
+        while (rows.next()) {
+            Object[] row = new Object[columns];
+            for (int column = 0; column < columns; column++) {
+                row[column] = rows.getObject(column + 1);
+                size += row[column] instanceof String ? 2L * ((String) row[column]).length() : Long.BYTES;
+            }
+            values.add(row);
+        }
+        rows.beforeFirst();
+        rows.setConcurrency(ResultSet.CONCUR_READ_ONLY);
+        if (size > maxBytes) {
+            return rows;
+        }
+
+        Entry entry = new Entry(rows.getMetaData(), values, size);
+        synchronized (this) {
+            Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.getBytes();
+            }
+            bytes += size;
+            evict();
+        }
+        return copy(entry);
+    }
+
+    /**
+     * Drops every cached result.
+     */
+    synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Returns the number of cached results.
+     * @return The number of cached results.
+     */
+    synchronized int size() {
+        return entries.size();
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext() && (entries.size() > maxEntries || bytes > maxBytes)) {
+            bytes -= eldest.next().getBytes();
+            eldest.remove();
+            metrics.increment(MetricNames.RESULT_CACHE_EVICTIONS);
+        }
+    }
+
+    private ResultSet copy(Entry entry) throws SQLException {
+        CachedRowSet copy = rowSets.createCachedRowSet();
+        copy.setConcurrency(ResultSet.CONCUR_READ_ONLY);
+        copy.populate((ResultSet) Proxy.newProxyInstance(ResultCache.class.getClassLoader(),
+                new Class<?>[] {ResultSet.class}, new Rows(entry)));
+        return copy;
+    }
+
+    /**
+     * A forward only view of an entry's rows with just enough of a result set to populate a row set.
+     */
+    private static class Rows implements InvocationHandler {
+        private final Entry entry;
+        private int row = -1;
+
+        Rows(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public Object invoke(Object target, Method method, Object[] args) throws SQLException {
+            switch (method.getName()) {
+                case "next":
+                    return ++row < entry.getRows().size();
+                case "getMetaData":
+                    return entry.getMetaData();
+                case "getObject":
+                    return entry.getRows().get(row)[(Integer) args[0] - 1];
+                case "close":
+                    return null;
+                default:
+                    throw new SQLFeatureNotSupportedException(method.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A small pool of read side connections to the H2 database.
+ * <p>
+ * {@link #borrow} hands out a wrapper around an idle connection (or a new one).  Closing the wrapper closes the
+ * statements opened through it, resets the session and returns the underlying connection to the pool.
+ * Connections beyond the idle limit are closed when they are returned.
+ */
+@Slf4j
+public class ConnectionPool {
+
+    /**
+     * Opens new database connections.
+     */
+    @FunctionalInterface
+    public interface ConnectionFactory {
+
+        /**
+         * Opens a connection.
+         * @return The connection.
+         * @throws SQLException If the connection cannot be opened.
+         */
+        Connection open() throws SQLException;
+    }
+
+    private static final String DEFAULT_SCHEMA = "PUBLIC";
+
+    private final ConnectionFactory factory;
+    private final int maxIdle;
+    private final Deque<Connection> idle = new ArrayDeque<>();
+    private boolean closed = false;
+
+    /**
+     * Constructor.
+     * @param factory Opens new connections.
+     * @param maxIdle The maximum number of idle connections kept open.
+     */
+    public ConnectionPool(ConnectionFactory factory, int maxIdle) {
+        this.factory = factory;
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Borrows a connection.
+     * @return A connection which returns to the pool when closed.
+     * @throws SQLException If a new connection cannot be opened.
+     */
+    public Connection borrow() throws SQLException {
+        Connection connection = null;
+        synchronized (this) {
+            if (closed) {
+                throw new SQLException("Connection pool is closed.");
+            }
+            while (connection == null && !idle.isEmpty()) {
+                connection = idle.pop();
+                if (connection.isClosed()) {
+                    connection = null;
+                }
+            }
+        }
+        if (connection == null) {
+            connection = factory.open();
+        }
+        return new PooledConnection(connection).proxy;
+    }
+
+    /**
+     * Returns the number of idle connections.
+     * @return The number of idle connections.
+     */
+    public synchronized int getIdleCount() {
+        return idle.size();
+    }
+
+    /**
+     * Closes all idle connections.  Borrowed connections are closed when they are returned.
+     */
+    public void close() {
+        List<Connection> toClose;
+        synchronized (this) {
+            closed = true;
+            toClose = new ArrayList<>(idle);
+            idle.clear();
+        }
+        toClose.forEach(ConnectionPool::closeQuietly);
+    }
+
+    private void release(Connection connection) {
+        boolean reusable;
+        try {
+            reusable = !connection.isClosed();
+            if (reusable) {
+                reset(connection);
+            }
+        } catch (SQLException e) {
+            log.debug("Discarding pooled connection: {}", e.getMessage());
+            reusable = false;
+        }
+
+        synchronized (this) {
+            if (reusable && !closed && idle.size() < maxIdle) {
+                idle.push(connection);
+                return;
+            }
+        }
+        closeQuietly(connection);
+    }
+
+    private static void reset(Connection connection) throws SQLException {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        if (connection.isReadOnly()) {
+            connection.setReadOnly(false);
+        }
+        if (!DEFAULT_SCHEMA.equals(connection.getSchema())) {
+            connection.setSchema(DEFAULT_SCHEMA);
+        }
+        connection.clearWarnings();
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.debug("Unable to close: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Wrapper handed to the borrower.
+     */
+    private class PooledConnection implements InvocationHandler {
+        private final Connection connection;
+        private final Connection proxy;
+        private final List<Statement> statements = new ArrayList<>();
+        private boolean returned = false;
+
+        PooledConnection(Connection connection) {
+            this.connection = connection;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[] {Connection.class}, this);
+        }
+
+        @Override
+        public synchronized Object invoke(Object target, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!returned) {
+                        returned = true;
+                        statements.forEach(ConnectionPool::closeQuietly);
+                        statements.clear();
+                        release(connection);
+                    }
+                    return null;
+                case "isClosed":
+                    return returned || connection.isClosed();
+                case "equals":
+                    return target == args[0];
+                case "hashCode":
+                    return System.identityHashCode(target);
+                case "toString":
+                    return "Pooled " + connection;
+                default:
+                    break;
+            }
+
+            if (returned) {
+                throw new SQLException("Connection is closed.");
+            }
+
+            Object result;
+            try {
+                result = method.invoke(connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+
+            if (result instanceof Statement) {
+                statements.add((Statement) result);
+                return wrapStatement((Statement) result, method.getReturnType());
+            }
+            return result;
+        }
+
+        private Object wrapStatement(Statement statement, Class<?> type) {
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[] {type},
+                    (target, method, args) -> {
+                        if (method.getName().equals("getConnection")) {
+                            return proxy;
+                        } else if (method.getName().equals("close")) {
+                            synchronized (this) {
+                                statements.remove(statement);
+                            }
+                        }
+                        try {
+                            return method.invoke(statement, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}
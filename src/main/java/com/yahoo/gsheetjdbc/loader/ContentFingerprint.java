@@ -0,0 +1,133 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A 64 bit running hash of a table's schema and rows (FNV-1a over the values with a final avalanche), cheap
+ * enough to compute while the rows are loaded.  Equal fingerprints mean the content (almost certainly) did not
+ * change.  Values are hashed in row order together with their type, so moving or retyping a cell changes it.
+ */
+class ContentFingerprint {
+
+    private static final long OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte NUMBER = 2;
+    private static final byte BOOLEAN = 3;
+    private static final byte DATE = 4;
+    private static final byte DATETIME = 5;
+    private static final byte TIME = 6;
+    private static final byte OTHER = 7;
+    private static final byte END_OF_ROW = 8;
+
+    private long hash = OFFSET_BASIS;
+
+    /**
+     * Starts a fingerprint with the table name and columns.
+     * @param table The table schema.
+     */
+    ContentFingerprint(Table table) {
+        update(table.getTableName());
+        for (Column column : table.getColumns()) {
+            update(column.getName());
+            mix(column.getType().ordinal());
+        }
+        mix(END_OF_ROW);
+    }
+
+    /**
+     * Adds a batch of rows.
+     * @param rows The rows.
+     */
+    void update(List<List<Object>> rows) {
+        for (List<Object> row : rows) {
+            updateRow(row);
+        }
+    }
+
+    /**
+     * Adds a single row.
+     * @param row The row.
+     */
+    void updateRow(List<Object> row) {
+        for (Object value : row) {
+            updateValue(value);
+        }
+        mix(END_OF_ROW);
+    }
+
+    /**
+     * Returns the fingerprint of everything added so far.
+     * @return The fingerprint.
+     */
+    long getValue() {
+        //MurmurHash3 finalizer.
+        long value = hash;
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+
+    private void updateValue(Object value) {
+        if (value == null) {
+            mix(NULL);
+        } else if (value instanceof String) {
+            mix(STRING);
+            update((String) value);
+        } else if (value instanceof Double) {
+            mix(NUMBER);
+            mixLong(Double.doubleToLongBits((Double) value));
+        } else if (value instanceof Boolean) {
+            mix(BOOLEAN);
+            mix((Boolean) value ? 1 : 0);
+        } else if (value instanceof LocalDateTime) {
+            mix(DATETIME);
+            mixLong(((LocalDateTime) value).toLocalDate().toEpochDay());
+            mixLong(((LocalDateTime) value).toLocalTime().toNanoOfDay());
+        } else if (value instanceof LocalDate) {
+            mix(DATE);
+            mixLong(((LocalDate) value).toEpochDay());
+        } else if (value instanceof LocalTime) {
+            mix(TIME);
+            mixLong(((LocalTime) value).toNanoOfDay());
+        } else {
+            mix(OTHER);
+            update(value.toString());
+        }
+    }
+
+    private void update(String value) {
+        mixLong(value.length());
+        for (int idx = 0; idx < value.length(); idx++) {
+            char character = value.charAt(idx);
+            mix(character & 0xff);
+            mix(character >>> 8);
+        }
+    }
+
+    private void mixLong(long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            mix((int) (value >>> shift) & 0xff);
+        }
+    }
+
+    private void mix(int octet) {
+        hash ^= octet;
+        hash *= PRIME;
+    }
+}
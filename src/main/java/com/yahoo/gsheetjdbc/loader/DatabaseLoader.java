@@ -4,9 +4,14 @@
  */
 package com.yahoo.gsheetjdbc.loader;
 
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import com.yahoo.gsheetjdbc.metrics.Metrics;
+import com.yahoo.gsheetjdbc.metrics.NoopMetrics;
 import com.yahoo.gsheetjdbc.schema.Column;
 import com.yahoo.gsheetjdbc.schema.Table;
 
+import lombok.Builder;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 
 import java.io.Closeable;
@@ -15,7 +20,17 @@ import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
 /**
@@ -26,64 +41,449 @@ public class DatabaseLoader implements Closeable {
 
     private static final String JDBC_DRIVER = "org.h2.Driver";
 
+    /**
+     * Schema holding the driver's own metadata tables.
+     */
+    public static final String META_SCHEMA = "GSHEET_META";
+
+    /**
+     * Table holding per sheet refresh statistics.
+     */
+    public static final String META_TABLES = META_SCHEMA + ".TABLES";
+
+    private static final String META_KEY = "SCHEMA_NAME = ? AND DOCUMENT_ID = ? AND SHEET_RANGE = ?";
+
+    /**
+     * Maximum number of idle read connections kept open.
+     */
+    static final int MAX_IDLE_CONNECTIONS = 8;
+
+    /**
+     * System property which enables dictionary encoding of strings: every distinct string in a column is stored
+     * once and shared by all rows holding it, which shrinks tables full of repeated labels.  Defaults to false.
+     */
+    public static final String DICTIONARY_PROPERTY = "gsheetjdbc.strings.dictionary";
+
+    /**
+     * System property holding the number of rows H2 samples when it gathers column statistics (ANALYZE) for each
+     * newly loaded table, before the table is swapped in.  Defaults to 0: no statistics are gathered beyond the
+     * ones H2 collects on its own while rows are inserted.
+     */
+    public static final String ANALYZE_SAMPLE_PROPERTY = "gsheetjdbc.analyze.sampleRows";
+
     private final String dbName;
-    private Connection connection;
+
+    //Dedicated connection for metadata updates.
+    private Connection writer;
+    private final ConnectionPool pool;
+
+    //Table loads and swaps each borrow their own writer connection.
+    private final ConnectionPool writers;
+
+    //Serializes loads and swaps of the same table.  Different tables load concurrently.
+    private final Map<String, ReentrantLock> tableLocks = new ConcurrentHashMap<>();
+
+    //Content of the tables in place and of loaded temporary tables waiting to be swapped in.
+    private final Map<String, LoadedContent> fingerprints = new ConcurrentHashMap<>();
+    private final Map<String, LoadedContent> tempFingerprints = new ConcurrentHashMap<>();
+
+    //Definitions of the tables in place, and of the empty temporary tables kept by swaps for the next load.
+    private final Map<String, Table> loadedTables = new ConcurrentHashMap<>();
+    private final Map<String, Table> shadowTables = new ConcurrentHashMap<>();
+
+    //Version of each table in place by table name, changed every time a new version is swapped in.
+    private final Map<String, Long> tableVersions = new ConcurrentHashMap<>();
+    private final AtomicLong lastVersion = new AtomicLong();
     private final String jdbcUrl;
+    private final Metrics metrics;
+    private final boolean dictionaryEncoding;
+    private final StorageMode storageMode;
+    private final int analyzeSampleRows;
+    private boolean metadataCreated = false;
 
     /**
-     * Constructor.
+     * Builds loaders.  Settings which are not set default to their system properties.
+     */
+    public static class DatabaseLoaderBuilder {
+        private Metrics metrics = NoopMetrics.INSTANCE;
+        private boolean dictionaryEncoding = Boolean.getBoolean(DICTIONARY_PROPERTY);
+        private StorageMode storageMode = StorageMode.fromSystemProperty();
+        private int analyzeSampleRows = Integer.getInteger(ANALYZE_SAMPLE_PROPERTY, 0);
+    }
+
+    /**
+     * Constructor.  Every other setting defaults to its system property (see {@link #builder()}).
      * @param dbName The name of the database to create for this loader.
      */
     public DatabaseLoader(String dbName) {
-        this.dbName = dbName;
+        this(builder().dbName(dbName));
+    }
+
+    private DatabaseLoader(DatabaseLoaderBuilder builder) {
+        this(builder.dbName, builder.metrics, builder.dictionaryEncoding, builder.storageMode,
+                builder.analyzeSampleRows);
+    }
 
-        jdbcUrl = getH2URL();
+    /**
+     * Constructor.
+     * @param dbName The name of the database to create for this loader.
+     * @param metrics Records load timings and row counts.
+     * @param dictionaryEncoding Whether repeated strings share a single database value (only saves memory with
+     *                           {@link StorageMode#HEAP}, as the other modes serialize every value).
+     * @param storageMode Where the database keeps table data.
+     * @param analyzeSampleRows Rows sampled to gather column statistics of every loaded table, or 0 to skip it.
+     */
+    @Builder(toBuilder = true)
+    private DatabaseLoader(
+            String dbName,
+            Metrics metrics,
+            boolean dictionaryEncoding,
+            StorageMode storageMode,
+            int analyzeSampleRows
+    ) {
+        this.dbName = dbName;
+        this.metrics = metrics;
+        this.dictionaryEncoding = dictionaryEncoding;
+        this.storageMode = storageMode;
+        this.analyzeSampleRows = analyzeSampleRows;
+
+        jdbcUrl = storageMode.getH2URL(dbName);
+        pool = new ConnectionPool(this::openConnection, MAX_IDLE_CONNECTIONS);
+        writers = new ConnectionPool(this::openConnection, MAX_IDLE_CONNECTIONS);
     }
 
     /**
-     * Fetches a JDBC connection to the underlying H2 database.
+     * Fetches a pooled JDBC connection to the underlying H2 database.  Closing it returns it to the pool.
      * @return a JDBC connection
      * @throws SQLException on error
      */
     public Connection getConnection() throws SQLException {
+        return pool.borrow();
+    }
+
+    private Connection openConnection() throws SQLException {
         return DriverManager.getConnection(jdbcUrl, "", "");
     }
 
+    private Connection getWriter() throws SQLException {
+        if (writer == null || writer.isClosed()) {
+            writer = openConnection();
+        }
+        return writer;
+    }
+
     String getH2URL() {
-        return String.format("jdbc:h2:mem:%s;DB_CLOSE_DELAY=-1", dbName);
+        return jdbcUrl;
     }
 
-    void createAndLoadTable(Table table, List<List<Object>> records, String tableSuffix) throws SQLException {
-        executeStatement(generateTableCreationStatement(table, tableSuffix));
+    /**
+     * Returns where this loader's database keeps table data.
+     * @return The storage mode.
+     */
+    public StorageMode getStorageMode() {
+        return storageMode;
+    }
 
-        for (List<Object> record : records) {
-            executeStatement(generateTableInsertionStatement(table, tableSuffix), record);
+    /**
+     * Creates a loader for a separate database with the same settings but a different storage mode.
+     * @param mode The storage mode of the new database.
+     * @return The new loader.
+     */
+    public DatabaseLoader withStorageMode(StorageMode mode) {
+        return withDatabase("", mode);
+    }
+
+    /**
+     * Creates a loader for a separate database with the same settings.
+     * @param suffix Appended to the name of this loader's database (followed by the storage mode) to name the new
+     *               database.
+     * @param mode The storage mode of the new database.
+     * @return The new loader.
+     */
+    public DatabaseLoader withDatabase(String suffix, StorageMode mode) {
+        return toBuilder()
+                .dbName(dbName + suffix + "_" + mode.name().toLowerCase(Locale.ENGLISH))
+                .storageMode(mode)
+                .build();
+    }
+
+    LoadStatistics createAndLoadTable(
+            Connection connection,
+            Table table,
+            Iterator<List<List<Object>>> batches,
+            String tableSuffix
+    ) throws SQLException {
+        executeStatement(connection, generateTableCreationStatement(table, tableSuffix), List.of());
+        return loadTable(connection, table, batches, tableSuffix);
+    }
+
+    private LoadStatistics loadTable(
+            Connection connection,
+            Table table,
+            Iterator<List<List<Object>>> batches,
+            String tableSuffix
+    ) throws SQLException {
+        long rowCount = 0;
+        long approximateBytes = 0;
+
+        StringDictionary dictionary = dictionaryEncoding ? new StringDictionary() : null;
+
+        //Rows are committed once, after the last batch.  When pages are serialized into a store, the undo log of
+        //an uncommitted batch is written there too and its space is only reused later, so each batch is committed
+        //instead.  The temporary table is never swapped in unless every batch loads.
+        boolean commitBatches = storageMode.isSerialized();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insertion = connection.prepareStatement(
+                generateTableInsertionStatement(table, tableSuffix))) {
+            while (batches.hasNext()) {
+                List<List<Object>> batch = batches.next();
+                executeBatch(insertion, table, batch, dictionary);
+                rowCount += batch.size();
+                approximateBytes += estimateSize(batch);
+                if (commitBatches) {
+                    connection.commit();
+                }
+            }
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(true);
         }
+        metrics.increment(MetricNames.ROWS_LOADED, rowCount);
+        return new LoadStatistics(rowCount, approximateBytes);
     }
 
     /**
      * Loads a temporary table with a set of newly fetched records.
      * @param table The table to reload.
      * @param records The records to load in.
+     * @return The number and approximate size of the loaded rows.
      * @throws SQLException If an error occurs.
      */
-    public void refreshTempTable(Table table, List<List<Object>> records) throws SQLException {
-        //Make sure schema exists first.
-        executeStatement(generateSchemaGenerationStatement(table));
-        //Drop temp table.
-        executeStatement(generateTableDropStatement(table, "Temp"));
-        createAndLoadTable(table, records, "Temp");
+    public LoadStatistics refreshTempTable(Table table, List<List<Object>> records) throws SQLException {
+        return refreshTempTable(table, List.of(records).iterator());
     }
 
     /**
-     * Swaps a newly loaded temporary table with the existing primary table.
+     * Loads a temporary table with batches of newly fetched records.  Batches are inserted as soon as the
+     * iterator produces them, so they can still be parsed while earlier batches load.  Different tables can
+     * be refreshed concurrently; each refresh runs on its own writer connection and the inserted rows are
+     * committed together.
+     * <p>
+     * A content fingerprint is kept for every table in place and the records are fingerprinted as they stream in.
+     * Records are only inserted once their fingerprint departs from the table in place (see
+     * {@link FingerprintedBatches}).  If the content did not change, nothing is inserted and the following
+     * {@link #swapTables} leaves the existing table alone.
+     * <p>
+     * When the columns match the table in place, the previous swap kept an empty temporary table and the records
+     * are inserted into it directly, without creating the schema or the table again.
+     * <p>
+     * If {@link #ANALYZE_SAMPLE_PROPERTY} is set, column statistics of the loaded table are gathered last.
+     * @param table The table to reload.
+     * @param batches The batches of records to load in.
+     * @return The number and approximate size of the loaded rows.
+     * @throws SQLException If an error occurs.
+     */
+    public LoadStatistics refreshTempTable(Table table, Iterator<List<List<Object>>> batches) throws SQLException {
+        long start = System.nanoTime();
+        ReentrantLock lock = lockTable(table);
+        try {
+            String tableName = generateTableName(table, "");
+            tempFingerprints.remove(tableName);
+            LoadedContent loaded = fingerprints.get(tableName);
+            FingerprintedBatches fingerprinted = new FingerprintedBatches(batches, new ContentFingerprint(table),
+                    loaded == null ? null : loaded.getCheckpoints());
+            batches = fingerprinted;
+
+            LoadStatistics statistics;
+            try (Connection connection = writers.borrow()) {
+                if (table.equals(shadowTables.remove(tableName))) {
+                    //The last swap left an empty temp table with the same columns: load it without any DDL.
+                    metrics.increment(MetricNames.REUSED_TABLES);
+                    statistics = loadTable(connection, table, batches, "Temp");
+                } else {
+                    //Make sure schema exists first.
+                    if (!loadedTables.containsKey(tableName)) {
+                        executeStatement(connection, generateSchemaGenerationStatement(table), List.of());
+                    }
+                    //Drop temp table.
+                    executeStatement(connection, generateTableDropStatement(table, "Temp"), List.of());
+                    statistics = createAndLoadTable(connection, table, batches, "Temp");
+                }
+                if (fingerprinted.isUnchanged()) {
+                    log.debug("Skipping unchanged table: {}", tableName);
+                    metrics.increment(MetricNames.UNCHANGED_LOADS);
+                    //Nothing was inserted or needs swapping in: keep the empty temp table for the next load.
+                    shadowTables.put(tableName, table);
+                    return loaded.getStatistics();
+                }
+                if (analyzeSampleRows > 0) {
+                    long analyzeStart = System.nanoTime();
+                    executeStatement(connection, generateTableAnalyzeStatement(table, "Temp", analyzeSampleRows),
+                            List.of());
+                    metrics.recordTimeSince(MetricNames.ANALYZE, analyzeStart);
+                }
+            }
+            tempFingerprints.put(tableName, new LoadedContent(fingerprinted.getCheckpoints(), statistics));
+            metrics.recordTimeSince(MetricNames.LOAD, start);
+            return statistics;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The fingerprint checkpoints and load statistics of a loaded table.
+     */
+    @Value
+    private static class LoadedContent {
+        private List<Long> checkpoints;
+        private LoadStatistics statistics;
+    }
+
+    /**
+     * Swaps a newly loaded temporary table with the existing primary table.  Nothing is swapped when the last
+     * refresh of the table found its content unchanged.  If the new table has the same columns as the one it
+     * replaces, the old table is truncated and kept as the next temporary table instead of being dropped.
      * @param table The table to swap.
      * @throws SQLException If an error occurs.
      */
-    public synchronized void swapTables(Table table) throws SQLException {
-        executeStatement(generateTableRenameStatement(table, "", "Old"));
-        executeStatement(generateTableRenameStatement(table, "Temp", ""));
-        executeStatement(generateTableDropStatement(table, "Old"));
+    public void swapTables(Table table) throws SQLException {
+        long start = System.nanoTime();
+        ReentrantLock lock = lockTable(table);
+        try {
+            String tableName = generateTableName(table, "");
+            LoadedContent content = tempFingerprints.remove(tableName);
+            if (content == null) {
+                return;
+            }
+            boolean sameColumns = table.equals(loadedTables.get(tableName));
+            try (Connection connection = writers.borrow()) {
+                executeStatement(connection, generateTableRenameStatement(table, "", "Old"), List.of());
+                executeStatement(connection, generateTableRenameStatement(table, "Temp", ""), List.of());
+                if (sameColumns) {
+                    //Empty the old table and keep it as the next load's temp table rather than recreating it.
+                    executeStatement(connection, generateTableTruncationStatement(table, "Old"), List.of());
+                    executeStatement(connection, generateTableRenameStatement(table, "Old", "Temp"), List.of());
+                    shadowTables.put(tableName, table);
+                } else {
+                    executeStatement(connection, generateTableDropStatement(table, "Old"), List.of());
+                }
+            }
+            loadedTables.put(tableName, table);
+            fingerprints.put(tableName, content);
+            tableVersions.put(table.getTableName(), lastVersion.incrementAndGet());
+            metrics.recordTimeSince(MetricNames.SWAP, start);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the current version of every loaded table.  A table's version changes whenever {@link #swapTables}
+     * replaces its content.  Tables with the same name in different schemas share a version.
+     * @return A live, read only view of the table versions by table name.
+     */
+    public Map<String, Long> getTableVersions() {
+        return Collections.unmodifiableMap(tableVersions);
+    }
+
+    private ReentrantLock lockTable(Table table) {
+        ReentrantLock lock = tableLocks.computeIfAbsent(generateTableName(table, ""), (name) -> new ReentrantLock());
+        lock.lock();
+        return lock;
+    }
+
+    /**
+     * Publishes the statistics of a successful refresh to the GSHEET_META.TABLES table.
+     * @param statistics The refresh statistics.
+     * @throws SQLException If an error occurs.
+     */
+    public synchronized void recordRefresh(RefreshStatistics statistics) throws SQLException {
+        createMetadataTables();
+
+        List<Object> values = Arrays.asList(statistics.getTableName(), statistics.getModifiedTime(),
+                new Timestamp(System.currentTimeMillis()), statistics.getRefreshMillis(),
+                statistics.getRowCount(), statistics.getApproximateBytes(),
+                statistics.getSchema(), statistics.getDocumentId(), statistics.getRange());
+
+        int updated = executeStatement("UPDATE " + META_TABLES + " SET TABLE_NAME = ?, MODIFIED_TIME = ?, "
+                + "LAST_REFRESHED = ?, LAST_REFRESH_MILLIS = ?, ROW_COUNT = ?, APPROXIMATE_BYTES = ?, "
+                + "REFRESH_COUNT = REFRESH_COUNT + 1, LAST_ERROR = NULL WHERE " + META_KEY, values);
+
+        if (updated == 0) {
+            executeStatement("INSERT INTO " + META_TABLES + " (TABLE_NAME, MODIFIED_TIME, LAST_REFRESHED, "
+                    + "LAST_REFRESH_MILLIS, ROW_COUNT, APPROXIMATE_BYTES, SCHEMA_NAME, DOCUMENT_ID, SHEET_RANGE, "
+                    + "REFRESH_COUNT) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 1)", values);
+        }
+    }
+
+    /**
+     * Publishes a failed refresh to the GSHEET_META.TABLES table.
+     * @param schema The schema name.
+     * @param documentId The Google document ID.
+     * @param range The sheet range.
+     * @param error The error message.
+     * @throws SQLException If an error occurs.
+     */
+    public synchronized void recordRefreshError(
+            String schema,
+            String documentId,
+            String range,
+            String error
+    ) throws SQLException {
+        createMetadataTables();
+
+        List<Object> values = Arrays.asList(error, schema, documentId, range);
+
+        int updated = executeStatement("UPDATE " + META_TABLES + " SET LAST_ERROR = ? WHERE " + META_KEY, values);
+
+        if (updated == 0) {
+            executeStatement("INSERT INTO " + META_TABLES + " (LAST_ERROR, SCHEMA_NAME, DOCUMENT_ID, SHEET_RANGE, "
+                    + "REFRESH_COUNT) VALUES (?, ?, ?, ?, 0)", values);
+        }
+    }
+
+    /**
+     * Estimates the in-memory footprint of a set of records.
+     * @param records The records.
+     * @return The approximate size in bytes.
+     */
+    public static long estimateSize(List<List<Object>> records) {
+        long bytes = 0;
+        for (List<Object> record : records) {
+            for (Object value : record) {
+                if (value instanceof String) {
+                    bytes += 2L * ((String) value).length();
+                } else if (value != null) {
+                    bytes += Long.BYTES;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void createMetadataTables() throws SQLException {
+        if (metadataCreated) {
+            return;
+        }
+        executeStatement("CREATE SCHEMA IF NOT EXISTS " + META_SCHEMA);
+        executeStatement("CREATE TABLE IF NOT EXISTS " + META_TABLES + " ("
+                + "SCHEMA_NAME VARCHAR NOT NULL, "
+                + "DOCUMENT_ID VARCHAR NOT NULL, "
+                + "SHEET_RANGE VARCHAR NOT NULL, "
+                + "TABLE_NAME VARCHAR, "
+                + "MODIFIED_TIME VARCHAR, "
+                + "LAST_REFRESHED TIMESTAMP, "
+                + "LAST_REFRESH_MILLIS BIGINT, "
+                + "ROW_COUNT BIGINT, "
+                + "APPROXIMATE_BYTES BIGINT, "
+                + "REFRESH_COUNT BIGINT NOT NULL, "
+                + "LAST_ERROR VARCHAR, "
+                + "PRIMARY KEY (SCHEMA_NAME, DOCUMENT_ID, SHEET_RANGE))");
+        metadataCreated = true;
     }
 
     String generateTableName(Table table, String suffix) {
@@ -115,6 +515,22 @@ public class DatabaseLoader implements Closeable {
         return statement.toString();
     }
 
+    String generateTableTruncationStatement(Table table, String tableSuffix) {
+        StringBuilder statement = new StringBuilder();
+        statement.append("TRUNCATE TABLE ");
+        statement.append(generateTableName(table, tableSuffix));
+        return statement.toString();
+    }
+
+    String generateTableAnalyzeStatement(Table table, String tableSuffix, int sampleRows) {
+        StringBuilder statement = new StringBuilder();
+        statement.append("ANALYZE TABLE ");
+        statement.append(generateTableName(table, tableSuffix));
+        statement.append(" SAMPLE_SIZE ");
+        statement.append(sampleRows);
+        return statement.toString();
+    }
+
     String generateSchemaGenerationStatement(Table table) {
         StringBuilder statement = new StringBuilder();
         statement.append("CREATE SCHEMA IF NOT EXISTS `");
@@ -179,15 +595,43 @@ public class DatabaseLoader implements Closeable {
         }
     }
 
-    private void executeStatement(String sql) throws SQLException {
-        this.executeStatement(sql, List.of());
+    private int executeStatement(String sql) throws SQLException {
+        return this.executeStatement(sql, List.of());
     }
 
-    private void executeStatement(String sql, List<Object> arguments) throws SQLException {
-        if (connection == null || connection.isClosed()) {
-            connection = getConnection();
+    private void executeBatch(
+            PreparedStatement statement,
+            Table table,
+            List<List<Object>> records,
+            StringDictionary dictionary
+    ) throws SQLException {
+        List<Column> columns = table.getColumns();
+        for (List<Object> record : records) {
+            for (int idx = 0; idx < record.size(); idx++) {
+                Object obj = record.get(idx);
+                if (obj instanceof LocalDateTime && columns.get(idx).getType() == Column.ColumnType.DATE) {
+                    //Bind the date part directly rather than having H2 cast a timestamp to a date.
+                    obj = ((LocalDateTime) obj).toLocalDate();
+                } else if (obj instanceof String && dictionary != null) {
+                    obj = dictionary.encode(idx, (String) obj);
+                }
+                statement.setObject(idx + 1, obj);
+            }
+            statement.addBatch();
         }
+        long start = System.currentTimeMillis();
+        statement.executeBatch();
+        long end = System.currentTimeMillis();
+
+        log.debug("Inserted SQL batch into: {} Rows: {} Runtime: {}ms", table.getTableName(), records.size(),
+                end - start);
+    }
+
+    private synchronized int executeStatement(String sql, List<Object> arguments) throws SQLException {
+        return executeStatement(getWriter(), sql, arguments);
+    }
 
+    private int executeStatement(Connection connection, String sql, List<Object> arguments) throws SQLException {
         try (PreparedStatement statement = connection.prepareStatement(sql)) {
             int idx = 1;
             for (Object obj : arguments) {
@@ -195,18 +639,21 @@ public class DatabaseLoader implements Closeable {
                 idx++;
             }
             long start = System.currentTimeMillis();
-            statement.execute();
+            int updateCount = statement.executeUpdate();
             long end = System.currentTimeMillis();
 
             log.debug("Executed SQL: {} Runtime: {}ms", sql, end - start);
+            return updateCount;
         }
     }
 
     @Override
     public void close() throws IOException {
+        pool.close();
+        writers.close();
         try {
             executeStatement("SHUTDOWN");
-            connection.close();
+            writer.close();
         } catch (SQLException e) {
             throw new IOException(e.getMessage());
         }
@@ -0,0 +1,132 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+
+/**
+ * Fingerprints batches of rows as they stream in and holds them back for as long as the content matches the
+ * table in place.
+ * <p>
+ * The running fingerprint is checkpointed every {@link #CHECKPOINT_ROWS} rows and compared with the checkpoints
+ * recorded when the table in place was loaded.  As soon as one differs, the held batches and every later batch
+ * are passed on to be inserted.  If the stream ends with all checkpoints and the final fingerprint equal, no
+ * batch is ever passed on and nothing is inserted.  Changes near the end of a large table therefore hold most of
+ * its rows in memory until the stream ends.
+ */
+class FingerprintedBatches implements Iterator<List<List<Object>>> {
+
+    /**
+     * Number of rows between two fingerprint checkpoints.
+     */
+    static final int CHECKPOINT_ROWS = 1000;
+
+    private final Iterator<List<List<Object>>> batches;
+    private final ContentFingerprint fingerprint;
+
+    //Checkpoints of the table in place or null if there is none.
+    private final List<Long> previous;
+    private final List<Long> checkpoints = new ArrayList<>();
+    private final Queue<List<List<Object>>> held = new ArrayDeque<>();
+    private boolean diverged;
+    private boolean finished;
+    private long rowCount;
+
+    /**
+     * Constructor.
+     * @param batches The fetched batches.
+     * @param fingerprint The fingerprint of the table schema, to which the rows are added.
+     * @param previous The checkpoints of the table in place (see {@link #getCheckpoints}) or null.
+     */
+    FingerprintedBatches(Iterator<List<List<Object>>> batches, ContentFingerprint fingerprint, List<Long> previous) {
+        this.batches = batches;
+        this.fingerprint = fingerprint;
+        this.previous = previous;
+        this.diverged = previous == null;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (held.isEmpty() || !diverged) {
+            if (!batches.hasNext()) {
+                finish();
+                return diverged && !held.isEmpty();
+            }
+            List<List<Object>> batch = batches.next();
+            for (List<Object> row : batch) {
+                fingerprint.updateRow(row);
+                rowCount++;
+                if (rowCount % CHECKPOINT_ROWS == 0) {
+                    checkpoint();
+                }
+            }
+            held.add(batch);
+        }
+        return true;
+    }
+
+    @Override
+    public List<List<Object>> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        return held.remove();
+    }
+
+    /**
+     * Returns whether the stream ended with exactly the content of the table in place.  Only meaningful once the
+     * batches are exhausted.
+     * @return True if nothing was passed on because the content is unchanged.
+     */
+    boolean isUnchanged() {
+        return finished && !diverged;
+    }
+
+    /**
+     * Returns the checkpoints of the fingerprint: one every {@link #CHECKPOINT_ROWS} rows followed by the final
+     * fingerprint.  Only complete once the batches are exhausted.
+     * @return The checkpoints.
+     */
+    List<Long> getCheckpoints() {
+        return Collections.unmodifiableList(checkpoints);
+    }
+
+    /**
+     * Returns the number of rows read so far.
+     * @return The row count.
+     */
+    long getRowCount() {
+        return rowCount;
+    }
+
+    private void checkpoint() {
+        long value = fingerprint.getValue();
+        int index = checkpoints.size();
+        checkpoints.add(value);
+        if (!diverged && (index >= previous.size() || previous.get(index) != value)) {
+            diverged = true;
+        }
+    }
+
+    private void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        checkpoint();
+        if (!diverged && checkpoints.size() != previous.size()) {
+            diverged = true;
+        }
+        if (!diverged) {
+            held.clear();
+        }
+    }
+}
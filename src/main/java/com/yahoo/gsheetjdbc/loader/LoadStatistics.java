@@ -0,0 +1,16 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import lombok.Value;
+
+/**
+ * Summary of the rows inserted into a temporary table.
+ */
+@Value
+public class LoadStatistics {
+    private long rowCount;
+    private long approximateBytes;
+}
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import lombok.Builder;
+import lombok.NonNull;
+import lombok.Value;
+
+/**
+ * Statistics about a single successful table refresh, published to the GSHEET_META.TABLES table.
+ */
+@Value
+@Builder
+public class RefreshStatistics {
+
+    @NonNull
+    private String schema;
+
+    @NonNull
+    private String documentId;
+
+    @NonNull
+    private String range;
+
+    @NonNull
+    private String tableName;
+
+    private String modifiedTime;
+
+    private long refreshMillis;
+
+    private long rowCount;
+
+    private long approximateBytes;
+}
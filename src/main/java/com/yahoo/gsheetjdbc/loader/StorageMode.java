@@ -0,0 +1,130 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Where the loader's H2 database keeps table data.
+ * <p>
+ * {@link #HEAP} keeps every row as Java objects.  The other modes serialize rows into pages held outside of the
+ * Java heap: only the pages a query touches are read back into H2's (bounded) page cache, so large sheets no
+ * longer add to the garbage collector's live set.  Tables are still loaded, swapped and dropped the same way in
+ * every mode.
+ */
+public enum StorageMode {
+
+    /**
+     * Rows live on the Java heap ({@code jdbc:h2:mem:}).  The fastest mode and the default.
+     */
+    HEAP("mem:", ""),
+
+    /**
+     * Pages are compressed by the MVStore into byte arrays on the Java heap ({@code jdbc:h2:memFS:} with
+     * {@code COMPRESS=TRUE}).  Long free text shrinks to about half, at the cost of decompressing the pages each
+     * query reads.  Space freed by reloads is reused immediately ({@code RETENTION_TIME=0}).
+     */
+    COMPRESSED("memFS:", ";COMPRESS=TRUE;RETENTION_TIME=0"),
+
+    /**
+     * Pages live in direct byte buffers ({@code jdbc:h2:nioMemFS:}).
+     */
+    OFF_HEAP("nioMemFS:", ""),
+
+    /**
+     * Pages are LZF compressed in direct byte buffers ({@code jdbc:h2:nioMemLZF:}), trading CPU for memory.
+     */
+    OFF_HEAP_COMPRESSED("nioMemLZF:", ""),
+
+    /**
+     * Pages live in a memory mapped file in a temporary directory ({@code jdbc:h2:nioMapped:}) which is deleted
+     * when the JVM exits.  The operating system can page the data out under memory pressure.
+     */
+    MAPPED_FILE("nioMapped:", "");
+
+    /**
+     * System property selecting the default storage mode: 'heap' (default), 'compressed', 'off_heap',
+     * 'off_heap_compressed' or 'mapped_file'.
+     */
+    public static final String PROPERTY = "gsheetjdbc.storage";
+
+    private final String prefix;
+    private final String settings;
+
+    StorageMode(String prefix, String settings) {
+        this.prefix = prefix;
+        this.settings = settings;
+    }
+
+    /**
+     * Returns the storage mode selected by the {@link #PROPERTY} system property.
+     * @return The storage mode.
+     */
+    public static StorageMode fromSystemProperty() {
+        String mode = System.getProperty(PROPERTY);
+        if (mode == null || mode.isBlank()) {
+            return HEAP;
+        }
+        StorageMode storageMode = parse(mode);
+        if (storageMode == null) {
+            throw new IllegalArgumentException("Invalid " + PROPERTY + " : " + mode);
+        }
+        return storageMode;
+    }
+
+    /**
+     * Parses a storage mode name such as 'heap' or 'off-heap' (case insensitive, dashes or underscores).
+     * @param mode The name.
+     * @return The storage mode or null if the name is not valid.
+     */
+    public static StorageMode parse(String mode) {
+        String name = mode.trim().replace('-', '_').toUpperCase(Locale.ENGLISH);
+        for (StorageMode storageMode : values()) {
+            if (storageMode.name().equals(name)) {
+                return storageMode;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns whether pages are serialized into a store rather than kept as Java objects.
+     * @return True for every mode but {@link #HEAP}.
+     */
+    boolean isSerialized() {
+        return this != HEAP;
+    }
+
+    /**
+     * Builds the H2 JDBC URL of a database.
+     * @param dbName The database name.
+     * @return The JDBC URL.
+     */
+    String getH2URL(String dbName) {
+        if (this == MAPPED_FILE) {
+            return String.format("jdbc:h2:%s%s;DB_CLOSE_DELAY=-1%s", prefix, databaseFile(dbName), settings);
+        }
+        return String.format("jdbc:h2:%s%s;DB_CLOSE_DELAY=-1%s", prefix, dbName, settings);
+    }
+
+    private static String databaseFile(String dbName) {
+        try {
+            Path directory = Files.createTempDirectory("gsheetjdbc-");
+            File database = directory.resolve(dbName).toFile();
+
+            //Paths are deleted in reverse order of registration: the store file first, then the directory.
+            directory.toFile().deleteOnExit();
+            new File(database.getPath() + ".mv.db").deleteOnExit();
+            new File(database.getPath() + ".trace.db").deleteOnExit();
+            return database.getAbsolutePath();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to create a database directory: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary encodes the strings of one table load.
+ * <p>
+ * Every distinct string of a column is interned to a single instance which is then bound for every row holding
+ * it, so the rows of the in-memory table share one copy of its characters instead of each keeping its own.  H2 only
+ * deduplicates values through a small hash cache, which misses as soon as columns hold more than a few hundred
+ * distinct labels.  Columns stop growing their dictionary once they reach {@link #MAX_ENTRIES_PER_COLUMN} entries
+ * (mostly unique text gains nothing from it) and further new strings are bound as is.
+ */
+class StringDictionary {
+
+    /**
+     * Maximum number of distinct strings encoded per column.
+     */
+    static final int MAX_ENTRIES_PER_COLUMN = 1 << 16;
+
+    private final List<Map<String, String>> columns = new ArrayList<>();
+
+    /**
+     * Returns the shared instance of a string.
+     * @param column Zero based column index.
+     * @param value The string.
+     * @return The instance shared by all rows with the same string, or the string itself once the column
+     *     dictionary is full.
+     */
+    String encode(int column, String value) {
+        while (columns.size() <= column) {
+            columns.add(new HashMap<>());
+        }
+        Map<String, String> dictionary = columns.get(column);
+        String encoded = dictionary.get(value);
+        if (encoded != null) {
+            return encoded;
+        }
+        if (dictionary.size() < MAX_ENTRIES_PER_COLUMN) {
+            dictionary.put(value, value);
+        }
+        return value;
+    }
+
+    /**
+     * Returns the number of distinct strings encoded for a column.
+     * @param column Zero based column index.
+     * @return The dictionary size.
+     */
+    int size(int column) {
+        return column < columns.size() ? columns.get(column).size() : 0;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock free histogram of durations with power of two nanosecond buckets.
+ */
+public class Histogram {
+
+    private static final int BUCKETS = 64;
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Point in time view of a histogram.  Durations are reported in milliseconds.
+     */
+    @Value
+    @Builder
+    public static class Snapshot {
+        private long count;
+        private double meanMillis;
+        private double maxMillis;
+        private double p50Millis;
+        private double p95Millis;
+        private double p99Millis;
+    }
+
+    /**
+     * Records a single duration.
+     * @param nanos The duration in nanoseconds.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        max.accumulate(value);
+    }
+
+    /**
+     * Takes a snapshot of the histogram.  Percentiles are estimated as the upper bound of the bucket
+     * containing the requested rank.
+     * @return The snapshot.
+     */
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long total = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            counts[idx] = buckets.get(idx);
+            total += counts[idx];
+        }
+        long maxValue = max.get();
+
+        return Snapshot.builder()
+                .count(total)
+                .meanMillis(total == 0 ? 0 : sum.sum() / (double) total / NANOS_PER_MILLI)
+                .maxMillis(maxValue / NANOS_PER_MILLI)
+                .p50Millis(percentile(counts, total, 0.50, maxValue) / NANOS_PER_MILLI)
+                .p95Millis(percentile(counts, total, 0.95, maxValue) / NANOS_PER_MILLI)
+                .p99Millis(percentile(counts, total, 0.99, maxValue) / NANOS_PER_MILLI)
+                .build();
+    }
+
+    private static int bucket(long nanos) {
+        return nanos == 0 ? 0 : BUCKETS - 1 - Long.numberOfLeadingZeros(nanos);
+    }
+
+    private static long percentile(long[] counts, long total, double quantile, long maxValue) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(quantile * total);
+        long seen = 0;
+        for (int idx = 0; idx < BUCKETS; idx++) {
+            seen += counts[idx];
+            if (seen >= rank) {
+                long upperBound = idx >= BUCKETS - 2 ? Long.MAX_VALUE : (1L << (idx + 1)) - 1;
+                return Math.min(upperBound, maxValue);
+            }
+        }
+        return maxValue;
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Simple in-memory metrics registry that can be queried directly or through JMX.
+ */
+@Slf4j
+public class InMemoryMetrics implements Metrics, InMemoryMetricsMXBean {
+
+    public static final String OBJECT_NAME = "com.yahoo.gsheetjdbc:type=Metrics";
+
+    private final Map<String, Histogram> timers = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordTime(String name, long nanos) {
+        timers.computeIfAbsent(name, (key) -> new Histogram()).record(nanos);
+    }
+
+    @Override
+    public void increment(String name, long delta) {
+        counters.computeIfAbsent(name, (key) -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Returns a snapshot of a single timer.
+     * @param name The metric name.
+     * @return The snapshot (empty if nothing was recorded).
+     */
+    public Histogram.Snapshot getTimer(String name) {
+        return timers.getOrDefault(name, new Histogram()).snapshot();
+    }
+
+    /**
+     * Returns the value of a single counter.
+     * @param name The metric name.
+     * @return The counter value (0 if nothing was recorded).
+     */
+    public long getCounter(String name) {
+        LongAdder counter = counters.get(name);
+        return counter == null ? 0 : counter.sum();
+    }
+
+    @Override
+    public Map<String, Histogram.Snapshot> getTimers() {
+        Map<String, Histogram.Snapshot> results = new TreeMap<>();
+        timers.forEach((name, histogram) -> results.put(name, histogram.snapshot()));
+        return results;
+    }
+
+    @Override
+    public Map<String, Long> getCounters() {
+        Map<String, Long> results = new TreeMap<>();
+        counters.forEach((name, counter) -> results.put(name, counter.sum()));
+        return results;
+    }
+
+    @Override
+    public double getCacheHitRatio() {
+        long hits = getCounter(MetricNames.CACHE_HITS);
+        long total = hits + getCounter(MetricNames.CACHE_MISSES);
+        return total == 0 ? 0 : hits / (double) total;
+    }
+
+    @Override
+    public void reset() {
+        timers.clear();
+        counters.clear();
+    }
+
+    /**
+     * Registers this registry with the platform MBean server under {@link #OBJECT_NAME}.
+     * Any previously registered registry is replaced.
+     * @return this registry.
+     */
+    public InMemoryMetrics registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            log.error("Unable to register metrics MBean: {}", e.getMessage());
+        }
+        return this;
+    }
+}
@@ -0,0 +1,36 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+import java.util.Map;
+
+/**
+ * JMX view of the in-memory metrics registry.
+ */
+public interface InMemoryMetricsMXBean {
+
+    /**
+     * Snapshot of all timers.
+     * @return Histogram snapshots keyed by metric name.
+     */
+    Map<String, Histogram.Snapshot> getTimers();
+
+    /**
+     * Snapshot of all counters.
+     * @return Counter values keyed by metric name.
+     */
+    Map<String, Long> getCounters();
+
+    /**
+     * Fraction of document checks in Driver.connect that did not require a reload.
+     * @return A ratio between 0 and 1 (0 if nothing has been recorded).
+     */
+    double getCacheHitRatio();
+
+    /**
+     * Clears all recorded metrics.
+     */
+    void reset();
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+/**
+ * Names of the metrics recorded by the driver.
+ */
+public final class MetricNames {
+
+    /**
+     * Total time spent in Driver.connect.
+     */
+    public static final String CONNECT = "driver.connect";
+
+    /**
+     * Time spent loading the documents of a preload manifest.
+     */
+    public static final String PRELOAD = "driver.preload";
+
+    /**
+     * Time spent waiting to acquire the driver lock in Driver.connect.
+     */
+    public static final String LOCK_WAIT = "driver.lockWait";
+
+    /**
+     * Time spent fetching and loading a single document range.
+     */
+    public static final String FETCH_AND_LOAD = "driver.fetchAndLoad";
+
+    /**
+     * Connections where the cached document was still fresh.
+     */
+    public static final String CACHE_HITS = "driver.cache.hits";
+
+    /**
+     * Connections where the document had to be (re)loaded.
+     */
+    public static final String CACHE_MISSES = "driver.cache.misses";
+
+    /**
+     * Queries answered from the result cache.
+     */
+    public static final String RESULT_CACHE_HITS = "driver.resultCache.hits";
+
+    /**
+     * Cacheable queries which had to be run against the database.
+     */
+    public static final String RESULT_CACHE_MISSES = "driver.resultCache.misses";
+
+    /**
+     * Results evicted from the result cache to stay within its size bounds.
+     */
+    public static final String RESULT_CACHE_EVICTIONS = "driver.resultCache.evictions";
+
+    /**
+     * Time spent checking document freshness with the Drive API.
+     */
+    public static final String FRESHNESS_CHECK = "fetcher.freshnessCheck";
+
+    /**
+     * Time spent fetching the grid size of sheets referenced by open ended ranges.
+     */
+    public static final String GRID_FETCH = "fetcher.gridFetch";
+
+    /**
+     * Time spent waiting on the Sheets API response.
+     */
+    public static final String SHEET_FETCH = "fetcher.sheetFetch";
+
+    /**
+     * Time spent decoding the Sheets API JSON response.
+     */
+    public static final String JSON_PARSE = "fetcher.jsonParse";
+
+    /**
+     * Time spent extracting the table schema and typed cell values.
+     */
+    public static final String EXTRACT = "fetcher.extract";
+
+    /**
+     * Number of response bytes read from the Sheets API.
+     */
+    public static final String BYTES_FETCHED = "fetcher.bytes";
+
+    /**
+     * Bands of rows requested separately when a large range is fetched in chunks.
+     */
+    public static final String CHUNKS_FETCHED = "fetcher.chunks";
+
+    /**
+     * Time spent creating and populating a temporary table.
+     */
+    public static final String LOAD = "loader.load";
+
+    /**
+     * Refreshes skipped because the fetched content matched the loaded table.
+     */
+    public static final String UNCHANGED_LOADS = "loader.unchanged";
+
+    /**
+     * Loads into the empty temporary table kept by the previous swap, without creating the table again.
+     */
+    public static final String REUSED_TABLES = "loader.reused";
+
+    /**
+     * Time spent gathering column statistics of a newly loaded table.
+     */
+    public static final String ANALYZE = "loader.analyze";
+
+    /**
+     * Time spent swapping a temporary table into place.
+     */
+    public static final String SWAP = "loader.swap";
+
+    /**
+     * Number of rows inserted into the database.
+     */
+    public static final String ROWS_LOADED = "loader.rows";
+
+    private MetricNames() {
+    }
+}
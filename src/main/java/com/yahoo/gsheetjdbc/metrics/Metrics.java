@@ -0,0 +1,42 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+/**
+ * Records timings and counters for driver operations.  Implementations must be thread safe.
+ */
+public interface Metrics {
+
+    /**
+     * Records the duration of a single operation.
+     * @param name The metric name (see {@link MetricNames}).
+     * @param nanos The elapsed time in nanoseconds.
+     */
+    void recordTime(String name, long nanos);
+
+    /**
+     * Increments a counter.
+     * @param name The metric name (see {@link MetricNames}).
+     * @param delta The amount to add to the counter.
+     */
+    void increment(String name, long delta);
+
+    /**
+     * Increments a counter by one.
+     * @param name The metric name (see {@link MetricNames}).
+     */
+    default void increment(String name) {
+        increment(name, 1);
+    }
+
+    /**
+     * Records the time elapsed since a start timestamp.
+     * @param name The metric name (see {@link MetricNames}).
+     * @param startNanos The start timestamp from {@link System#nanoTime()}.
+     */
+    default void recordTimeSince(String name, long startNanos) {
+        recordTime(name, System.nanoTime() - startNanos);
+    }
+}
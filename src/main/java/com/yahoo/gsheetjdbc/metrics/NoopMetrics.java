@@ -0,0 +1,26 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+/**
+ * Metrics implementation that discards everything.  This is the default.
+ */
+public final class NoopMetrics implements Metrics {
+
+    public static final NoopMetrics INSTANCE = new NoopMetrics();
+
+    private NoopMetrics() {
+    }
+
+    @Override
+    public void recordTime(String name, long nanos) {
+        //NOOP
+    }
+
+    @Override
+    public void increment(String name, long delta) {
+        //NOOP
+    }
+}
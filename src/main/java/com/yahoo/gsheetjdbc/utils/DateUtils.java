@@ -4,7 +4,9 @@
  */
 package com.yahoo.gsheetjdbc.utils;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.Month;
 
 /**
@@ -17,13 +19,38 @@ public class DateUtils {
      */
     final static public LocalDateTime GOOGLE_EPOCH_REFERENCE = LocalDateTime.of(1899 , Month.DECEMBER , 30 , 0, 0);
 
+    private static final long GOOGLE_EPOCH_DAY = GOOGLE_EPOCH_REFERENCE.toLocalDate().toEpochDay();
+    private static final long SECONDS_PER_DAY = 86_400L;
+
+    /**
+     * Serial days with a cached LocalDate: 12/30/1899 through 12/31/2100.
+     */
+    private static final int CACHED_DAYS = (int) (LocalDate.of(2101, 1, 1).toEpochDay() - GOOGLE_EPOCH_DAY);
+
+    /**
+     * Lazily populated.  LocalDate is immutable so racing writers store equal values.
+     */
+    private static final LocalDate[] DAYS = new LocalDate[CACHED_DAYS];
+
     /**
      * Converts a Google serial data into a LocalDateTime.
      * @param serialDate Serial date format (as a double).
      * @return The equivalent LocalDateTime.
      */
     public static LocalDateTime convert(Double serialDate) {
-        return GOOGLE_EPOCH_REFERENCE.plusSeconds((long) (86400 * serialDate));
+        return convert(serialDate.doubleValue());
+    }
+
+    /**
+     * Converts a Google serial data into a LocalDateTime.  Fractions of a second are truncated (towards the
+     * epoch).
+     * @param serialDate Serial date format.
+     * @return The equivalent LocalDateTime.
+     */
+    public static LocalDateTime convert(double serialDate) {
+        long seconds = (long) (SECONDS_PER_DAY * serialDate);
+        LocalDate date = toLocalDate(Math.floorDiv(seconds, SECONDS_PER_DAY));
+        return LocalDateTime.of(date, LocalTime.ofSecondOfDay(Math.floorMod(seconds, SECONDS_PER_DAY)));
     }
 
     /**
@@ -32,10 +59,28 @@ public class DateUtils {
      * @return The equivalent LocalDateTime.
      */
     public static LocalDateTime convert(Object serialDate) {
-        if (Double.class.isAssignableFrom(serialDate.getClass())) {
-            return convert((Double) serialDate);
+        if (serialDate instanceof Number) {
+            return convert(((Number) serialDate).doubleValue());
         }
 
-        return convert(Double.valueOf(String.valueOf(serialDate)));
+        return convert(Double.parseDouble(String.valueOf(serialDate)));
+    }
+
+    /**
+     * Converts a whole number of days since the Google epoch into a date.
+     * @param serialDay Days since 12/30/1899.
+     * @return The equivalent LocalDate.
+     */
+    public static LocalDate toLocalDate(long serialDay) {
+        if (serialDay < 0 || serialDay >= CACHED_DAYS) {
+            return LocalDate.ofEpochDay(GOOGLE_EPOCH_DAY + serialDay);
+        }
+
+        LocalDate date = DAYS[(int) serialDay];
+        if (date == null) {
+            date = LocalDate.ofEpochDay(GOOGLE_EPOCH_DAY + serialDay);
+            DAYS[(int) serialDay] = date;
+        }
+        return date;
     }
 }
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.data;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+import com.yahoo.gsheetjdbc.utils.DateUtils;
+import com.google.api.services.sheets.v4.model.CellData;
+import com.google.api.services.sheets.v4.model.RowData;
+import com.google.api.services.sheets.v4.model.Sheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares per-column cell extractors against reading each cell through {@code ExtendedValue.values()}.
+ * Allocation rates are reported by the JMH gc profiler which {@link #main} enables.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CellExtractionBenchmark {
+
+    private static final int ROWS = 10000;
+
+    private List<Column> columns;
+    private List<RowData> rows;
+    private GoogleSheetsDataFetcher.CellExtractor[] extractors;
+
+    @Setup
+    public void setup() {
+        Sheet sheet = SyntheticSheets.sheet("Benchmark", ROWS);
+        Table table = new GoogleSheetsDataFetcher().extractTableSchema(sheet, "Benchmark");
+        columns = table.getColumns();
+        rows = sheet.getData().get(0).getRowData().subList(1, ROWS + 1);
+        extractors = new GoogleSheetsDataFetcher.CellExtractor[columns.size()];
+        for (int idx = 0; idx < extractors.length; idx++) {
+            extractors[idx] = GoogleSheetsDataFetcher.cellExtractor(columns.get(idx).getType());
+        }
+    }
+
+    @Benchmark
+    public void valuesView(Blackhole blackhole) {
+        for (RowData row : rows) {
+            for (int idx = 0; idx < columns.size(); idx++) {
+                CellData cell = row.getValues().get(idx);
+                Object value = cell.getEffectiveValue().values().iterator().next();
+                Column.ColumnType type = columns.get(idx).getType();
+                if (type == Column.ColumnType.DATE || type == Column.ColumnType.DATETIME) {
+                    value = DateUtils.convert(Double.valueOf(String.valueOf(value)));
+                }
+                blackhole.consume(value);
+            }
+        }
+    }
+
+    @Benchmark
+    public void typedExtractors(Blackhole blackhole) {
+        for (RowData row : rows) {
+            for (int idx = 0; idx < extractors.length; idx++) {
+                CellData cell = row.getValues().get(idx);
+                blackhole.consume(extractors[idx].extract(columns.get(idx), cell.getEffectiveValue()));
+            }
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(CellExtractionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.data;
+
+import com.yahoo.gsheetjdbc.driver.FetchExecutors;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Times fetching and decoding one large range from a {@link GoogleApiSimulator}, in a single request and in
+ * concurrent bands of rows:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.data.ChunkedFetchBenchmark [rows] [columns] [MB/s per response, 0 = unlimited]
+ *     [latency ms] [repetitions]
+ * </pre>
+ * The simulator limits the rate of every response separately, the way a single TCP stream is limited on a long
+ * path, and delays every request by the latency.  Each configuration reports the median wall time until every
+ * row has been decoded.
+ */
+public class ChunkedFetchBenchmark {
+
+    private static final int[] CHUNK_ROWS = {0, 50000, 25000, 10000};
+    private static final int[] CONCURRENCY = {1, 2, 4, 8};
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int columns = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        double megabytesPerSecond = args.length > 2 ? Double.parseDouble(args[2]) : 16;
+        long latency = args.length > 3 ? Long.parseLong(args[3]) : 100;
+        int repetitions = args.length > 4 ? Integer.parseInt(args[4]) : 3;
+
+        ExecutorService executor = FetchExecutors.newParseExecutor();
+        try (GoogleApiSimulator simulator = new GoogleApiSimulator()) {
+            simulator.addSheet("doc", "Large", rows, columns);
+            simulator.setLatency(Duration.ofMillis(latency));
+            simulator.setBandwidth((long) (megabytesPerSecond * 1e6));
+            String range = "Large!A1:" + SheetRange.columnName(columns - 1) + (rows + 1);
+
+            //Warms up the JIT and the connection pool.
+            fetch(GoogleSheetsDataFetcher.builder()
+                    .parseExecutor(executor)
+                    .streaming(true)
+                    .rootUrl(simulator.getRootUrl())
+                    .chunkRows(rows / 8)
+                    .chunkConcurrency(8)
+                    .build(), range);
+
+            for (int chunkRows : CHUNK_ROWS) {
+                for (int concurrency : CONCURRENCY) {
+                    if (chunkRows == 0 && concurrency > 1) {
+                        continue;
+                    }
+                    GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder()
+                            .parseExecutor(executor)
+                            .streaming(true)
+                            .rootUrl(simulator.getRootUrl())
+                            .chunkRows(chunkRows)
+                            .chunkConcurrency(concurrency)
+                            .build();
+                    long[] millis = new long[repetitions];
+                    long fetched = 0;
+                    for (int idx = 0; idx < repetitions; idx++) {
+                        long start = System.nanoTime();
+                        fetched = fetch(fetcher, range);
+                        millis[idx] = (System.nanoTime() - start) / 1_000_000;
+                    }
+                    Arrays.sort(millis);
+                    System.out.printf("chunkRows=%d concurrency=%d rows=%d medianMs=%d%n", chunkRows,
+                            chunkRows == 0 ? 1 : concurrency, fetched, millis[repetitions / 2]);
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static long fetch(GoogleSheetsDataFetcher fetcher, String range) {
+        DataFetcher.Result result = fetcher.fetchDocumentSheet(GoogleApiSimulator.CREDENTIALS, "Benchmark", "doc",
+                range);
+        long rows = 0;
+        for (Iterator<List<List<Object>>> batches = result.getBatches(); batches.hasNext();) {
+            rows += batches.next().size();
+        }
+        return rows;
+    }
+}
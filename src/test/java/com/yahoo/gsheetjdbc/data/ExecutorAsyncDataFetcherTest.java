@@ -0,0 +1,83 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class ExecutorAsyncDataFetcherTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch interrupted = new CountDownLatch(1);
+
+    /**
+     * Blocks until interrupted.
+     */
+    private final DataFetcher blockingFetcher = new DataFetcher() {
+        @Override
+        public Result fetchDocumentSheet(CredentialFetcher credentialFetcher, String schema, String documentId,
+                                         String sheetRange) {
+            return Result.builder().build();
+        }
+
+        @Override
+        public String fetchLastUpdateTime(String documentId, CredentialFetcher credentialFetcher) {
+            started.countDown();
+            try {
+                Thread.sleep(60_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return "never";
+        }
+    };
+
+    @AfterEach
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testResult() throws Exception {
+        AsyncDataFetcher fetcher = new ExecutorAsyncDataFetcher(blockingFetcher, executor);
+        DataFetcher.Result result = fetcher.fetchDocumentSheet(() -> null, "schema", "doc", "Sheet1!A1:B2",
+                Duration.ofSeconds(10)).get();
+        assertEquals(DataFetcher.Result.builder().build(), result);
+    }
+
+    @Test
+    public void testDeadline() throws Exception {
+        AsyncDataFetcher fetcher = new ExecutorAsyncDataFetcher(blockingFetcher, executor);
+        CompletableFuture<String> result = fetcher.fetchLastUpdateTime("doc", () -> null, Duration.ofMillis(100));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertTrue(exception.getCause() instanceof TimeoutException);
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testCancellation() throws Exception {
+        AsyncDataFetcher fetcher = new ExecutorAsyncDataFetcher(blockingFetcher, executor);
+        CompletableFuture<String> result = fetcher.fetchLastUpdateTime("doc", () -> null, null);
+
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        result.cancel(true);
+        assertTrue(result.isCancelled());
+        assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    }
+}
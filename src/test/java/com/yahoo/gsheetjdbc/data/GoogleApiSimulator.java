@@ -0,0 +1,433 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import com.google.auth.oauth2.AccessToken;
+import com.google.auth.oauth2.GoogleCredentials;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * An embedded stand-in for the two Google API endpoints the driver calls: Drive {@code files.get} (modification
+ * times) and Sheets {@code spreadsheets.get} (grid properties and cell data).  Point a
+ * {@link GoogleSheetsDataFetcher} at {@link #getRootUrl()} to run the whole fetch and load path offline.
+ * <p>
+ * Sheets are synthetic: a header row followed by {@code rows} data rows.  Column A is a string key, column B a
+ * number and the remaining columns alternate between strings and numbers.  Values include the document revision,
+ * so {@link #modify} changes both the modification time and the content.  Latency, a bandwidth limit and HTTP 429
+ * responses can be injected to exercise the driver under slow or throttled APIs.
+ */
+public class GoogleApiSimulator implements AutoCloseable {
+
+    private static final Pattern DRIVE_PATH = Pattern.compile("^/drive/v3/files/([^/]+)$");
+    private static final Pattern SHEETS_PATH = Pattern.compile("^/v4/spreadsheets/([^/]+)$");
+    private static final Instant FIRST_MODIFICATION = Instant.parse("2021-10-08T00:00:00Z");
+
+    /**
+     * Credentials accepted by the simulator (it never checks them).
+     */
+    public static final CredentialFetcher CREDENTIALS = () ->
+            GoogleCredentials.create(new AccessToken("simulator", new Date(Long.MAX_VALUE)));
+
+    static {
+        //Without TCP_NODELAY small responses wait on delayed acknowledgements, which dwarfs the simulated latency.
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+    }
+
+    private static class Document {
+        private final Map<String, int[]> sheets = new ConcurrentHashMap<>();
+        private final AtomicInteger revision = new AtomicInteger();
+    }
+
+    private final Map<String, Document> documents = new ConcurrentHashMap<>();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicLong driveRequests = new AtomicLong();
+    private final AtomicLong sheetsRequests = new AtomicLong();
+    private final AtomicLong throttledRequests = new AtomicLong();
+    private final AtomicLong requestCount = new AtomicLong();
+    private final AtomicInteger throttleNext = new AtomicInteger();
+    private volatile Duration latency = Duration.ZERO;
+    private volatile long bytesPerSecond = 0;
+    private volatile int throttleEvery = 0;
+
+    /**
+     * Starts a simulator on a free local port.
+     * @throws IOException If the server cannot be started.
+     */
+    public GoogleApiSimulator() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        executor = Executors.newCachedThreadPool((runnable) -> {
+            Thread thread = new Thread(runnable, "google-api-simulator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        server.setExecutor(executor);
+        server.createContext("/", this::handle);
+        server.start();
+    }
+
+    /**
+     * Returns the root URL to configure the fetcher with.
+     * @return The root URL (ending with a slash).
+     */
+    public String getRootUrl() {
+        return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort() + "/";
+    }
+
+    /**
+     * Adds (or resizes) a synthetic sheet.
+     * @param documentId The document ID.
+     * @param sheet The sheet name.
+     * @param rows The number of data rows (excluding the header row).
+     * @param columns The number of columns.
+     * @return This simulator.
+     */
+    public GoogleApiSimulator addSheet(String documentId, String sheet, int rows, int columns) {
+        return addSheet(documentId, sheet, rows, columns, 0);
+    }
+
+    /**
+     * Adds (or resizes) a synthetic sheet whose grid has empty rows after the data.  Like the Sheets API, the
+     * simulator leaves trailing empty rows out of responses.
+     * @param documentId The document ID.
+     * @param sheet The sheet name.
+     * @param rows The number of data rows (excluding the header row).
+     * @param columns The number of columns.
+     * @param emptyRows The number of empty rows after the data.
+     * @return This simulator.
+     */
+    public GoogleApiSimulator addSheet(String documentId, String sheet, int rows, int columns, int emptyRows) {
+        documents.computeIfAbsent(documentId, (id) -> new Document()).sheets.put(sheet,
+                new int[] {rows, columns, emptyRows});
+        return this;
+    }
+
+    /**
+     * Edits a document: its modification time advances and every cell value changes.
+     * @param documentId The document ID.
+     */
+    public void modify(String documentId) {
+        document(documentId).revision.incrementAndGet();
+    }
+
+    /**
+     * Returns the current revision of a document (starting at zero).
+     * @param documentId The document ID.
+     * @return The revision.
+     */
+    public int getRevision(String documentId) {
+        return document(documentId).revision.get();
+    }
+
+    /**
+     * Delays every response.
+     * @param latency The delay.
+     */
+    public void setLatency(Duration latency) {
+        this.latency = latency;
+    }
+
+    /**
+     * Limits how fast each response is sent, like the throughput of a single TCP stream over a long path.
+     * Concurrent responses each get the full rate.
+     * @param bytesPerSecond The rate, or zero for no limit.
+     */
+    public void setBandwidth(long bytesPerSecond) {
+        this.bytesPerSecond = bytesPerSecond;
+    }
+
+    /**
+     * Answers the next requests with HTTP 429.
+     * @param requests The number of requests to throttle.
+     */
+    public void throttleNext(int requests) {
+        throttleNext.addAndGet(requests);
+    }
+
+    /**
+     * Answers every n-th request with HTTP 429.
+     * @param every The period, or zero to stop throttling.
+     */
+    public void setThrottleEvery(int every) {
+        this.throttleEvery = every;
+    }
+
+    /**
+     * Returns the number of Drive requests served (including throttled ones).
+     * @return The number of requests.
+     */
+    public long getDriveRequests() {
+        return driveRequests.get();
+    }
+
+    /**
+     * Returns the number of Sheets requests served (including throttled ones).
+     * @return The number of requests.
+     */
+    public long getSheetsRequests() {
+        return sheetsRequests.get();
+    }
+
+    /**
+     * Returns the number of requests answered with HTTP 429.
+     * @return The number of requests.
+     */
+    public long getThrottledRequests() {
+        return throttledRequests.get();
+    }
+
+    /**
+     * Returns the string in a data cell.
+     * @param documentId The document ID.
+     * @param row The zero based data row.
+     * @param column The zero based column.
+     * @return The cell value for string columns.
+     */
+    public String stringValue(String documentId, int row, int column) {
+        return (column == 0 ? "key" : SheetRange.columnName(column)) + "-" + row + "-" + getRevision(documentId);
+    }
+
+    /**
+     * Returns the number in a data cell.
+     * @param documentId The document ID.
+     * @param row The zero based data row.
+     * @param column The zero based column.
+     * @return The cell value for number columns.
+     */
+    public double numberValue(String documentId, int row, int column) {
+        return row * 10.0 + column + getRevision(documentId) * 0.5;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private Document document(String documentId) {
+        Document document = documents.get(documentId);
+        if (document == null) {
+            throw new IllegalArgumentException("Unknown document: " + documentId);
+        }
+        return document;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String path = exchange.getRequestURI().getPath();
+            Matcher drive = DRIVE_PATH.matcher(path);
+            Matcher sheets = SHEETS_PATH.matcher(path);
+            if (drive.matches()) {
+                driveRequests.incrementAndGet();
+            } else if (sheets.matches()) {
+                sheetsRequests.incrementAndGet();
+            } else {
+                sendError(exchange, 404, "NOT_FOUND", "Unknown endpoint: " + path);
+                return;
+            }
+
+            delay();
+            if (isThrottled()) {
+                throttledRequests.incrementAndGet();
+                sendError(exchange, 429, "RESOURCE_EXHAUSTED", "Quota exceeded.");
+                return;
+            }
+
+            String documentId = drive.matches() ? drive.group(1) : sheets.group(1);
+            Document document = documents.get(documentId);
+            if (document == null) {
+                sendError(exchange, 404, "NOT_FOUND", "Requested entity was not found.");
+                return;
+            }
+
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            if (drive.matches()) {
+                Instant modified = FIRST_MODIFICATION.plusSeconds(document.revision.get());
+                sendJson(exchange, (out) -> out.write("{\"modifiedTime\":\"" + modified + "\"}"));
+            } else {
+                serveSpreadsheet(exchange, documentId, document, query);
+            }
+        }
+    }
+
+    private boolean isThrottled() {
+        long count = requestCount.incrementAndGet();
+        int every = throttleEvery;
+        if (every > 0 && count % every == 0) {
+            return true;
+        }
+        return throttleNext.getAndUpdate((remaining) -> Math.max(0, remaining - 1)) > 0;
+    }
+
+    private void serveSpreadsheet(HttpExchange exchange, String documentId, Document document,
+                                  Map<String, String> query) throws IOException {
+        SheetRange range = SheetRange.parse(query.getOrDefault("ranges", ""));
+        int[] size = document.sheets.get(range.getSheetName());
+        if (size == null) {
+            sendError(exchange, 400, "INVALID_ARGUMENT", "Unable to parse range: " + range);
+            return;
+        }
+        int gridRows = size[0] + 1 + size[2];
+        int gridColumns = size[1];
+
+        if (!Boolean.parseBoolean(query.get("includeGridData"))) {
+            sendJson(exchange, (out) -> out.write("{\"sheets\":[{\"properties\":{\"gridProperties\":{\"rowCount\":"
+                    + gridRows + ",\"columnCount\":" + gridColumns + "}}}]}"));
+            return;
+        }
+
+        SheetRange bounded = range.bound(gridRows, gridColumns);
+        int lastRow = Math.min(bounded.getEndRow(), size[0] + 1);
+        int lastColumn = Math.min(bounded.getEndColumn(), gridColumns - 1);
+        sendJson(exchange, (out) -> {
+            out.write("{\"sheets\":[{\"properties\":{\"title\":\"" + escape(range.getSheetName())
+                    + "\"},\"data\":[{\"rowData\":[");
+            for (int row = bounded.getStartRow() - 1; row < lastRow; row++) {
+                out.write(row >= bounded.getStartRow() ? ",{\"values\":[" : "{\"values\":[");
+                for (int column = bounded.getStartColumn(); column <= lastColumn; column++) {
+                    if (column > bounded.getStartColumn()) {
+                        out.write(',');
+                    }
+                    writeCell(out, documentId, row, column);
+                }
+                out.write("]}");
+            }
+            out.write("]}]}]}");
+        });
+    }
+
+    private void writeCell(Writer out, String documentId, int gridRow, int column) throws IOException {
+        boolean number = column % 2 == 1;
+        String format = number ? "\"effectiveFormat\":{\"numberFormat\":{\"type\":\"NUMBER\"}}," : "";
+        if (gridRow == 0) {
+            String header = column == 0 ? "key" : column == 1 ? "value" : "col" + SheetRange.columnName(column);
+            out.write("{" + format + "\"effectiveValue\":{\"stringValue\":\"" + header + "\"}}");
+        } else if (number) {
+            out.write("{" + format + "\"effectiveValue\":{\"numberValue\":"
+                    + numberValue(documentId, gridRow - 1, column) + "}}");
+        } else {
+            out.write("{\"effectiveValue\":{\"stringValue\":\""
+                    + stringValue(documentId, gridRow - 1, column) + "\"}}");
+        }
+    }
+
+    private void delay() {
+        Duration delay = latency;
+        if (!delay.isZero()) {
+            try {
+                Thread.sleep(delay.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Body {
+        void write(Writer out) throws IOException;
+    }
+
+    private void sendJson(HttpExchange exchange, Body body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        //A zero length selects a chunked response, so large sheets are streamed rather than buffered.
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream stream = exchange.getResponseBody();
+        long rate = bytesPerSecond;
+        if (rate > 0) {
+            stream = new RateLimitedStream(stream, rate);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024)) {
+            body.write(out);
+        }
+    }
+
+    /**
+     * Sleeps after each write until the bytes written so far are within the rate.
+     */
+    private static class RateLimitedStream extends FilterOutputStream {
+        private final long bytesPerSecond;
+        private final long start = System.nanoTime();
+        private long written = 0;
+
+        RateLimitedStream(OutputStream out, long bytesPerSecond) {
+            super(out);
+            this.bytesPerSecond = bytesPerSecond;
+        }
+
+        @Override
+        public void write(int value) throws IOException {
+            write(new byte[] {(byte) value}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            out.write(bytes, offset, length);
+            written += length;
+            long due = start + written * 1_000_000_000L / bytesPerSecond;
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                try {
+                    Thread.sleep(wait / 1_000_000, (int) (wait % 1_000_000));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException();
+                }
+            }
+        }
+    }
+
+    private static void sendError(HttpExchange exchange, int code, String status, String message)
+            throws IOException {
+        byte[] body = ("{\"error\":{\"code\":" + code + ",\"message\":\"" + escape(message)
+                + "\",\"status\":\"" + status + "\"}}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(code, body.length);
+        exchange.getResponseBody().write(body);
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> parameters = new HashMap<>();
+        if (query == null) {
+            return parameters;
+        }
+        for (String parameter : query.split("&")) {
+            int equals = parameter.indexOf('=');
+            if (equals > 0) {
+                parameters.put(URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+                        URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return parameters;
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
@@ -7,6 +7,9 @@ package com.yahoo.gsheetjdbc.data;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.yahoo.gsheetjdbc.driver.FetchExecutors;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
 import com.yahoo.gsheetjdbc.schema.Column;
 import com.yahoo.gsheetjdbc.schema.Table;
 import com.google.api.client.json.JsonObjectParser;
@@ -16,6 +19,7 @@ import com.google.api.services.sheets.v4.model.Sheet;
 import com.google.api.services.sheets.v4.model.Spreadsheet;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.ValueSource;
 
 import java.io.BufferedReader;
@@ -26,7 +30,12 @@ import java.nio.charset.Charset;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
 
 public class GoogleSheetDataFetcherTest {
 
@@ -63,6 +72,25 @@ public class GoogleSheetDataFetcherTest {
         assertEquals(Column.ColumnType.NUMBER, table.getColumn(1).getType());
     }
 
+    @Test
+    public void testBoundRange() throws Exception {
+        JsonObjectParser parser = new JsonObjectParser(new GsonFactory());
+        Spreadsheet spreadsheet = parser.parseAndClose(new ByteArrayInputStream(
+                "{\"sheets\":[{\"properties\":{\"gridProperties\":{\"rowCount\":120,\"columnCount\":8}}}]}"
+                        .getBytes()), Charset.defaultCharset(), Spreadsheet.class);
+
+        assertEquals("Sheet1!A1:H120", GoogleSheetsDataFetcher.boundRange(SheetRange.parse("Sheet1"), spreadsheet));
+        assertEquals("Sheet1!B2:D120",
+                GoogleSheetsDataFetcher.boundRange(SheetRange.parse("Sheet1!B2:D"), spreadsheet));
+        assertEquals("Sheet1!A1:H120",
+                GoogleSheetsDataFetcher.boundRange(SheetRange.parse("Sheet1!A:Z"), spreadsheet));
+
+        assertThrows(IllegalStateException.class,
+                () -> GoogleSheetsDataFetcher.boundRange(SheetRange.parse("Sheet1!J:K"), spreadsheet));
+        assertThrows(IllegalStateException.class,
+                () -> GoogleSheetsDataFetcher.boundRange(SheetRange.parse("Sheet1"), new Spreadsheet()));
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             //Missing data
@@ -217,4 +245,176 @@ public class GoogleSheetDataFetcherTest {
                 LocalDate.of(2008,  9,  29), LocalTime.of(5, 45, 0, 0)), fetcher.extractCellData(
                 Column.builder().name("dateTimeCell").type(Column.ColumnType.DATETIME).build(), cell));
     }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"effectiveValue\":{\"stringValue\":\"N/A\"}}",
+            "{\"effectiveValue\":{\"numberValue\":12.5}}",
+            "{\"effectiveValue\":{\"boolValue\":false}}"
+    })
+    public void testMixedTypeCellParsing(String json) throws Exception {
+        JsonObjectParser parser = new JsonObjectParser(new GsonFactory());
+        CellData cell = parser.parseAndClose(new ByteArrayInputStream(json.getBytes()),
+                Charset.defaultCharset(), CellData.class);
+        Object expected = cell.getEffectiveValue().values().iterator().next();
+
+        GoogleSheetsDataFetcher fetcher = new GoogleSheetsDataFetcher();
+
+        for (Column.ColumnType type : List.of(Column.ColumnType.STRING, Column.ColumnType.NUMBER,
+                Column.ColumnType.BOOLEAN)) {
+            assertEquals(expected, fetcher.extractCellData(
+                    Column.builder().name("mixedCell").type(type).build(), cell));
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"effectiveValue\":{}}",
+            "{\"effectiveValue\":{\"stringValue\":\"A\",\"numberValue\":1}}",
+            "{\"effectiveValue\":{\"errorValue\":{\"type\":\"REF\"}}}"
+    })
+    public void testInvalidCellParsing(String json) throws Exception {
+        JsonObjectParser parser = new JsonObjectParser(new GsonFactory());
+        CellData cell = parser.parseAndClose(new ByteArrayInputStream(json.getBytes()),
+                Charset.defaultCharset(), CellData.class);
+
+        GoogleSheetsDataFetcher fetcher = new GoogleSheetsDataFetcher();
+
+        for (Column.ColumnType type : Column.ColumnType.values()) {
+            assertThrows(IllegalStateException.class, () -> fetcher.extractCellData(
+                    Column.builder().name("invalidCell").type(type).build(), cell));
+        }
+    }
+
+    @Test
+    public void testStreamingExtraction() throws Exception {
+        Sheet sheet = SyntheticSheets.sheet("Synthetic", 2500);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder().parseExecutor(executor).build();
+
+        Table table = fetcher.extractTableSchema(sheet, "TestSchema");
+        List<List<Object>> expected = fetcher.extractSheetData(table, sheet);
+        assertEquals(2500, expected.size());
+
+        List<Integer> batchSizes = new ArrayList<>();
+        List<List<Object>> streamed = new ArrayList<>();
+        try (RowBatchQueue batches = fetcher.streamSheetData(table, sheet)) {
+            batches.forEachRemaining((batch) -> {
+                batchSizes.add(batch.size());
+                streamed.addAll(batch);
+            });
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(List.of(1000, 1000, 500), batchSizes);
+        assertEquals(expected, streamed);
+    }
+
+    @Test
+    public void testBands() {
+        assertEquals(List.of("Sheet1!A1:E4", "Sheet1!A5:E8", "Sheet1!A9:E10"),
+                GoogleSheetsDataFetcher.bands(SheetRange.parse("Sheet1!A1:E10"), 4).stream()
+                        .map(SheetRange::toString).collect(Collectors.toList()));
+        assertEquals(List.of("Sheet1!B3:C4"),
+                GoogleSheetsDataFetcher.bands(SheetRange.parse("Sheet1!B3:C4"), 4).stream()
+                        .map(SheetRange::toString).collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"2, 1", "7, 3", "100, 2", "249, 4", "250, 8"})
+    public void testChunkedFetch(int chunkRows, int concurrency) throws Exception {
+        ExecutorService executor = FetchExecutors.newParseExecutor();
+        try (GoogleApiSimulator simulator = new GoogleApiSimulator().addSheet("docA", "Sales", 250, 5)) {
+            List<List<Object>> expected = fetchAll(GoogleSheetsDataFetcher.builder()
+                    .parseExecutor(executor)
+                    .streaming(true)
+                    .rootUrl(simulator.getRootUrl())
+                    .build(), "Sales!A1:E251");
+            assertEquals(250, expected.size());
+            long requests = simulator.getSheetsRequests();
+
+            InMemoryMetrics metrics = new InMemoryMetrics();
+            List<List<Object>> chunked = fetchAll(GoogleSheetsDataFetcher.builder()
+                    .metrics(metrics)
+                    .parseExecutor(executor)
+                    .streaming(true)
+                    .rootUrl(simulator.getRootUrl())
+                    .chunkRows(chunkRows)
+                    .chunkConcurrency(concurrency)
+                    .build(), "Sales!A1:E251");
+
+            //The same rows in sheet order.
+            assertEquals(expected, chunked);
+            for (int row = 0; row < chunked.size(); row++) {
+                assertEquals(simulator.stringValue("docA", row, 0), chunked.get(row).get(0));
+            }
+            long bands = (251 + chunkRows - 1) / chunkRows;
+            assertEquals(bands, metrics.getCounter(MetricNames.CHUNKS_FETCHED));
+            //One grid fetch, then the bands.
+            assertEquals(1 + bands, simulator.getSheetsRequests() - requests);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"Sales", "Sales!A1:E1000"})
+    public void testChunkedFetchEndsWithinBand(String range) throws Exception {
+        ExecutorService executor = FetchExecutors.newParseExecutor();
+        try (GoogleApiSimulator simulator = new GoogleApiSimulator().addSheet("docA", "Sales", 95, 5, 200)) {
+            InMemoryMetrics metrics = new InMemoryMetrics();
+            List<List<Object>> chunked = fetchAll(GoogleSheetsDataFetcher.builder()
+                    .metrics(metrics)
+                    .parseExecutor(executor)
+                    .streaming(true)
+                    .rootUrl(simulator.getRootUrl())
+                    .chunkRows(20)
+                    .chunkConcurrency(1)
+                    .build(), range);
+
+            assertEquals(95, chunked.size());
+            assertEquals(simulator.stringValue("docA", 94, 0), chunked.get(94).get(0));
+            //The data ends in the fifth band, so the bands after it are never requested.
+            assertEquals(5, metrics.getCounter(MetricNames.CHUNKS_FETCHED));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testChunkedFetchError() throws Exception {
+        ExecutorService executor = FetchExecutors.newParseExecutor();
+        try (GoogleApiSimulator simulator = new GoogleApiSimulator().addSheet("docA", "Sales", 250, 5)) {
+            GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder()
+                    .parseExecutor(executor)
+                    .streaming(true)
+                    .rootUrl(simulator.getRootUrl())
+                    .chunkRows(100)
+                    .chunkConcurrency(1)
+                    .build();
+            //The grid fetch and the first band succeed, the second band is throttled.
+            simulator.setThrottleEvery(3);
+            DataFetcher.Result result = fetcher.fetchDocumentSheet(GoogleApiSimulator.CREDENTIALS, "TestSchema",
+                    "docA", "Sales!A1:E251");
+            assertEquals("Sales", result.getSchema().getTableName());
+            Iterator<List<List<Object>>> batches = result.getBatches();
+            assertThrows(IllegalStateException.class, () -> batches.forEachRemaining((batch) -> { }));
+
+            //Failures in the first band fail the fetch itself.
+            simulator.setThrottleEvery(2);
+            assertThrows(IllegalStateException.class, () -> fetcher.fetchDocumentSheet(
+                    GoogleApiSimulator.CREDENTIALS, "TestSchema", "docA", "Sales!A1:E251"));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static List<List<Object>> fetchAll(GoogleSheetsDataFetcher fetcher, String range) {
+        DataFetcher.Result result = fetcher.fetchDocumentSheet(GoogleApiSimulator.CREDENTIALS, "TestSchema", "docA",
+                range);
+        List<List<Object>> rows = new ArrayList<>();
+        result.getBatches().forEachRemaining(rows::addAll);
+        return rows;
+    }
 }
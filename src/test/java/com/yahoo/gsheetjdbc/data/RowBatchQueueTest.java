@@ -0,0 +1,71 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+public class RowBatchQueueTest {
+
+    @Test
+    public void testOrderedHandOff() throws Exception {
+        RowBatchQueue queue = new RowBatchQueue(2);
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            for (int idx = 0; idx < 100; idx++) {
+                queue.put(List.of(List.of(idx)));
+            }
+            queue.finish();
+        });
+
+        List<Object> consumed = new ArrayList<>();
+        queue.forEachRemaining((batch) -> consumed.add(batch.get(0).get(0)));
+
+        producer.get(10, TimeUnit.SECONDS);
+        assertEquals(100, consumed.size());
+        for (int idx = 0; idx < 100; idx++) {
+            assertEquals(idx, consumed.get(idx));
+        }
+        assertFalse(queue.hasNext());
+    }
+
+    @Test
+    public void testProducerFailure() {
+        RowBatchQueue queue = new RowBatchQueue(2);
+        queue.put(List.of(List.of("first")));
+        queue.fail(new IllegalStateException("Invalid value"));
+
+        assertEquals("first", queue.next().get(0).get(0));
+        IllegalStateException error = assertThrows(IllegalStateException.class, queue::hasNext);
+        assertEquals("Invalid value", error.getMessage());
+    }
+
+    @Test
+    public void testCloseStopsProducer() throws Exception {
+        RowBatchQueue queue = new RowBatchQueue(1);
+
+        CompletableFuture<Void> producer = CompletableFuture.runAsync(() -> {
+            while (true) {
+                queue.put(List.of(List.of("row")));
+            }
+        });
+
+        assertTrue(queue.hasNext());
+        queue.close();
+
+        ExecutionException error = assertThrows(ExecutionException.class, () -> producer.get(10, TimeUnit.SECONDS));
+        assertTrue(error.getCause() instanceof CancellationException);
+    }
+}
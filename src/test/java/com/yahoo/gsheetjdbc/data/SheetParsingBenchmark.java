@@ -0,0 +1,81 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.data;
+
+import com.yahoo.gsheetjdbc.schema.Table;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares decoding a spreadsheets.get response through the Sheets API model against the streaming
+ * {@link SheetResponseParser}.  Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.yahoo.gsheetjdbc.data.SheetParsingBenchmark
+ * </pre>
+ * Allocation rates can be compared by adding the JMH gc profiler ({@code -prof gc}).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SheetParsingBenchmark {
+
+    @Param({"1000", "50000"})
+    public int rows;
+
+    private byte[] response;
+
+    @Setup
+    public void setup() throws Exception {
+        Spreadsheet spreadsheet = SyntheticSheets.spreadsheet(SyntheticSheets.sheet("Benchmark", rows));
+        response = JacksonFactory.getDefaultInstance().toString(spreadsheet).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<List<Object>> modelParsing() throws Exception {
+        GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder().streaming(false).build();
+        Spreadsheet spreadsheet = JacksonFactory.getDefaultInstance().createJsonObjectParser()
+                .parseAndClose(new ByteArrayInputStream(response), StandardCharsets.UTF_8, Spreadsheet.class);
+        Sheet sheet = spreadsheet.getSheets().get(0);
+        Table table = fetcher.extractTableSchema(sheet, "Benchmark");
+        return fetcher.extractSheetData(table, sheet);
+    }
+
+    @Benchmark
+    public List<List<Object>> streamingParsing() throws Exception {
+        GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder().streaming(true).build();
+        return fetcher.parseDocumentSheet(new ByteArrayInputStream(response), StandardCharsets.UTF_8,
+                "Benchmark", () -> { }).getData();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(SheetParsingBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class SheetRangeTest {
+
+    @Test
+    public void testClosedRange() {
+        SheetRange range = SheetRange.parse("'My Sheet'!B2:AA10");
+
+        assertEquals("'My Sheet'", range.getSheet());
+        assertEquals("My Sheet", range.getSheetName());
+        assertEquals(1, range.getStartColumn());
+        assertEquals(2, range.getStartRow());
+        assertEquals(26, range.getEndColumn());
+        assertEquals(10, range.getEndRow());
+        assertTrue(range.isBounded());
+        assertEquals("'My Sheet'!B2:AA10", range.toString());
+        assertEquals("'My Sheet'!C2:D10", range.withColumns(2, 3).toString());
+        assertEquals("'My Sheet'!B2:AA3", range.withRows(2, 3).toString());
+    }
+
+    @Test
+    public void testOpenEndedRange() {
+        SheetRange range = SheetRange.parse("Sheet1!A:G");
+
+        assertEquals(0, range.getStartColumn());
+        assertEquals(1, range.getStartRow());
+        assertEquals(6, range.getEndColumn());
+        assertNull(range.getEndRow());
+        assertFalse(range.isBounded());
+        assertEquals("Sheet1!A1:G", range.toString());
+        assertEquals("Sheet1!A1:G500", range.bound(500, 26).toString());
+        assertEquals("Sheet1!A1:E500", range.bound(500, 5).toString());
+
+        assertEquals("Sheet1!B3:C", SheetRange.parse("Sheet1!B3:C").toString());
+    }
+
+    @Test
+    public void testWholeSheet() {
+        SheetRange range = SheetRange.parse("Sheet1");
+
+        assertEquals("Sheet1", range.getSheetName());
+        assertFalse(range.isBounded());
+        assertEquals("Sheet1", range.toString());
+        assertEquals("Sheet1!1:2", range.withRows(1, 2).toString());
+        assertEquals("Sheet1!A1:Z1000", range.bound(1000, 26).toString());
+    }
+
+    @Test
+    public void testWholeRows() {
+        SheetRange range = SheetRange.parse("Sheet1").withRows(3, 4);
+
+        assertEquals(range, SheetRange.parse(range.toString()));
+        assertEquals(0, range.getStartColumn());
+        assertNull(range.getEndColumn());
+        assertFalse(range.isBounded());
+        assertEquals("Sheet1!A3:Z4", range.bound(1000, 26).toString());
+    }
+
+    @Test
+    public void testColumnNames() {
+        for (int index = 0; index < 1000; index++) {
+            assertEquals(index, SheetRange.columnIndex(SheetRange.columnName(index)));
+        }
+        assertEquals("AZ", SheetRange.columnName(51));
+        assertEquals(52, SheetRange.columnIndex("ba"));
+    }
+
+    @Test
+    public void testInvalidRange() {
+        assertThrows(IllegalArgumentException.class, () -> SheetRange.parse("Sheet1!A1"));
+        assertThrows(IllegalArgumentException.class, () -> SheetRange.parse("Sheet1!1A:G6"));
+        assertThrows(IllegalArgumentException.class, () -> SheetRange.parse("Sheet1!1:"));
+        assertThrows(IllegalArgumentException.class, () -> SheetRange.parse(""));
+    }
+}
@@ -0,0 +1,177 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.data;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+import com.google.api.client.json.JsonObjectParser;
+import com.google.api.client.json.jackson2.JacksonFactory;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SheetResponseParserTest {
+
+    @Test
+    public void testMatchesModelParsing() throws Exception {
+        JsonObjectParser parser = JacksonFactory.getDefaultInstance().createJsonObjectParser();
+        Spreadsheet spreadsheet = parser.parseAndClose(new InputStreamReader(
+                this.getClass().getResourceAsStream("/apiResponses/employeeData.json")), Spreadsheet.class);
+
+        for (Sheet sheet : spreadsheet.getSheets()) {
+            assertMatchesModel(sheet, null);
+        }
+    }
+
+    @Test
+    public void testMatchesModelParsingInBatches() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertMatchesModel(SyntheticSheets.sheet("Synthetic", 2500), executor);
+            assertMatchesModel(SyntheticSheets.sheet("Synthetic", 1), executor);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testPropertiesBeforeData() throws Exception {
+        String data = "{\"sheets\":[{\"properties\":{\"title\":\"Sheet1\"},\"data\":[{\"rowData\":["
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"Name\"}},"
+                + "{\"effectiveValue\":{\"stringValue\":\"Count\"}}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"A\"}},"
+                + "{\"effectiveValue\":{\"numberValue\":1}},{\"effectiveValue\":{\"stringValue\":\"ignored\"}}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"B\"}},{}]},"
+                + "{\"values\":[{},{}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"C\"}},{}]}"
+                + "]}]}]}";
+
+        DataFetcher.Result result = parse(data, null);
+
+        assertEquals("Sheet1", result.getSchema().getTableName());
+        assertEquals(2, result.getSchema().getColumns().size());
+        assertEquals(List.of(List.of("A", 1.0), listOf("B", null)), result.getData());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            //Missing data
+            "{\"sheets\":[{\"properties\":{\"title\":\"Sheet1\"}}]}",
+            //Empty row data
+            "{\"sheets\":[{\"data\":[{\"rowData\":[]}],\"properties\":{\"title\":\"Sheet1\"}}]}",
+            //No sheets
+            "{\"sheets\":[]}",
+            //Missing title
+            "{\"sheets\":[{\"data\":[{\"rowData\":[{\"values\":[{\"effectiveValue\":{\"stringValue\":\"A\"}}]},"
+                    + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"B\"}}]}]}]}]}",
+            //Empty Column Name
+            "{\"sheets\":[{\"data\":[{\"rowData\":[{\"values\":[{\"effectiveValue\":{\"stringValue\":\"\"}}]},"
+                    + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"Alexandra\"}}]}]}],"
+                    + "\"properties\":{\"title\":\"Sheet1\"}}]}",
+            //Invalid cell value
+            "{\"sheets\":[{\"data\":[{\"rowData\":[{\"values\":[{\"effectiveValue\":{\"stringValue\":\"A\"}}]},"
+                    + "{\"values\":[{\"effectiveValue\":{\"errorValue\":{\"type\":\"REF\"}}}]}]}],"
+                    + "\"properties\":{\"title\":\"Sheet1\"}}]}"
+    })
+    public void testInvalidResponse(String data) {
+        assertThrows(IllegalStateException.class, () -> parse(data, null));
+    }
+
+    @Test
+    public void testInvalidValueAfterSchemaInBatches() throws Exception {
+        String data = "{\"sheets\":[{\"properties\":{\"title\":\"Sheet1\"},\"data\":[{\"rowData\":["
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"A\"}}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"B\"}}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"C\",\"numberValue\":1}}]}"
+                + "]}]}]}";
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            DataFetcher.Result result = parse(data, executor);
+            assertEquals("Sheet1", result.getSchema().getTableName());
+
+            Iterator<List<List<Object>>> batches = result.getBatches();
+            assertThrows(IllegalStateException.class, batches::hasNext);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testBandOfKnownTable() throws Exception {
+        Table table = Table.builder()
+                .schema("TestSchema")
+                .tableName("Sheet1")
+                .column(Column.builder().name("Name").type(Column.ColumnType.STRING).build())
+                .column(Column.builder().name("Due").type(Column.ColumnType.DATE).build())
+                .build();
+        //No header row: every row is data, decoded with the known column types.
+        String data = "{\"sheets\":[{\"properties\":{\"title\":\"Sheet1\"},\"data\":[{\"rowData\":["
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"A\"}},"
+                + "{\"effectiveValue\":{\"numberValue\":36161}}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"B\"}},{}]},"
+                + "{\"values\":[{},{}]},"
+                + "{\"values\":[{\"effectiveValue\":{\"stringValue\":\"C\"}},{}]}"
+                + "]}]}]}";
+
+        List<List<Object>> rows = new ArrayList<>();
+        SheetResponseParser parser = new SheetResponseParser(JacksonFactory.getDefaultInstance().createJsonParser(
+                new ByteArrayInputStream(data.getBytes(StandardCharsets.UTF_8)), StandardCharsets.UTF_8),
+                table, 1, rows::addAll);
+        parser.parse();
+
+        assertEquals(List.of(List.of("A", LocalDateTime.of(1999, 1, 1, 0, 0)), listOf("B", null)), rows);
+        assertTrue(parser.isEnded());
+        assertEquals(4, parser.getRowsRead());
+    }
+
+    private void assertMatchesModel(Sheet sheet, ExecutorService executor) throws Exception {
+        GoogleSheetsDataFetcher modelFetcher = GoogleSheetsDataFetcher.builder().streaming(false).build();
+        Table expectedTable = modelFetcher.extractTableSchema(sheet, "TestSchema");
+        List<List<Object>> expectedData = modelFetcher.extractSheetData(expectedTable, sheet);
+
+        String json = JacksonFactory.getDefaultInstance().toString(SyntheticSheets.spreadsheet(sheet));
+        DataFetcher.Result result = parse(json, executor);
+
+        List<List<Object>> data = new ArrayList<>();
+        result.getBatches().forEachRemaining(data::addAll);
+
+        assertEquals(expectedTable, result.getSchema());
+        assertEquals(expectedData, data);
+    }
+
+    private static DataFetcher.Result parse(String json, ExecutorService executor) throws Exception {
+        GoogleSheetsDataFetcher fetcher = GoogleSheetsDataFetcher.builder()
+                .parseExecutor(executor)
+                .streaming(true)
+                .build();
+        return fetcher.parseDocumentSheet(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+                StandardCharsets.UTF_8, "TestSchema", () -> { });
+    }
+
+    private static List<Object> listOf(Object... values) {
+        List<Object> list = new ArrayList<>();
+        for (Object value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+}
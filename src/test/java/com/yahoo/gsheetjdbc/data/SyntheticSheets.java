@@ -0,0 +1,61 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.data;
+
+import com.google.api.services.sheets.v4.model.CellData;
+import com.google.api.services.sheets.v4.model.CellFormat;
+import com.google.api.services.sheets.v4.model.ExtendedValue;
+import com.google.api.services.sheets.v4.model.GridData;
+import com.google.api.services.sheets.v4.model.NumberFormat;
+import com.google.api.services.sheets.v4.model.RowData;
+import com.google.api.services.sheets.v4.model.Sheet;
+import com.google.api.services.sheets.v4.model.SheetProperties;
+import com.google.api.services.sheets.v4.model.Spreadsheet;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds synthetic Sheets API models for tests.
+ */
+public class SyntheticSheets {
+
+    public static final String[] HEADERS = {"Employee", "Hire Date", "Salary", "Active"};
+
+    /**
+     * Builds a sheet with a header row and a number of data rows.  Row i has employee 'Employee i',
+     * a hire date of serial day 44000 + i, a salary of 1000 * i and is active for even i.
+     */
+    public static Sheet sheet(String title, int rows) {
+        List<RowData> rowData = new ArrayList<>();
+
+        List<CellData> header = new ArrayList<>();
+        for (String heading : HEADERS) {
+            header.add(new CellData().setEffectiveValue(new ExtendedValue().setStringValue(heading)));
+        }
+        rowData.add(new RowData().setValues(header));
+
+        for (int row = 0; row < rows; row++) {
+            rowData.add(new RowData().setValues(List.of(
+                    new CellData().setEffectiveValue(new ExtendedValue().setStringValue("Employee " + row)),
+                    new CellData().setEffectiveValue(new ExtendedValue().setNumberValue(44000.0 + row))
+                            .setEffectiveFormat(new CellFormat().setNumberFormat(
+                                    new NumberFormat().setType("DATE").setPattern("yyyy-mm-dd"))),
+                    new CellData().setEffectiveValue(new ExtendedValue().setNumberValue(1000.0 * row)),
+                    new CellData().setEffectiveValue(new ExtendedValue().setBoolValue(row % 2 == 0)))));
+        }
+
+        return new Sheet()
+                .setProperties(new SheetProperties().setTitle(title))
+                .setData(List.of(new GridData().setRowData(rowData)));
+    }
+
+    /**
+     * Wraps sheets in a spreadsheet.
+     */
+    public static Spreadsheet spreadsheet(Sheet... sheets) {
+        return new Spreadsheet().setSheets(List.of(sheets));
+    }
+}
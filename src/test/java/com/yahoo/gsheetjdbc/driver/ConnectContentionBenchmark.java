@@ -0,0 +1,162 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+import com.yahoo.gsheetjdbc.metrics.Histogram;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.sql.Connection;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures {@link Driver#connect} with many threads connecting to the same documents through a stubbed fetcher,
+ * so that only the driver's own synchronization (the refresh lock, the documents map, the loader and its
+ * connection pool) limits throughput.  Documents are either
+ * <ul>
+ *     <li>warm: unchanged, so each connect only runs the freshness checks,</li>
+ *     <li>stale: re-dated on every connect, so each connect also refetches and fingerprints identical content,</li>
+ *     <li>edited: re-dated with different content, so each connect also rebuilds and swaps the tables.</li>
+ * </ul>
+ * Throughput and sampled latency percentiles come from JMH.  Lock contention is reported as auxiliary counters
+ * (totals per iteration across all threads) from {@link ThreadMXBean} thread contention monitoring: time spent
+ * blocked entering monitors ({@code blockedMillis}) and parked waiting on locks or futures ({@code waitedMillis}).
+ * With T threads an iteration of S seconds has T * S * 1000 thread milliseconds to compare against.  The time
+ * spent waiting for the driver's refresh lock alone is printed from the {@link MetricNames#LOCK_WAIT} timer at
+ * the end of each trial.  Run with:
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.yahoo.gsheetjdbc.driver.ConnectContentionBenchmark
+ * </pre>
+ * The main method sweeps 1, 4, 16 and 64 threads.  Where each lock is contended can be profiled further with
+ * the JMH {@code -prof jfr} or {@code -prof stack} profilers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class ConnectContentionBenchmark {
+
+    private static final int[] THREADS = {1, 4, 16, 64};
+    private static final String DOCUMENT = "doc0";
+
+    @Param({"warm", "stale", "edited"})
+    public String documents;
+
+    @Param({"0", "1"})
+    public long fetchLatencyMillis;
+
+    private DriverTest.StubDataFetcher fetcher;
+    private ExecutorService executor;
+    private InMemoryMetrics metrics;
+    private Driver driver;
+    private String url;
+    private final AtomicLong revision = new AtomicLong();
+
+    /**
+     * Per thread lock contention, summed across threads by JMH.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contention {
+        private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+        public long blockedMillis;
+        public long waitedMillis;
+        public long blockedCount;
+
+        private ThreadInfo start;
+
+        @Setup(Level.Iteration)
+        public void start() {
+            if (THREAD_MX_BEAN.isThreadContentionMonitoringSupported()) {
+                THREAD_MX_BEAN.setThreadContentionMonitoringEnabled(true);
+            }
+            blockedMillis = 0;
+            waitedMillis = 0;
+            blockedCount = 0;
+            start = THREAD_MX_BEAN.getThreadInfo(Thread.currentThread().getId());
+        }
+
+        @TearDown(Level.Iteration)
+        public void stop() {
+            ThreadInfo end = THREAD_MX_BEAN.getThreadInfo(Thread.currentThread().getId());
+            blockedMillis = Math.max(0, end.getBlockedTime() - start.getBlockedTime());
+            waitedMillis = Math.max(0, end.getWaitedTime() - start.getWaitedTime());
+            blockedCount = end.getBlockedCount() - start.getBlockedCount();
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        metrics = new InMemoryMetrics();
+        fetcher = new DriverTest.StubDataFetcher(fetchLatencyMillis, 100);
+        executor = FetchExecutors.newFixedThreadPool(FetchExecutors.DEFAULT_THREADS);
+        driver = new Driver(DatabaseLoader.builder().dbName("contentionBenchmark").metrics(metrics).build(), fetcher,
+                () -> () -> null, executor, metrics);
+        url = DriverTest.url("Contention", 4);
+
+        //Every mode starts from loaded tables.
+        driver.connect(url, null).close();
+        metrics.reset();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        Histogram.Snapshot lockWait = metrics.getTimer(MetricNames.LOCK_WAIT);
+        System.out.printf("%nRefresh lock wait: count=%d mean=%.3f ms p95=%.3f ms p99=%.3f ms max=%.3f ms%n",
+                lockWait.getCount(), lockWait.getMeanMillis(), lockWait.getP95Millis(), lockWait.getP99Millis(),
+                lockWait.getMaxMillis());
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public void connect(Contention contention) throws Exception {
+        if (!documents.equals("warm")) {
+            long next = revision.incrementAndGet();
+            fetcher.modifiedTimes.put(DOCUMENT, String.valueOf(next));
+            if (documents.equals("edited")) {
+                fetcher.rows = 98 + (int) (next % 2);
+            }
+        }
+        try (Connection connection = driver.connect(url, null)) {
+            connection.isValid(0);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (int threads : THREADS) {
+            new Runner(new OptionsBuilder()
+                    .include(ConnectContentionBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .build()).run();
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import com.yahoo.gsheetjdbc.data.GoogleApiSimulator;
+import com.yahoo.gsheetjdbc.data.GoogleSheetsDataFetcher;
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+
+import lombok.Value;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Measures {@code connect()} latency and throughput with concurrent clients.  Each client repeatedly opens a
+ * connection, runs an optional query and closes it.  Failed connects are counted rather than timed.
+ * <p>
+ * Combined with a {@link GoogleApiSimulator} this load tests the whole driver offline:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.driver.ConnectLoadDriver [clients] [connects per client] [documents]
+ *     [rows] [latency ms] [modify every n connects]
+ * </pre>
+ */
+public class ConnectLoadDriver {
+
+    /**
+     * Opens (and usually queries) one connection.
+     */
+    @FunctionalInterface
+    public interface Client {
+        Connection connect() throws Exception;
+    }
+
+    /**
+     * The outcome of a run.
+     */
+    @Value
+    public static class Report {
+        private int connects;
+        private int errors;
+        private Duration elapsed;
+        private long p50Micros;
+        private long p90Micros;
+        private long p99Micros;
+        private long maxMicros;
+
+        /**
+         * Returns successful connects per second.
+         * @return The throughput.
+         */
+        public double getThroughput() {
+            return connects * 1e9 / Math.max(1, elapsed.toNanos());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d connects (%d errors) in %d ms, %.1f/s, p50=%.2f ms, p90=%.2f ms, "
+                    + "p99=%.2f ms, max=%.2f ms", connects, errors, elapsed.toMillis(), getThroughput(),
+                    p50Micros / 1e3, p90Micros / 1e3, p99Micros / 1e3, maxMicros / 1e3);
+        }
+    }
+
+    private ConnectLoadDriver() {
+    }
+
+    /**
+     * Runs the clients.  All clients start together.
+     * @param clients The number of concurrent clients.
+     * @param connectsPerClient The number of connects each client makes.
+     * @param client Opens a connection (which the driver closes).
+     * @param afterConnect Called with the running total after each connect (for example to modify documents).
+     * @return The report.
+     * @throws Exception If a client thread is interrupted.
+     */
+    public static Report run(int clients, int connectsPerClient, Client client, AfterConnect afterConnect)
+            throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicLong total = new AtomicLong();
+        AtomicLong errors = new AtomicLong();
+        try {
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int idx = 0; idx < clients; idx++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    long[] latencies = new long[connectsPerClient];
+                    int count = 0;
+                    for (int connect = 0; connect < connectsPerClient; connect++) {
+                        long begin = System.nanoTime();
+                        try (Connection connection = client.connect()) {
+                            latencies[count++] = (System.nanoTime() - begin) / 1000;
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        afterConnect.accept(total.incrementAndGet());
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            long begin = System.nanoTime();
+            start.countDown();
+            List<long[]> results = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                results.add(future.get());
+            }
+            Duration elapsed = Duration.ofNanos(System.nanoTime() - begin);
+
+            long[] latencies = results.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+            return new Report(latencies.length, (int) errors.get(), elapsed,
+                    percentile(latencies, 0.50), percentile(latencies, 0.90), percentile(latencies, 0.99),
+                    latencies.length == 0 ? 0 : latencies[latencies.length - 1]);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Called after every connect with the number of connects made so far.
+     */
+    @FunctionalInterface
+    public interface AfterConnect {
+        void accept(long connects);
+    }
+
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 16;
+        int connects = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int documents = args.length > 2 ? Integer.parseInt(args[2]) : 8;
+        int rows = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        long latency = args.length > 4 ? Long.parseLong(args[4]) : 20;
+        int modifyEvery = args.length > 5 ? Integer.parseInt(args[5]) : 100;
+
+        try (GoogleApiSimulator simulator = new GoogleApiSimulator()) {
+            IntStream.range(0, documents).forEach((idx) -> simulator.addSheet("doc" + idx, "Sheet" + idx, rows, 6));
+            simulator.setLatency(Duration.ofMillis(latency));
+
+            InMemoryMetrics metrics = new InMemoryMetrics();
+            ExecutorService fetchExecutor = FetchExecutors.newFixedThreadPool(documents);
+            ExecutorService parseExecutor = FetchExecutors.newParseExecutor();
+            Driver driver = new Driver(DatabaseLoader.builder().dbName("loadDriver").metrics(metrics).build(),
+                    GoogleSheetsDataFetcher.builder()
+                            .metrics(metrics)
+                            .parseExecutor(parseExecutor)
+                            .streaming(true)
+                            .rootUrl(simulator.getRootUrl())
+                            .build(),
+                    () -> GoogleApiSimulator.CREDENTIALS, fetchExecutor, metrics);
+            String url = "jdbc:gsheet://" + IntStream.range(0, documents)
+                    .mapToObj((idx) -> "doc=(id=doc" + idx + ",range=Sheet" + idx + ")")
+                    .collect(Collectors.joining(",")) + "/Load";
+
+            Report report = run(clients, connects, () -> driver.connect(url, null), (count) -> {
+                if (modifyEvery > 0 && count % modifyEvery == 0) {
+                    simulator.modify("doc" + (count / modifyEvery) % documents);
+                }
+            });
+            System.out.println(report);
+            System.out.println("Drive requests: " + simulator.getDriveRequests()
+                    + ", Sheets requests: " + simulator.getSheetsRequests());
+            fetchExecutor.shutdownNow();
+            parseExecutor.shutdownNow();
+        }
+    }
+}
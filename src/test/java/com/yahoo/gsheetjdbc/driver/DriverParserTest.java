@@ -5,7 +5,9 @@
 package com.yahoo.gsheetjdbc.driver;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import com.yahoo.gsheetjdbc.loader.StorageMode;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
@@ -59,9 +61,56 @@ public class DriverParserTest {
         assertEquals("ffff", config3.getId());
     }
 
+    @Test
+    public void testValidUrlWithOpenEndedRanges() throws Exception {
+        String url = "jdbc:gsheet://doc=(id=abcdefg,range=Sheet1),"
+            + "doc=(id=xyz123,range=Sheet2!A:G),"
+            + "doc=(id=ffff,range=Sales (2021)!B2:D)"
+            + "/MySchema";
+
+        Iterator<DocConfig> configIt = Driver.parseUrl(url).iterator();
+
+        DocConfig config = configIt.next();
+        assertEquals("Sheet1", config.getRange());
+        assertEquals("abcdefg", config.getId());
+
+        config = configIt.next();
+        assertEquals("Sheet2!A:G", config.getRange());
+        assertEquals("xyz123", config.getId());
+
+        config = configIt.next();
+        assertEquals("Sales (2021)!B2:D", config.getRange());
+        assertEquals("ffff", config.getId());
+        assertEquals("MySchema", config.getSchema());
+    }
+
+    @Test
+    public void testValidUrlWithStorageMode() throws Exception {
+        String url = "jdbc:gsheet://doc=(id=abcdefg,range=Sheet1),doc=(id=xyz123,range=Sheet2)"
+            + "/Notes?storage=compressed";
+
+        Iterator<DocConfig> configIt = Driver.parseUrl(url).iterator();
+
+        DocConfig config = configIt.next();
+        assertEquals("abcdefg", config.getId());
+        assertEquals("Notes", config.getSchema());
+        assertEquals(StorageMode.COMPRESSED, config.getStorage());
+
+        config = configIt.next();
+        assertEquals("xyz123", config.getId());
+        assertEquals(StorageMode.COMPRESSED, config.getStorage());
+
+        assertEquals(StorageMode.OFF_HEAP, Driver.parseUrl("jdbc:gsheet://doc=(id=abc,range=Sheet1)/Notes"
+                + "?storage=off-heap").iterator().next().getStorage());
+        assertNull(Driver.parseUrl("jdbc:gsheet://doc=(id=abc,range=Sheet1)/Notes").iterator().next().getStorage());
+    }
+
     @ParameterizedTest
     @ValueSource(strings = {
             "jdbc:mysql",
+            "jdbc:gsheet://doc=(id=abc,range=Sheet1)/Notes?storage=disk",
+            "jdbc:gsheet://doc=(id=abc,range=Sheet1)/Notes?storage=",
+            "jdbc:gsheet://doc=(id=abc,range=Sheet1)/Notes?compressed",
             "jdbc:gsheet://123",
             "jdbc:gsheet://123/A1:G6",
             "jdbc:gsheet://123/A1",
@@ -0,0 +1,766 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.data.CredentialFetcher;
+import com.yahoo.gsheetjdbc.data.DataFetcher;
+import com.yahoo.gsheetjdbc.data.RowBatchQueue;
+import com.yahoo.gsheetjdbc.data.SheetRange;
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+import com.yahoo.gsheetjdbc.loader.StorageMode;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+public class DriverTest {
+
+    /**
+     * Serves synthetic sheets named after the range with an optional artificial latency.
+     */
+    static class StubDataFetcher implements DataFetcher {
+        final Map<String, String> modifiedTimes = new ConcurrentHashMap<>();
+        final AtomicInteger sheetFetches = new AtomicInteger();
+        final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        final AtomicInteger freshnessChecks = new AtomicInteger();
+        final long latencyMillis;
+        volatile long sheetLatencyMillis;
+        volatile int rows;
+
+        StubDataFetcher(long latencyMillis, int rows) {
+            this.latencyMillis = latencyMillis;
+            this.rows = rows;
+        }
+
+        @Override
+        public Result fetchDocumentSheet(CredentialFetcher credentialFetcher, String schema, String documentId,
+                                         String range) {
+            sleep(latencyMillis + sheetLatencyMillis);
+            sheetFetches.incrementAndGet();
+            ranges.add(range);
+            SheetRange sheetRange = SheetRange.parse(range);
+            String tableName = sheetRange.getSheetName();
+            if (tableName.equals("Broken")) {
+                throw new IllegalStateException("No spreadsheets returned from server.");
+            }
+
+            //Columns A and B are 'name' and 'value'.  Others are named after their column.
+            Table.TableBuilder table = Table.builder()
+                    .schema(schema)
+                    .tableName(tableName);
+            for (int column = sheetRange.getStartColumn(); column <= sheetRange.getEndColumn(); column++) {
+                table.column(Column.builder()
+                        .name(column == 0 ? "name" : column == 1 ? "value" : "col" + SheetRange.columnName(column))
+                        .type(column == 1 ? Column.ColumnType.NUMBER : Column.ColumnType.STRING)
+                        .build());
+            }
+
+            List<List<Object>> data = new ArrayList<>();
+            for (int idx = 0; idx < Math.min(rows, sheetRange.getEndRow() - sheetRange.getStartRow()); idx++) {
+                List<Object> row = new ArrayList<>();
+                for (int column = sheetRange.getStartColumn(); column <= sheetRange.getEndColumn(); column++) {
+                    row.add(column == 0 ? documentId + idx : column == 1 ? (Object) (double) idx
+                            : SheetRange.columnName(column) + idx);
+                }
+                data.add(row);
+            }
+            return Result.builder().schema(table.build()).data(data).build();
+        }
+
+        @Override
+        public String fetchLastUpdateTime(String documentId, CredentialFetcher credentialFetcher) {
+            sleep(latencyMillis);
+            freshnessChecks.incrementAndGet();
+            return modifiedTimes.getOrDefault(documentId, "2021-10-08T00:00:00.000Z");
+        }
+
+        private void sleep(long millis) {
+            try {
+                Thread.sleep(millis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    static String url(String schema, int documents) {
+        return "jdbc:gsheet://" + IntStream.range(0, documents)
+                .mapToObj((idx) -> "doc=(id=doc" + idx + ",range=Sheet" + idx + "!A1:B100)")
+                .collect(Collectors.joining(",")) + "/" + schema;
+    }
+
+    static Driver driver(StubDataFetcher fetcher, ExecutorService executor, InMemoryMetrics metrics) {
+        return new Driver(DatabaseLoader.builder().dbName("driverTest").metrics(metrics).build(), fetcher,
+                () -> () -> null, executor, metrics);
+    }
+
+    static long count(Connection connection, String table) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            ResultSet result = statement.executeQuery("SELECT COUNT(*) FROM " + table);
+            result.next();
+            return result.getLong(1);
+        }
+    }
+
+    @Test
+    public void testConnectAndReload() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 5);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), metrics);
+        String url = url("ReloadSchema", 2);
+
+        try (Connection connection = driver.connect(url, null)) {
+            assertEquals(5, count(connection, "`ReloadSchema`.`Sheet0`"));
+            assertEquals(5, count(connection, "`ReloadSchema`.`Sheet1`"));
+        }
+        assertEquals(2, fetcher.sheetFetches.get());
+
+        //Fresh documents are not fetched again.
+        driver.connect(url, null).close();
+        assertEquals(2, fetcher.sheetFetches.get());
+        assertEquals(4, fetcher.freshnessChecks.get());
+
+        //Only the modified document is reloaded.
+        fetcher.modifiedTimes.put("doc1", "2021-10-09T00:00:00.000Z");
+        driver.connect(url, null).close();
+        assertEquals(3, fetcher.sheetFetches.get());
+        assertEquals("2021-10-09T00:00:00.000Z", driver.documents.get(Driver.parseUrl(url).stream()
+                .filter((config) -> config.getId().equals("doc1")).findFirst().get()));
+
+        assertEquals(3, metrics.getCounter(MetricNames.CACHE_MISSES));
+        assertEquals(3, metrics.getCounter(MetricNames.CACHE_HITS));
+        //The refetched range has the same content, so none of its rows are inserted and the table in place is kept.
+        assertEquals(2, metrics.getCounter(MetricNames.ROWS_LOADED) / 5);
+        assertEquals(1, metrics.getCounter(MetricNames.UNCHANGED_LOADS));
+        assertEquals(2, metrics.getTimer(MetricNames.SWAP).getCount());
+        assertEquals(3, metrics.getTimer(MetricNames.CONNECT).getCount());
+    }
+
+    @Test
+    public void testFetcherWithoutModifiedTimes() throws Exception {
+        StubDataFetcher stub = new StubDataFetcher(0, 5);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        DataFetcher fetcher = (credentials, schema, id, range) -> stub.fetchDocumentSheet(credentials, schema, id,
+                range);
+        Driver driver = new Driver(DatabaseLoader.builder().dbName("noModifiedTimes").metrics(metrics).build(),
+                fetcher, () -> () -> null, FetchExecutors.newFixedThreadPool(2), metrics);
+        String url = url("NoModifiedTimes", 1);
+
+        //Without a modification time the document is fetched by every connection.
+        for (int idx = 1; idx <= 2; idx++) {
+            try (Connection connection = driver.connect(url, null)) {
+                assertEquals(5, count(connection, "`NoModifiedTimes`.`Sheet0`"));
+            }
+            assertEquals(idx, stub.sheetFetches.get());
+        }
+        assertTrue(driver.documents.isEmpty());
+    }
+
+    @Test
+    public void testFetchError() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 1);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), new InMemoryMetrics());
+        String url = "jdbc:gsheet://doc=(id=docA,range=Broken!A1:B2)/ErrorSchema";
+
+        assertThrows(IllegalStateException.class, () -> driver.connect(url, null));
+        assertTrue(driver.documents.isEmpty());
+
+        try (Connection connection = driver.connect("jdbc:gsheet://doc=(id=docB,range=Fine!A1:B2)/ErrorSchema", null);
+             Statement statement = connection.createStatement()) {
+            ResultSet result = statement.executeQuery("SELECT LAST_ERROR, REFRESH_COUNT FROM GSHEET_META.TABLES "
+                    + "WHERE SCHEMA_NAME = 'ErrorSchema' AND DOCUMENT_ID = 'docA'");
+            assertTrue(result.next());
+            assertEquals("No spreadsheets returned from server.", result.getString(1));
+            assertEquals(0, result.getLong(2));
+        }
+    }
+
+    @Test
+    public void testConcurrentFetches() throws Exception {
+        int documents = 20;
+        long latency = 200;
+        StubDataFetcher fetcher = new StubDataFetcher(latency, 10);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(documents), new InMemoryMetrics());
+
+        long start = System.currentTimeMillis();
+        driver.connect(url("ConcurrentSchema", documents), null).close();
+        long elapsed = System.currentTimeMillis() - start;
+
+        //Serially this takes 2 * documents * latency.
+        assertEquals(documents, fetcher.sheetFetches.get());
+        assertTrue(elapsed < documents * latency, "Fetches did not overlap: " + elapsed + "ms");
+    }
+
+    @Test
+    public void testConcurrentLoads() throws Exception {
+        int documents = 4;
+
+        //Every load waits for its first batch until all the others have started loading.
+        CountDownLatch loading = new CountDownLatch(documents);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+        StubDataFetcher fetcher = new StubDataFetcher(0, 10) {
+            @Override
+            public Result fetchDocumentSheet(CredentialFetcher credentialFetcher, String schema, String documentId,
+                                             String range) {
+                Result result = super.fetchDocumentSheet(credentialFetcher, schema, documentId, range);
+                RowBatchQueue batches = new RowBatchQueue(2) {
+                    private boolean started = false;
+
+                    @Override
+                    public boolean hasNext() {
+                        if (!started) {
+                            started = true;
+                            loading.countDown();
+                            try {
+                                overlapped.compareAndSet(true, loading.await(10, TimeUnit.SECONDS));
+                            } catch (InterruptedException e) {
+                                throw new IllegalStateException(e);
+                            }
+                        }
+                        return super.hasNext();
+                    }
+                };
+                batches.put(result.getData());
+                batches.finish();
+                return Result.builder().schema(result.getSchema()).batches(batches).build();
+            }
+        };
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(documents), new InMemoryMetrics());
+
+        try (Connection connection = driver.connect(url("ConcurrentLoadSchema", documents), null)) {
+            assertTrue(overlapped.get(), "Loads did not overlap");
+            for (int idx = 0; idx < documents; idx++) {
+                assertEquals(10, count(connection, "ConcurrentLoadSchema.Sheet" + idx));
+            }
+        }
+    }
+
+    @Test
+    public void testFetchTimeout() {
+        StubDataFetcher fetcher = new StubDataFetcher(5_000, 1);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.FETCH_TIMEOUT_PROPERTY, "1");
+
+        long start = System.currentTimeMillis();
+        assertThrows(SQLTimeoutException.class, () -> driver.connect(url("TimeoutSchema", 2), info));
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+
+        info.setProperty(Driver.FETCH_TIMEOUT_PROPERTY, "soon");
+        assertThrows(SQLException.class, () -> driver.connect(url("TimeoutSchema", 2), info));
+    }
+
+    @Test
+    public void testSheetFetchTimeout() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 3);
+        fetcher.sheetLatencyMillis = 5_000;
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.FETCH_TIMEOUT_PROPERTY, "1");
+        String url = url("SheetTimeoutSchema", 1);
+
+        //The freshness check answers in time, but the sheet does not.
+        long start = System.currentTimeMillis();
+        assertThrows(SQLTimeoutException.class, () -> driver.connect(url, info));
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+        assertTrue(driver.documents.isEmpty());
+
+        //The document is still stale, so the next connection fetches it.
+        fetcher.sheetLatencyMillis = 0;
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(3, count(connection, "`SheetTimeoutSchema`.`Sheet0`"));
+        }
+        assertEquals(1, driver.documents.size());
+    }
+
+    @Test
+    public void testLazyLoad() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 3);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), metrics);
+        Properties info = new Properties();
+        info.setProperty(Driver.LAZY_LOAD_PROPERTY, "true");
+
+        try (Connection connection = driver.connect(url("LazySchema", 12), info)) {
+            assertEquals(0, fetcher.freshnessChecks.get());
+            assertEquals(0, fetcher.sheetFetches.get());
+
+            //Sheet1 does not load Sheet10 or Sheet11.
+            assertEquals(3, count(connection, "`LazySchema`.`Sheet1`"));
+            assertEquals(1, fetcher.sheetFetches.get());
+
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT COUNT(*) FROM `LazySchema`.`sheet10` JOIN `LazySchema`.`Sheet11` ON TRUE")) {
+                assertEquals(3, fetcher.sheetFetches.get());
+                assertEquals(connection, statement.getConnection());
+            }
+
+            //Loaded tables are not fetched or checked again by the same connection.
+            assertEquals(3, count(connection, "`LazySchema`.`Sheet1`"));
+            assertEquals(3, fetcher.freshnessChecks.get());
+        }
+
+        //New connections check freshness again on first reference.
+        try (Connection connection = driver.connect(url("LazySchema", 12), info)) {
+            assertEquals(3, count(connection, "`LazySchema`.`Sheet1`"));
+            assertEquals(4, fetcher.freshnessChecks.get());
+            assertEquals(3, fetcher.sheetFetches.get());
+        }
+    }
+
+    @Test
+    public void testProjectionPushdown() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 4);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.PROJECTION_PUSHDOWN_PROPERTY, "true");
+        String url = "jdbc:gsheet://doc=(id=wide,range=Wide!A1:H100)/PushdownSchema";
+
+        try (Connection connection = driver.connect(url, info);
+             Statement statement = connection.createStatement()) {
+            assertEquals(0, fetcher.sheetFetches.get());
+
+            ResultSet result = statement.executeQuery("SELECT `colC` FROM `PushdownSchema`.`Wide`");
+            assertTrue(result.next());
+            assertEquals("C0", result.getString(1));
+            //The header, then only column C and the last column (to count the rows of the full range).
+            assertEquals("Wide!A1:H2", fetcher.ranges.get(0));
+            assertEquals(Set.of("Wide!C1:C100", "Wide!H1:H100"), Set.copyOf(fetcher.ranges.subList(1, 3)));
+
+            //Widened to cover column E.
+            result = statement.executeQuery("SELECT `colC`, `colE` FROM `PushdownSchema`.`Wide` WHERE `colE` = 'E3'");
+            assertTrue(result.next());
+            assertEquals("C3", result.getString(1));
+            assertEquals(Set.of("Wide!C1:E100", "Wide!H1:H100"), Set.copyOf(fetcher.ranges.subList(3, 5)));
+            assertEquals(5, fetcher.ranges.size());
+
+            //Covered columns are not fetched again.
+            assertEquals(4, count(connection, "`PushdownSchema`.`Wide`"));
+            assertEquals(5, fetcher.ranges.size());
+
+            //Spans ending at the last column need no row count.
+            result = statement.executeQuery("SELECT * FROM `PushdownSchema`.`Wide`");
+            assertEquals(8, result.getMetaData().getColumnCount());
+            assertEquals("Wide!A1:H100", fetcher.ranges.get(5));
+            assertEquals(6, fetcher.ranges.size());
+        }
+
+        //Other connections start from the widest span loaded so far.
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(4, count(connection, "`PushdownSchema`.`Wide`"));
+            assertEquals(6, fetcher.ranges.size());
+        }
+    }
+
+    /**
+     * Serves a fixed grid of strings.  Like the Sheets API, trailing empty cells are left out of each row, so a
+     * table ends at the first row without a value in the last column of the fetched range.
+     */
+    static class GridDataFetcher implements DataFetcher {
+        final List<String> ranges = Collections.synchronizedList(new ArrayList<>());
+        private final String[][] grid;
+
+        GridDataFetcher(String[][] grid) {
+            this.grid = grid;
+        }
+
+        @Override
+        public Result fetchDocumentSheet(CredentialFetcher credentialFetcher, String schema, String documentId,
+                                         String range) {
+            ranges.add(range);
+            //Like the Sheets API, open ended ranges run to the edges of the grid.
+            SheetRange sheetRange = SheetRange.parse(range).bound(grid.length, grid[0].length);
+            Table.TableBuilder table = Table.builder()
+                    .schema(schema)
+                    .tableName(sheetRange.getSheetName());
+            int columns = 0;
+            for (int column = sheetRange.getStartColumn(); column <= sheetRange.getEndColumn()
+                    && grid[0][column] != null; column++) {
+                table.column(Column.builder().name(grid[0][column]).type(Column.ColumnType.STRING).build());
+                columns++;
+            }
+
+            List<List<Object>> data = new ArrayList<>();
+            for (int row = sheetRange.getStartRow(); row < Math.min(grid.length, sheetRange.getEndRow()); row++) {
+                List<Object> values = new ArrayList<>();
+                for (int column = sheetRange.getStartColumn(); column <= sheetRange.getEndColumn(); column++) {
+                    values.add(grid[row][column]);
+                }
+                while (!values.isEmpty() && values.get(values.size() - 1) == null) {
+                    values.remove(values.size() - 1);
+                }
+                if (values.size() < columns) {
+                    break;
+                }
+                data.add(values.subList(0, columns));
+            }
+            return Result.builder().schema(table.build()).data(data).build();
+        }
+    }
+
+    static List<String> column(Connection connection, String sql) throws Exception {
+        List<String> values = new ArrayList<>();
+        try (Statement statement = connection.createStatement()) {
+            ResultSet result = statement.executeQuery(sql);
+            while (result.next()) {
+                values.add(result.getString(1));
+            }
+        }
+        return values;
+    }
+
+    @Test
+    public void testProjectionPushdownRowExtent() throws Exception {
+        //The full range ends before row 5, where column D is empty.
+        GridDataFetcher fetcher = new GridDataFetcher(new String[][] {
+                {"name", "a", "b", "c"},
+                {"n1", "a1", "b1", "c1"},
+                {"n2", null, "b2", "c2"},
+                {"n3", "a3", null, "c3"},
+                {"n4", "a4", "b4", null},
+                {"n5", "a5", "b5", "c5"},
+        });
+        Driver driver = new Driver(new DatabaseLoader("pushdownTest"), fetcher,
+                () -> () -> null, FetchExecutors.newFixedThreadPool(4), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.PROJECTION_PUSHDOWN_PROPERTY, "true");
+        String url = "jdbc:gsheet://doc=(id=grid,range=Grid!A1:D10)/GridSchema";
+        List<String> columnA = Arrays.asList("a1", null, "a3");
+        List<String> columnB = Arrays.asList("b1", "b2", null);
+
+        try (Connection connection = driver.connect(url, null)) {
+            assertEquals(columnA, column(connection, "SELECT `a` FROM `GridSchema`.`Grid`"));
+        }
+
+        try (Connection connection = driver.connect(url, info)) {
+            //Column B alone ends at row 2, so the other rows are filled in from columns B to D.
+            assertEquals(columnA, column(connection, "SELECT `a` FROM `GridSchema`.`Grid`"));
+            assertTrue(fetcher.ranges.containsAll(List.of("Grid!B1:B10", "Grid!D1:D10", "Grid!B1:D10")));
+
+            assertEquals(columnB, column(connection, "SELECT `b` FROM `GridSchema`.`Grid`"));
+            assertEquals(columnA, column(connection, "SELECT `a` FROM `GridSchema`.`Grid`"));
+            assertEquals(List.of("n1", "n2", "n3"), column(connection, "SELECT `name` FROM `GridSchema`.`Grid`"));
+        }
+
+        //Connections without pushdown still read the full table.
+        try (Connection connection = driver.connect(url, null);
+             Statement statement = connection.createStatement()) {
+            assertEquals(4, statement.executeQuery("SELECT * FROM `GridSchema`.`Grid`").getMetaData()
+                    .getColumnCount());
+            assertEquals(columnB, column(connection, "SELECT `b` FROM `GridSchema`.`Grid`"));
+        }
+    }
+
+    @Test
+    public void testProjectionPushdownWholeSheet() throws Exception {
+        GridDataFetcher fetcher = new GridDataFetcher(new String[][] {
+                {"name", "a", "b"},
+                {"n1", "a1", "b1"},
+                {"n2", "a2", "b2"},
+        });
+        Driver driver = new Driver(new DatabaseLoader("wholeSheetTest"), fetcher,
+                () -> () -> null, FetchExecutors.newFixedThreadPool(4), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.PROJECTION_PUSHDOWN_PROPERTY, "true");
+
+        try (Connection connection = driver.connect("jdbc:gsheet://doc=(id=grid,range=Grid)/WholeSheet", info)) {
+            assertEquals(List.of("a1", "a2"), column(connection, "SELECT `a` FROM `WholeSheet`.`Grid`"));
+            assertEquals(List.of("n1", "n2"), column(connection, "SELECT `name` FROM `WholeSheet`.`Grid`"));
+        }
+        assertEquals("Grid!1:2", fetcher.ranges.get(0));
+        assertTrue(fetcher.ranges.contains("Grid!B1:B"));
+    }
+
+    @Test
+    public void testStorageMode() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 5);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), new InMemoryMetrics());
+        Properties info = new Properties();
+        info.setProperty(Driver.PROJECTION_PUSHDOWN_PROPERTY, "true");
+
+        try (Connection connection = driver.connect(url("Compressed", 1) + "?storage=compressed", null)) {
+            assertEquals(5, count(connection, "`Compressed`.`Sheet0`"));
+            assertTrue(connection.getMetaData().getURL().startsWith("jdbc:h2:memFS:"));
+        }
+        //Projected documents are loaded into the database of their schema.
+        try (Connection connection = driver.connect("jdbc:gsheet://doc=(id=wide,range=Wide!A1:H100)"
+                + "/CompressedWide?storage=compressed", info)) {
+            assertEquals(5, count(connection, "`CompressedWide`.`Wide`"));
+        }
+
+        //Schemas in other storage modes live in other databases.
+        try (Connection connection = driver.connect(url("Uncompressed", 1), null)) {
+            assertEquals(5, count(connection, "`Uncompressed`.`Sheet0`"));
+            assertTrue(connection.getMetaData().getURL().startsWith("jdbc:h2:mem:"));
+            assertThrows(SQLException.class, () -> count(connection, "`Compressed`.`Sheet0`"));
+        }
+        assertNotSame(driver.loader(null), driver.loader(StorageMode.COMPRESSED));
+        assertSame(driver.loader(null), driver.loader(StorageMode.HEAP));
+    }
+
+    @Test
+    public void testResultCache() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 5);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), metrics);
+        Properties info = new Properties();
+        info.setProperty(Driver.RESULT_CACHE_PROPERTY, "true");
+        String url = url("CacheSchema", 2);
+        String sql = "SELECT SUM(`value`) FROM `CacheSchema`.`Sheet0` WHERE `value` < ?";
+
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(10.0, sum(connection, sql, 10));
+            assertEquals(0, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+            assertEquals(10.0, sum(connection, sql, 10));
+            assertEquals(1, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+
+            //Different parameters and different whitespace.
+            assertEquals(3.0, sum(connection, sql, 3));
+            assertEquals(3.0, sum(connection, "  SELECT SUM(`value`)\n FROM `CacheSchema`.`Sheet0`  WHERE `value` < ?",
+                    3));
+            assertEquals(2, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+            assertEquals(2, metrics.getCounter(MetricNames.RESULT_CACHE_MISSES));
+
+            try (Statement statement = connection.createStatement()) {
+                ResultSet result = statement.executeQuery("SELECT `name` FROM `CacheSchema`.`Sheet1` ORDER BY 1");
+                assertTrue(result.next());
+                assertEquals("doc10", result.getString("name"));
+                assertSame(connection, statement.getConnection());
+            }
+        }
+
+        //Other connections share the cache.
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(10.0, sum(connection, sql, 10));
+            assertEquals(3, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+        }
+
+        //A new version of the table is never answered from the cache.
+        fetcher.rows = 6;
+        fetcher.modifiedTimes.put("doc0", "2021-10-09T00:00:00.000Z");
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(15.0, sum(connection, sql, 10));
+            assertEquals(3, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+
+            //Writes drop every cached result.
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DELETE FROM `CacheSchema`.`Sheet0` WHERE `value` = 5");
+            }
+            assertEquals(10.0, sum(connection, sql, 10));
+            assertEquals(3, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+        }
+
+        //Connections without the property are not cached.
+        try (Connection connection = driver.connect(url, null)) {
+            assertEquals(10.0, sum(connection, sql, 10));
+            assertEquals(3, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+            assertEquals(5, metrics.getCounter(MetricNames.RESULT_CACHE_MISSES));
+        }
+
+        //Metadata, the catalog and queries without any sheet change without a table version and are never cached.
+        String refreshes = "SELECT REFRESH_COUNT FROM " + DatabaseLoader.META_TABLES + " WHERE SCHEMA_NAME = "
+                + "'CacheSchema' AND DOCUMENT_ID = 'doc0'";
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(List.of("2"), column(connection, refreshes));
+            assertEquals(List.of("2"), column(connection, refreshes));
+            assertEquals(List.of("CACHESCHEMA"), column(connection, "SELECT SCHEMA_NAME FROM "
+                    + "INFORMATION_SCHEMA.SCHEMATA WHERE SCHEMA_NAME = 'CACHESCHEMA'"));
+            assertEquals(List.of("1"), column(connection, "SELECT 1"));
+        }
+        fetcher.modifiedTimes.put("doc0", "2021-10-10T00:00:00.000Z");
+        try (Connection connection = driver.connect(url, info)) {
+            assertEquals(List.of("3"), column(connection, refreshes));
+            assertEquals(3, metrics.getCounter(MetricNames.RESULT_CACHE_HITS));
+            assertEquals(5, metrics.getCounter(MetricNames.RESULT_CACHE_MISSES));
+        }
+    }
+
+    private static double sum(Connection connection, String sql, int limit) throws Exception {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setInt(1, limit);
+            ResultSet result = statement.executeQuery();
+            assertTrue(result.next());
+            double sum = result.getDouble(1);
+            assertFalse(result.next());
+            return sum;
+        }
+    }
+
+    @Test
+    public void testPreloadFromClasspath() throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 3);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), metrics);
+        assertTrue(driver.isReady());
+
+        driver.preload("classpath:manifests/preload.txt").get();
+        assertTrue(driver.isReady());
+        assertEquals(3, fetcher.sheetFetches.get());
+        assertEquals(1, metrics.getTimer(MetricNames.PRELOAD).getCount());
+
+        //Connections find the documents already loaded.
+        try (Connection connection = driver.connect(url("PreloadSchema", 2), null)) {
+            assertEquals(3, count(connection, "`PreloadSchema`.`Sheet1`"));
+            assertEquals(3, count(connection, "`PreloadOther`.`Sheet2`"));
+        }
+        assertEquals(3, fetcher.sheetFetches.get());
+    }
+
+    @Test
+    public void testPreloadFromFile(@TempDir Path directory) throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(200, 1);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), new InMemoryMetrics());
+        Path manifest = directory.resolve("manifest.txt");
+        Files.writeString(manifest, url("FileSchema", 3) + "\n");
+
+        CompletableFuture<Void> preload = driver.preload(manifest.toString());
+        assertFalse(driver.isReady());
+        assertSame(preload, driver.getPreload());
+        preload.get();
+        assertTrue(driver.isReady());
+        assertEquals(3, fetcher.sheetFetches.get());
+    }
+
+    @Test
+    public void testPreloadFailedDocument(@TempDir Path directory) throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 3);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(4), new InMemoryMetrics());
+        Path manifest = directory.resolve("manifest.txt");
+        Files.writeString(manifest, "jdbc:gsheet://doc=(id=docA,range=Sheet0!A1:B100),"
+                + "doc=(id=docB,range=Broken!A1:B100),doc=(id=docC,range=Sheet2!A1:B100)/PartialSchema\n");
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> driver.preload(manifest.toString()).get());
+        assertTrue(error.getCause() instanceof SQLException);
+        assertFalse(driver.isReady());
+        assertEquals(3, fetcher.sheetFetches.get());
+
+        //The documents before and after the broken one are loaded.
+        try (Connection connection = driver.connect(
+                "jdbc:gsheet://doc=(id=docA,range=Sheet0!A1:B100),doc=(id=docC,range=Sheet2!A1:B100)/PartialSchema",
+                null)) {
+            assertEquals(3, count(connection, "`PartialSchema`.`Sheet0`"));
+            assertEquals(3, count(connection, "`PartialSchema`.`Sheet2`"));
+            assertEquals(List.of("No spreadsheets returned from server."), column(connection,
+                    "SELECT LAST_ERROR FROM GSHEET_META.TABLES WHERE SCHEMA_NAME = 'PartialSchema' "
+                            + "AND DOCUMENT_ID = 'docB'"));
+        }
+        assertEquals(3, fetcher.sheetFetches.get());
+
+        //The broken document was not marked fresh, so the next connection which needs it fetches it again.
+        assertThrows(IllegalStateException.class, () -> driver.connect(
+                "jdbc:gsheet://doc=(id=docB,range=Broken!A1:B100)/PartialSchema", null));
+        assertEquals(4, fetcher.sheetFetches.get());
+    }
+
+    @Test
+    public void testPreloadInvalidManifest(@TempDir Path directory) throws Exception {
+        StubDataFetcher fetcher = new StubDataFetcher(0, 1);
+        Driver driver = driver(fetcher, FetchExecutors.newFixedThreadPool(2), new InMemoryMetrics());
+        Path manifest = directory.resolve("manifest.txt");
+        Files.writeString(manifest, "# Not a URL\njdbc:gsheet://nothing\n");
+
+        ExecutionException error = assertThrows(ExecutionException.class,
+                () -> driver.preload(manifest.toString()).get());
+        assertTrue(error.getCause() instanceof SQLException);
+        assertFalse(driver.isReady());
+
+        assertThrows(ExecutionException.class,
+                () -> driver.preload(directory.resolve("missing.txt").toString()).get());
+        assertThrows(ExecutionException.class, () -> driver.preload("classpath:missing.txt").get());
+        assertEquals(0, fetcher.sheetFetches.get());
+    }
+
+    @Test
+    public void testLazyLoadTableName() {
+        assertEquals("Sheet1", LazyConnection.tableName(DocConfig.builder().range("Sheet1!A1:B2").build()));
+        assertEquals("My Sheet", LazyConnection.tableName(DocConfig.builder().range("'My Sheet'!A1:B2").build()));
+        assertEquals("Sheet1", LazyConnection.tableName(DocConfig.builder().range("Sheet1").build()));
+        assertEquals("Sheet1", LazyConnection.tableName(DocConfig.builder().range("Sheet1!A:B").build()));
+    }
+
+    @Test
+    public void testFetchExecutors() throws Exception {
+        ExecutorService executor = FetchExecutors.create();
+        assertNotNull(executor);
+        assertEquals("done", executor.submit(() -> "done").get());
+        executor.shutdown();
+
+        ExecutorService virtual = FetchExecutors.newVirtualThreadExecutor();
+        if (Runtime.version().feature() < 21) {
+            assertNull(virtual);
+        } else {
+            assertNotNull(virtual);
+            virtual.shutdown();
+        }
+    }
+
+    @Test
+    public void testBoundedFetchExecutor() throws Exception {
+        ExecutorService bounded = FetchExecutors.bounded(Executors.newCachedThreadPool(), 2);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<?>> tasks = new ArrayList<>();
+        for (int idx = 0; idx < 6; idx++) {
+            tasks.add(bounded.submit(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                release.await();
+                running.decrementAndGet();
+                return null;
+            }));
+        }
+        Thread.sleep(100);
+        assertEquals(2, running.get());
+
+        //A task cancelled while waiting for a permit never runs.
+        tasks.get(5).cancel(true);
+        release.countDown();
+        for (Future<?> task : tasks.subList(0, 5)) {
+            task.get();
+        }
+        assertEquals(2, maxRunning.get());
+        bounded.shutdown();
+        assertTrue(bounded.awaitTermination(10, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,153 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import static com.yahoo.gsheetjdbc.driver.DriverTest.count;
+import static com.yahoo.gsheetjdbc.driver.DriverTest.url;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+
+public class GSheetDataSourceTest {
+
+    @Test
+    public void testConnectionsShareCredentials() throws Exception {
+        DriverTest.StubDataFetcher fetcher = new DriverTest.StubDataFetcher(0, 4);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        AtomicInteger credentials = new AtomicInteger();
+        Driver driver = new Driver(DatabaseLoader.builder().dbName("dataSourceTest").metrics(metrics).build(),
+                fetcher, () -> {
+                    credentials.incrementAndGet();
+                    return () -> null;
+                }, FetchExecutors.newFixedThreadPool(2), metrics);
+
+        GSheetDataSource dataSource = new GSheetDataSource(driver, url("DataSourceSchema", 2), new Properties());
+        for (int idx = 0; idx < 3; idx++) {
+            try (Connection connection = dataSource.getConnection()) {
+                assertEquals(4, count(connection, "`DataSourceSchema`.`Sheet1`"));
+            }
+        }
+        assertEquals(1, credentials.get());
+        assertEquals(2, fetcher.sheetFetches.get());
+
+        //Only the first checkout within the refresh interval checks the documents for freshness.
+        assertEquals(2, fetcher.freshnessChecks.get());
+
+        //Changing the configuration parses it again but keeps the credentials.
+        dataSource.setUrl(url("DataSourceSchema", 3));
+        try (Connection connection = dataSource.getConnection("ignored", "ignored")) {
+            assertEquals(4, count(connection, "`DataSourceSchema`.`Sheet2`"));
+        }
+        assertEquals(1, credentials.get());
+        assertEquals(5, fetcher.freshnessChecks.get());
+    }
+
+    @Test
+    public void testRefreshInterval() throws Exception {
+        DriverTest.StubDataFetcher fetcher = new DriverTest.StubDataFetcher(0, 4);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        GSheetDataSource dataSource = new GSheetDataSource(
+                DriverTest.driver(fetcher, FetchExecutors.newFixedThreadPool(2), metrics),
+                url("IntervalDataSource", 2), new Properties());
+        assertEquals(GSheetDataSource.DEFAULT_REFRESH_INTERVAL, dataSource.getRefreshInterval());
+
+        dataSource.setRefreshInterval(0);
+        for (int idx = 0; idx < 3; idx++) {
+            dataSource.getConnection().close();
+        }
+        assertEquals(6, fetcher.freshnessChecks.get());
+        assertEquals(2, fetcher.sheetFetches.get());
+
+        //A changed document is seen once the interval has passed.
+        dataSource.setRefreshInterval(1);
+        fetcher.modifiedTimes.put("doc1", "2021-10-09T00:00:00.000Z");
+        fetcher.rows = 3;
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(4, count(connection, "`IntervalDataSource`.`Sheet1`"));
+        }
+        assertEquals(6, fetcher.freshnessChecks.get());
+
+        Thread.sleep(1100);
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(3, count(connection, "`IntervalDataSource`.`Sheet1`"));
+        }
+        assertEquals(8, fetcher.freshnessChecks.get());
+        assertEquals(3, fetcher.sheetFetches.get());
+    }
+
+    @Test
+    public void testLoginTimeout() {
+        DriverTest.StubDataFetcher fetcher = new DriverTest.StubDataFetcher(5_000, 2);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        GSheetDataSource dataSource = new GSheetDataSource(
+                DriverTest.driver(fetcher, FetchExecutors.newFixedThreadPool(2), metrics),
+                url("LoginTimeoutDataSource", 1), new Properties());
+        dataSource.setLoginTimeout(1);
+        assertEquals(1, dataSource.getLoginTimeout());
+
+        long start = System.currentTimeMillis();
+        assertThrows(SQLTimeoutException.class, dataSource::getConnection);
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+    }
+
+    @Test
+    public void testLazyLoadProperty() throws Exception {
+        DriverTest.StubDataFetcher fetcher = new DriverTest.StubDataFetcher(0, 2);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Properties info = new Properties();
+        info.setProperty(Driver.LAZY_LOAD_PROPERTY, "true");
+        GSheetDataSource dataSource = new GSheetDataSource(
+                DriverTest.driver(fetcher, FetchExecutors.newFixedThreadPool(2), metrics),
+                url("LazyDataSource", 5), info);
+
+        //Mutating the caller's properties does not change the data source.
+        info.setProperty(Driver.LAZY_LOAD_PROPERTY, "false");
+
+        try (Connection connection = dataSource.getConnection()) {
+            assertEquals(0, fetcher.freshnessChecks.get());
+            assertEquals(2, count(connection, "`LazyDataSource`.`Sheet3`"));
+            assertEquals(1, fetcher.sheetFetches.get());
+        }
+        assertEquals("true", dataSource.getConnectionProperties().getProperty(Driver.LAZY_LOAD_PROPERTY));
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        DriverTest.StubDataFetcher fetcher = new DriverTest.StubDataFetcher(0, 2);
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        Driver driver = DriverTest.driver(fetcher, FetchExecutors.newFixedThreadPool(2), metrics);
+
+        assertThrows(SQLException.class, () -> new GSheetDataSource(driver, null, null).getConnection());
+        assertThrows(SQLException.class,
+                () -> new GSheetDataSource(driver, "jdbc:h2:mem:test", null).getConnection());
+
+        Properties info = new Properties();
+        info.setProperty(Driver.FETCH_TIMEOUT_PROPERTY, "soon");
+        assertThrows(SQLException.class,
+                () -> new GSheetDataSource(driver, url("InvalidDataSource", 1), info).getConnection());
+        assertEquals(0, fetcher.freshnessChecks.get());
+    }
+
+    @Test
+    public void testUnwrap() throws Exception {
+        DataSource dataSource = new GSheetDataSource(url("UnwrapDataSource", 1));
+        assertTrue(dataSource.isWrapperFor(GSheetDataSource.class));
+        assertFalse(dataSource.isWrapperFor(Connection.class));
+        assertSame(dataSource, dataSource.unwrap(GSheetDataSource.class));
+        assertThrows(SQLException.class, () -> dataSource.unwrap(Connection.class));
+    }
+}
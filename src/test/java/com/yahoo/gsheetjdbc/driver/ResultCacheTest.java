@@ -0,0 +1,102 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Map;
+
+public class ResultCacheTest {
+
+    @Test
+    public void testNormalize() {
+        assertEquals("SELECT a FROM t WHERE b = 'x  y'",
+                CachingConnection.normalize("  SELECT a\n\tFROM   t WHERE b = 'x  y'  "));
+        assertEquals("SELECT 'it''s  here', `my  col`, \"other  col\" FROM t",
+                CachingConnection.normalize("SELECT 'it''s  here',   `my  col`,  \"other  col\" FROM t"));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        ResultCache cache = new ResultCache(2, 1024, metrics);
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:resultCacheTest", "", "");
+             Statement statement = connection.createStatement()) {
+            ResultSet copy = cache.put(key("SELECT 1"), statement.executeQuery("SELECT 1"));
+            assertTrue(copy.next());
+            assertEquals(1, copy.getInt(1));
+            cache.put(key("SELECT 2"), statement.executeQuery("SELECT 2"));
+
+            //Least recently used entries are evicted first.
+            assertNotNull(cache.get(key("SELECT 1")));
+            cache.put(key("SELECT 3"), statement.executeQuery("SELECT 3"));
+            assertEquals(2, cache.size());
+            assertNull(cache.get(key("SELECT 2")));
+            assertEquals(1, metrics.getCounter(MetricNames.RESULT_CACHE_EVICTIONS));
+
+            //Copies have their own cursor and closing them leaves the cached result intact.
+            ResultSet first = cache.get(key("SELECT 3"));
+            assertTrue(first.next());
+            first.close();
+            ResultSet second = cache.get(key("SELECT 3"));
+            assertTrue(second.next());
+            assertEquals(3, second.getInt(1));
+
+            //Results larger than the cache are returned but not kept.
+            ResultSet large = cache.put(key("large"),
+                    statement.executeQuery("SELECT REPEAT('x', 1000) FROM SYSTEM_RANGE(1, 2)"));
+            assertTrue(large.next());
+            assertTrue(large.next());
+            assertNull(cache.get(key("large")));
+            assertEquals(2, cache.size());
+
+            cache.clear();
+            assertEquals(0, cache.size());
+        }
+    }
+
+    @Test
+    public void testCopies() throws Exception {
+        ResultCache cache = new ResultCache(2, 1024, new InMemoryMetrics());
+
+        try (Connection connection = DriverManager.getConnection("jdbc:h2:mem:resultCacheCopies", "", "");
+             Statement statement = connection.createStatement()) {
+            cache.put(key("SELECT X"), statement.executeQuery("SELECT X, 'row' || X FROM SYSTEM_RANGE(1, 3)"));
+
+            //Every hit is a read only, scrollable result of its own.
+            ResultSet first = cache.get(key("SELECT X"));
+            assertEquals(ResultSet.CONCUR_READ_ONLY, first.getConcurrency());
+            assertEquals(2, first.getMetaData().getColumnCount());
+            assertTrue(first.last());
+            assertEquals(3, first.getInt(1));
+            assertEquals("row3", first.getString(2));
+
+            ResultSet second = cache.get(key("SELECT X"));
+            assertTrue(second.next());
+            assertEquals(1L, second.getLong(1));
+            assertTrue(first.previous());
+            assertEquals(2, first.getInt(1));
+            first.close();
+            assertTrue(second.next());
+            assertEquals("row2", second.getString(2));
+        }
+    }
+
+    private static ResultCache.Key key(String sql) {
+        return new ResultCache.Key("TEST", "PUBLIC", sql, List.of(), Map.of());
+    }
+}
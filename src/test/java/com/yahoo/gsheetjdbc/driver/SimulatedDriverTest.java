@@ -0,0 +1,158 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.driver;
+
+import static com.yahoo.gsheetjdbc.driver.DriverTest.count;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.data.GoogleApiSimulator;
+import com.yahoo.gsheetjdbc.data.GoogleSheetsDataFetcher;
+import com.yahoo.gsheetjdbc.loader.DatabaseLoader;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs the driver end to end (HTTP, JSON decoding, loading and querying) against a {@link GoogleApiSimulator}.
+ */
+public class SimulatedDriverTest {
+
+    private GoogleApiSimulator simulator;
+    private ExecutorService executor;
+    private ExecutorService parseExecutor;
+    private InMemoryMetrics metrics;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        simulator = new GoogleApiSimulator()
+                .addSheet("docA", "Sales", 250, 5)
+                .addSheet("docA", "Targets", 20, 3)
+                .addSheet("docB", "Inventory", 40, 4);
+        executor = FetchExecutors.newFixedThreadPool(2);
+        parseExecutor = FetchExecutors.newParseExecutor();
+        metrics = new InMemoryMetrics();
+    }
+
+    @AfterEach
+    public void teardown() {
+        simulator.close();
+        executor.shutdownNow();
+        parseExecutor.shutdownNow();
+    }
+
+    private Driver driver(boolean streaming) {
+        return new Driver(DatabaseLoader.builder().dbName("simulatedDriverTest").metrics(metrics).build(),
+                GoogleSheetsDataFetcher.builder()
+                        .metrics(metrics)
+                        .parseExecutor(parseExecutor)
+                        .streaming(streaming)
+                        .rootUrl(simulator.getRootUrl())
+                        .build(),
+                () -> GoogleApiSimulator.CREDENTIALS, executor, metrics);
+    }
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    public void testEndToEnd(boolean streaming) throws Exception {
+        Driver driver = driver(streaming);
+        String schema = "Simulated" + streaming;
+        String url = "jdbc:gsheet://doc=(id=docA,range=Sales!A1:E251),doc=(id=docA,range=Targets),"
+                + "doc=(id=docB,range=Inventory!A:D)/" + schema;
+
+        try (Connection connection = driver.connect(url, null);
+             Statement statement = connection.createStatement()) {
+            assertEquals(250, count(connection, "`" + schema + "`.`Sales`"));
+            assertEquals(20, count(connection, "`" + schema + "`.`Targets`"));
+            assertEquals(40, count(connection, "`" + schema + "`.`Inventory`"));
+
+            ResultSet result = statement.executeQuery("SELECT `key`, `value`, `colC`, `colD` FROM `"
+                    + schema + "`.`Sales` WHERE `key` = 'key-7-0'");
+            assertTrue(result.next());
+            assertEquals(simulator.numberValue("docA", 7, 1), result.getDouble(2));
+            assertEquals(simulator.stringValue("docA", 7, 2), result.getString(3));
+            assertEquals(simulator.numberValue("docA", 7, 3), result.getDouble(4));
+        }
+
+        //One freshness check per document and one fetch per range, plus a grid fetch for each open range.
+        assertEquals(3, simulator.getDriveRequests());
+        assertEquals(5, simulator.getSheetsRequests());
+        assertTrue(metrics.getCounter(MetricNames.BYTES_FETCHED) > 0);
+    }
+
+    @Test
+    public void testModification() throws Exception {
+        Driver driver = driver(true);
+        String url = "jdbc:gsheet://doc=(id=docA,range=Sales!A1:E251),doc=(id=docB,range=Inventory!A1:D41)/Edits";
+
+        driver.connect(url, null).close();
+        simulator.modify("docB");
+
+        try (Connection connection = driver.connect(url, null);
+             Statement statement = connection.createStatement()) {
+            ResultSet result = statement.executeQuery("SELECT `key` FROM `Edits`.`Inventory` ORDER BY `value`");
+            assertTrue(result.next());
+            assertEquals(simulator.stringValue("docB", 0, 0), result.getString(1));
+        }
+        assertEquals(3, simulator.getSheetsRequests());
+    }
+
+    @Test
+    public void testThrottling() throws Exception {
+        Driver driver = driver(true);
+        String url = "jdbc:gsheet://doc=(id=docB,range=Inventory!A1:D41)/Throttled";
+
+        simulator.throttleNext(1);
+        assertThrows(IllegalStateException.class, () -> driver.connect(url, null));
+        assertEquals(1, simulator.getThrottledRequests());
+
+        try (Connection connection = driver.connect(url, null)) {
+            assertEquals(40, count(connection, "`Throttled`.`Inventory`"));
+        }
+    }
+
+    @Test
+    public void testConcurrentLoad() throws Exception {
+        Driver driver = driver(true);
+        String url = "jdbc:gsheet://doc=(id=docA,range=Sales),doc=(id=docB,range=Inventory)/Load";
+        simulator.setLatency(Duration.ofMillis(2));
+
+        ConnectLoadDriver.Report report = ConnectLoadDriver.run(8, 10, () -> {
+            Connection connection = driver.connect(url, null);
+            count(connection, "`Load`.`Sales`");
+            return connection;
+        }, (connects) -> {
+            if (connects % 20 == 0) {
+                simulator.modify("docA");
+            }
+        });
+
+        assertEquals(80, report.getConnects());
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getP50Micros() <= report.getP90Micros());
+        assertTrue(report.getP90Micros() <= report.getP99Micros());
+        assertTrue(report.getP99Micros() <= report.getMaxMicros());
+        assertTrue(report.getThroughput() > 0);
+    }
+
+    @Test
+    public void testPercentile() {
+        long[] sorted = {1, 2, 3, 4, 5, 6, 7, 8, 9, 10};
+        assertEquals(5, ConnectLoadDriver.percentile(sorted, 0.5));
+        assertEquals(9, ConnectLoadDriver.percentile(sorted, 0.9));
+        assertEquals(10, ConnectLoadDriver.percentile(sorted, 0.99));
+        assertEquals(0, ConnectLoadDriver.percentile(new long[0], 0.5));
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.loader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ConnectionPoolTest {
+
+    private final List<Connection> opened = new ArrayList<>();
+
+    private ConnectionPool pool(int maxIdle) {
+        return new ConnectionPool(() -> {
+            Connection connection = DriverManager.getConnection("jdbc:h2:mem:poolTest;DB_CLOSE_DELAY=-1", "", "");
+            opened.add(connection);
+            return connection;
+        }, maxIdle);
+    }
+
+    @Test
+    public void testCloseReturnsToPool() throws Exception {
+        ConnectionPool pool = pool(1);
+
+        Connection first = pool.borrow();
+        Statement statement = first.createStatement();
+        ResultSet result = statement.executeQuery("SELECT 1");
+        assertSame(first, statement.getConnection());
+        first.setAutoCommit(false);
+        first.close();
+
+        assertTrue(first.isClosed());
+        assertTrue(statement.isClosed());
+        assertTrue(result.isClosed());
+        assertThrows(SQLException.class, first::createStatement);
+        assertEquals(1, pool.getIdleCount());
+
+        //The physical connection is reused with its session reset.
+        Connection second = pool.borrow();
+        assertEquals(1, opened.size());
+        assertTrue(second.getAutoCommit());
+        assertFalse(second.isClosed());
+        assertEquals(0, pool.getIdleCount());
+
+        //Connections beyond the idle limit are closed on return.
+        Connection third = pool.borrow();
+        assertEquals(2, opened.size());
+        second.close();
+        third.close();
+        assertEquals(1, pool.getIdleCount());
+        assertTrue(opened.get(1).isClosed());
+
+        pool.close();
+        assertTrue(opened.get(0).isClosed());
+        assertThrows(SQLException.class, pool::borrow);
+    }
+
+    @Test
+    public void testLoaderConnectionsArePooled() throws Exception {
+        DatabaseLoader loader = new DatabaseLoader("poolLoaderTest");
+        try {
+            Connection connection = loader.getConnection();
+            Connection unwrapped = connection.unwrap(Connection.class);
+            connection.close();
+
+            try (Connection reused = loader.getConnection()) {
+                assertSame(unwrapped, reused.unwrap(Connection.class));
+            }
+        } finally {
+            loader.close();
+        }
+    }
+}
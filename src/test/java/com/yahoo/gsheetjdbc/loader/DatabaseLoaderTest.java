@@ -5,18 +5,37 @@
 package com.yahoo.gsheetjdbc.loader;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import com.yahoo.gsheetjdbc.metrics.InMemoryMetrics;
+import com.yahoo.gsheetjdbc.metrics.MetricNames;
 import com.yahoo.gsheetjdbc.schema.Column;
 import com.yahoo.gsheetjdbc.schema.Table;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
 
 public class DatabaseLoaderTest {
 
@@ -77,6 +96,22 @@ public class DatabaseLoaderTest {
         assertEquals(expected, loader.generateTableDropStatement(table, "Foo"));
     }
 
+    @Test
+    public void testTableTruncateSql() {
+        DatabaseLoader loader = new DatabaseLoader("test");
+
+        String expected = "TRUNCATE TABLE `MySchema`.`MyTableFoo`";
+        assertEquals(expected, loader.generateTableTruncationStatement(table, "Foo"));
+    }
+
+    @Test
+    public void testTableAnalyzeSql() {
+        DatabaseLoader loader = new DatabaseLoader("test");
+
+        String expected = "ANALYZE TABLE `MySchema`.`MyTableFoo` SAMPLE_SIZE 500";
+        assertEquals(expected, loader.generateTableAnalyzeStatement(table, "Foo", 500));
+    }
+
     @Test
     public void testInsertTableSql() {
         DatabaseLoader loader = new DatabaseLoader("test");
@@ -91,6 +126,71 @@ public class DatabaseLoaderTest {
         assertEquals("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1", loader.getH2URL());
     }
 
+    @Test
+    public void testStorageModeJdbcUrl() {
+        assertEquals("jdbc:h2:mem:test;DB_CLOSE_DELAY=-1", StorageMode.HEAP.getH2URL("test"));
+        assertEquals("jdbc:h2:memFS:test;DB_CLOSE_DELAY=-1;COMPRESS=TRUE;RETENTION_TIME=0", StorageMode.COMPRESSED.getH2URL("test"));
+        assertEquals("jdbc:h2:nioMemFS:test;DB_CLOSE_DELAY=-1", StorageMode.OFF_HEAP.getH2URL("test"));
+        assertEquals("jdbc:h2:nioMemLZF:test;DB_CLOSE_DELAY=-1", StorageMode.OFF_HEAP_COMPRESSED.getH2URL("test"));
+        assertTrue(StorageMode.MAPPED_FILE.getH2URL("test").matches("jdbc:h2:nioMapped:.*gsheetjdbc-.*test;.*"));
+    }
+
+    @Test
+    public void testStorageModeProperty() {
+        try {
+            assertEquals(StorageMode.HEAP, StorageMode.fromSystemProperty());
+            System.setProperty(StorageMode.PROPERTY, "off-heap");
+            assertEquals(StorageMode.OFF_HEAP, StorageMode.fromSystemProperty());
+            System.setProperty(StorageMode.PROPERTY, "Mapped_File");
+            assertEquals(StorageMode.MAPPED_FILE, StorageMode.fromSystemProperty());
+            System.setProperty(StorageMode.PROPERTY, "compressed");
+            assertEquals(StorageMode.COMPRESSED, StorageMode.fromSystemProperty());
+            System.setProperty(StorageMode.PROPERTY, "disk");
+            assertThrows(IllegalArgumentException.class, StorageMode::fromSystemProperty);
+        } finally {
+            System.clearProperty(StorageMode.PROPERTY);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(StorageMode.class)
+    public void testStorageModes(StorageMode storageMode) throws Exception {
+        List<Object> row = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+        List<Object> changed = List.of("other", false, 2.0, LocalDate.of(2000, 1, 1),
+                LocalDateTime.of(LocalDate.of(2000, 1, 1), LocalTime.of(12, 0, 0, 0)));
+
+        DatabaseLoader loader = DatabaseLoader.builder()
+                .dbName("testStorage" + storageMode)
+                .metrics(new InMemoryMetrics())
+                .dictionaryEncoding(false)
+                .storageMode(storageMode)
+                .build();
+        try {
+            loader.refreshTempTable(table, List.of(row, row, row));
+            loader.swapTables(table);
+            assertEquals(3, count(loader, 1.0));
+
+            //Swapping in a new version replaces the old one in every mode.
+            loader.refreshTempTable(table, List.of(changed, row));
+            loader.swapTables(table);
+            assertEquals(1, count(loader, 1.0));
+            assertEquals(1, count(loader, 2.0));
+
+            try (Connection connection = loader.getConnection();
+                 PreparedStatement statement = connection.prepareStatement(
+                         "SELECT `exampleText`, `exampleDateTime` FROM `MySchema`.`MyTable` "
+                                 + "WHERE `exampleNumber` = 2.0")) {
+                ResultSet result = statement.executeQuery();
+                assertTrue(result.next());
+                assertEquals("other", result.getString(1));
+                assertEquals(LocalDateTime.of(2000, 1, 1, 12, 0), result.getObject(2, LocalDateTime.class));
+            }
+        } finally {
+            loader.close();
+        }
+    }
+
     @Test
     public void testLoad() throws Exception {
         List<Object> row1 = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
@@ -125,4 +225,485 @@ public class DatabaseLoaderTest {
             loader.close();
         }
     }
+
+    @Test
+    public void testLoadMetrics() throws Exception {
+        List<Object> row = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        DatabaseLoader loader = DatabaseLoader.builder().dbName("testMetrics").metrics(metrics).build();
+        loader.refreshTempTable(table, List.of(row, row, row));
+        loader.swapTables(table);
+        loader.close();
+
+        assertEquals(3, metrics.getCounter(MetricNames.ROWS_LOADED));
+        assertEquals(1, metrics.getTimer(MetricNames.LOAD).getCount());
+        assertEquals(1, metrics.getTimer(MetricNames.SWAP).getCount());
+    }
+
+    @Test
+    public void testUnchangedContentSkipsReload() throws Exception {
+        List<Object> row = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+        List<Object> changed = List.of("text", true, 2.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        DatabaseLoader loader = DatabaseLoader.builder().dbName("testUnchanged").metrics(metrics).build();
+        try {
+            loader.refreshTempTable(table, List.of(row, row));
+            loader.swapTables(table);
+
+            //Same content: no row is inserted, nothing is swapped, and the empty temp table is kept for the next load.
+            LoadStatistics statistics =
+                    loader.refreshTempTable(table, List.of(List.of(row), List.of(row)).iterator());
+            loader.swapTables(table);
+            assertEquals(2, statistics.getRowCount());
+            assertEquals(2, metrics.getCounter(MetricNames.ROWS_LOADED));
+            assertEquals(1, metrics.getCounter(MetricNames.UNCHANGED_LOADS));
+            assertEquals(1, metrics.getTimer(MetricNames.LOAD).getCount());
+            assertEquals(1, metrics.getTimer(MetricNames.SWAP).getCount());
+            assertEquals(2, count(loader, 1.0));
+            assertEquals(0, tempRows(loader));
+
+            //Changed content is loaded and swapped in.
+            loader.refreshTempTable(table, List.of(row, changed));
+            loader.swapTables(table);
+            assertEquals(1, metrics.getCounter(MetricNames.REUSED_TABLES));
+            assertEquals(1, metrics.getCounter(MetricNames.UNCHANGED_LOADS));
+            assertEquals(2, metrics.getTimer(MetricNames.SWAP).getCount());
+            assertEquals(1, count(loader, 1.0));
+            assertEquals(1, count(loader, 2.0));
+            assertEquals(4, metrics.getCounter(MetricNames.ROWS_LOADED));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testUnchangedContentAcrossCheckpoints() throws Exception {
+        int rows = 2 * FingerprintedBatches.CHECKPOINT_ROWS + 500;
+        List<List<Object>> records = new ArrayList<>();
+        for (int idx = 0; idx < rows; idx++) {
+            records.add(List.of("text" + idx, true, (double) idx, LocalDate.of(1999, 1, 1),
+                    LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0))));
+        }
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        DatabaseLoader loader = DatabaseLoader.builder().dbName("testCheckpoints").metrics(metrics).build();
+        try {
+            loader.refreshTempTable(table, records);
+            loader.swapTables(table);
+
+            //Batches smaller than the checkpoints: still nothing is inserted.
+            loader.refreshTempTable(table, partition(records, 300));
+            loader.swapTables(table);
+            assertEquals(rows, metrics.getCounter(MetricNames.ROWS_LOADED));
+            assertEquals(1, metrics.getCounter(MetricNames.UNCHANGED_LOADS));
+
+            //A change past the last checkpoint still loads every row, including the ones held back.
+            List<List<Object>> changed = new ArrayList<>(records);
+            changed.set(rows - 1, List.of("changed", true, -1.0, LocalDate.of(1999, 1, 1),
+                    LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0))));
+            loader.refreshTempTable(table, partition(changed, 300));
+            loader.swapTables(table);
+            assertEquals(2 * rows, metrics.getCounter(MetricNames.ROWS_LOADED));
+            assertEquals(1, count(loader, -1.0));
+            assertEquals(0, count(loader, rows - 1));
+            assertEquals(1, count(loader, 0.0));
+
+            //So does a change before the first one, and a table with a row less.
+            changed.set(0, List.of("first", true, -2.0, LocalDate.of(1999, 1, 1),
+                    LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0))));
+            loader.refreshTempTable(table, partition(changed.subList(0, rows - 1), 700));
+            loader.swapTables(table);
+            assertEquals(3 * rows - 1, metrics.getCounter(MetricNames.ROWS_LOADED));
+            assertEquals(1, count(loader, -2.0));
+            assertEquals(0, count(loader, -1.0));
+            assertEquals(1, metrics.getCounter(MetricNames.UNCHANGED_LOADS));
+        } finally {
+            loader.close();
+        }
+    }
+
+    private static Iterator<List<List<Object>>> partition(List<List<Object>> records, int size) {
+        List<List<List<Object>>> batches = new ArrayList<>();
+        for (int start = 0; start < records.size(); start += size) {
+            batches.add(records.subList(start, Math.min(records.size(), start + size)));
+        }
+        return batches.iterator();
+    }
+
+    @Test
+    public void testUnchangedColumnsReuseTempTable() throws Exception {
+        List<Object> row = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+        List<Object> changed = List.of("text", true, 2.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+        List<Object> invalid = List.of("text", true, 3.0, "not a date",
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        DatabaseLoader loader = DatabaseLoader.builder().dbName("testReuse").metrics(metrics).build();
+        try {
+            loader.refreshTempTable(table, List.of(row, row));
+            loader.swapTables(table);
+            assertNull(tempRows(loader));
+
+            //The second swap replaces a table with the same columns and keeps it, emptied, for the next load.
+            loader.refreshTempTable(table, List.of(row, changed));
+            loader.swapTables(table);
+            assertEquals(0, metrics.getCounter(MetricNames.REUSED_TABLES));
+            assertEquals(0, tempRows(loader));
+
+            loader.refreshTempTable(table, List.of(changed, changed, changed));
+            assertEquals(3, tempRows(loader));
+            loader.swapTables(table);
+            assertEquals(1, metrics.getCounter(MetricNames.REUSED_TABLES));
+            assertEquals(0, tempRows(loader));
+            assertEquals(0, count(loader, 1.0));
+            assertEquals(3, count(loader, 2.0));
+
+            //A failed load leaves the table in place, and the next load recreates the temp table.
+            assertThrows(SQLException.class, () -> loader.refreshTempTable(table, List.of(row, invalid)));
+            assertEquals(2, metrics.getCounter(MetricNames.REUSED_TABLES));
+            loader.refreshTempTable(table, List.of(row));
+            loader.swapTables(table);
+            assertEquals(2, metrics.getCounter(MetricNames.REUSED_TABLES));
+            assertEquals(1, count(loader, 1.0));
+            assertEquals(0, count(loader, 2.0));
+
+            //Different columns are never loaded into the kept table.
+            Table extended = Table.builder()
+                    .schema(table.getSchema())
+                    .tableName(table.getTableName())
+                    .columns(table.getColumns())
+                    .column(Column.builder().name("exampleExtra").type(Column.ColumnType.STRING).build())
+                    .build();
+            List<Object> extendedRow = new ArrayList<>(changed);
+            extendedRow.add("extra");
+            loader.refreshTempTable(extended, List.of(extendedRow));
+            loader.swapTables(extended);
+            assertEquals(2, metrics.getCounter(MetricNames.REUSED_TABLES));
+            assertNull(tempRows(loader));
+            assertEquals(1, count(loader, 2.0));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int idx = 0; idx < 100; idx++) {
+            rows.add(List.of("text", idx % 2 == 0, (double) idx, LocalDate.of(1999, 1, 1),
+                    LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0))));
+        }
+
+        //Too few rows for H2 to gather statistics while inserting: every column has the default selectivity.
+        DatabaseLoader loader = DatabaseLoader.builder()
+                .dbName("testNoAnalyze")
+                .metrics(new InMemoryMetrics())
+                .dictionaryEncoding(false)
+                .storageMode(StorageMode.HEAP)
+                .analyzeSampleRows(0)
+                .build();
+        try {
+            loader.refreshTempTable(table, rows);
+            loader.swapTables(table);
+            assertEquals(50, selectivity(loader, "exampleText"));
+            assertEquals(50, selectivity(loader, "exampleNumber"));
+        } finally {
+            loader.close();
+        }
+
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        loader = DatabaseLoader.builder()
+                .dbName("testAnalyze")
+                .metrics(metrics)
+                .dictionaryEncoding(false)
+                .storageMode(StorageMode.HEAP)
+                .analyzeSampleRows(1000)
+                .build();
+        try {
+            loader.refreshTempTable(table, rows);
+            loader.swapTables(table);
+            assertEquals(1, selectivity(loader, "exampleText"));
+            assertEquals(100, selectivity(loader, "exampleNumber"));
+            assertEquals(1, metrics.getTimer(MetricNames.ANALYZE).getCount());
+        } finally {
+            loader.close();
+        }
+    }
+
+    private static int selectivity(DatabaseLoader loader, String column) throws Exception {
+        try (Connection connection = loader.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT SELECTIVITY FROM INFORMATION_SCHEMA.COLUMNS "
+                             + "WHERE TABLE_SCHEMA = 'MYSCHEMA' AND TABLE_NAME = 'MYTABLE' AND COLUMN_NAME = ?")) {
+            statement.setString(1, column.toUpperCase());
+            ResultSet result = statement.executeQuery();
+            assertTrue(result.next());
+            return result.getInt(1);
+        }
+    }
+
+    private static Integer tempRows(DatabaseLoader loader) throws Exception {
+        try (Connection connection = loader.getConnection()) {
+            if (!connection.getMetaData().getTables(null, "MYSCHEMA", "MYTABLETEMP", null).next()) {
+                return null;
+            }
+            ResultSet result = connection.createStatement().executeQuery(
+                    "SELECT COUNT(*) FROM `MySchema`.`MyTableTemp`");
+            assertTrue(result.next());
+            return result.getInt(1);
+        }
+    }
+
+    @Test
+    public void testContentFingerprint() {
+        List<Object> row = Arrays.asList("a", 1.0, null, true);
+
+        assertEquals(fingerprint(List.of(row, row)), fingerprint(List.of(row, row)));
+        assertNotEquals(fingerprint(List.of(row, row)), fingerprint(List.of(row)));
+        assertNotEquals(fingerprint(List.of(row)), fingerprint(List.of(Arrays.asList("a", 1.0, null, false))));
+        //Same values in different cells.
+        assertNotEquals(fingerprint(List.of(List.of("ab", "c"))), fingerprint(List.of(List.of("a", "bc"))));
+        assertNotEquals(fingerprint(List.of(List.of("a", "b"))), fingerprint(List.of(List.of("a"), List.of("b"))));
+        //Same text with a different type.
+        assertNotEquals(fingerprint(List.of(List.of("1999-01-01"))),
+                fingerprint(List.of(List.of(LocalDate.of(1999, 1, 1)))));
+        assertNotEquals(fingerprint(List.of(List.of(LocalDate.of(1999, 1, 1)))),
+                fingerprint(List.of(List.of(LocalDateTime.of(1999, 1, 1, 0, 0)))));
+        //Dates and times to the nanosecond.
+        assertEquals(fingerprint(List.of(List.of(LocalDateTime.of(1999, 1, 1, 0, 0, 0, 1)))),
+                fingerprint(List.of(List.of(LocalDateTime.of(1999, 1, 1, 0, 0, 0, 1)))));
+        assertNotEquals(fingerprint(List.of(List.of(LocalDateTime.of(1999, 1, 1, 0, 0, 0, 1)))),
+                fingerprint(List.of(List.of(LocalDateTime.of(1999, 1, 1, 0, 0, 0, 2)))));
+        assertNotEquals(fingerprint(List.of(List.of(LocalDate.of(1999, 1, 1)))),
+                fingerprint(List.of(List.of(LocalDate.of(1999, 1, 2)))));
+        assertNotEquals(fingerprint(List.of(List.of(LocalTime.of(1, 0)))),
+                fingerprint(List.of(List.of(LocalTime.of(2, 0)))));
+    }
+
+    private long fingerprint(List<List<Object>> rows) {
+        ContentFingerprint fingerprint = new ContentFingerprint(table);
+        fingerprint.update(rows);
+        return fingerprint.getValue();
+    }
+
+    private static int count(DatabaseLoader loader, double value) throws Exception {
+        try (Connection connection = loader.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT COUNT(*) FROM `MySchema`.`MyTable` WHERE `exampleNumber` = ?")) {
+            statement.setDouble(1, value);
+            ResultSet result = statement.executeQuery();
+            assertTrue(result.next());
+            return result.getInt(1);
+        }
+    }
+
+    @Test
+    public void testDictionaryEncoding() throws Exception {
+        List<Object> row1 = List.of("East", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+        List<Object> row2 = List.of("West", true, 2.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+
+        DatabaseLoader loader = DatabaseLoader.builder()
+                .dbName("testDictionary")
+                .metrics(new InMemoryMetrics())
+                .dictionaryEncoding(true)
+                .build();
+        loader.refreshTempTable(table, List.of(row1, row2, row1, Arrays.asList("", false, 3.0, null, null)));
+        loader.swapTables(table);
+
+        //Encoded strings behave like any other VARCHAR.
+        try (Connection connection = loader.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT `exampleText`, COUNT(*) "
+                     + "FROM `MySchema`.`MyTable` WHERE `exampleText` IN ('East', 'West', '', 'North') "
+                     + "GROUP BY `exampleText` ORDER BY `exampleText`")) {
+            ResultSet result = statement.executeQuery();
+            assertTrue(result.next());
+            assertEquals("", result.getString(1));
+            assertEquals(1, result.getInt(2));
+            assertTrue(result.next());
+            assertEquals("East", result.getString(1));
+            assertEquals(2, result.getInt(2));
+            assertTrue(result.next());
+            assertEquals("West", result.getString(1));
+            assertEquals(1, result.getInt(2));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testStringDictionary() {
+        StringDictionary dictionary = new StringDictionary();
+
+        Object east = dictionary.encode(2, new String("East"));
+        assertSame(east, dictionary.encode(2, new String("East")));
+        dictionary.encode(0, "East");
+        assertEquals(1, dictionary.size(0));
+        assertEquals(0, dictionary.size(1));
+        assertEquals(1, dictionary.size(2));
+        assertEquals(0, dictionary.size(3));
+
+        //Full dictionaries pass new strings through.
+        for (int idx = 1; idx < StringDictionary.MAX_ENTRIES_PER_COLUMN; idx++) {
+            dictionary.encode(2, String.valueOf(idx));
+        }
+        assertEquals(StringDictionary.MAX_ENTRIES_PER_COLUMN, dictionary.size(2));
+        assertEquals("unique", dictionary.encode(2, "unique"));
+        assertSame(east, dictionary.encode(2, "East"));
+    }
+
+    @Test
+    public void testBatchLoad() throws Exception {
+        List<Object> row = List.of("text", true, 1.0, LocalDate.of(1999, 1, 1),
+                LocalDateTime.of(LocalDate.of(1999, 1, 1), LocalTime.of(0, 0, 0, 0)));
+
+        DatabaseLoader loader = new DatabaseLoader("testBatches");
+        LoadStatistics statistics = loader.refreshTempTable(table,
+                List.of(List.of(row, row), List.of(row), List.of(row, row)).iterator());
+        loader.swapTables(table);
+
+        assertEquals(5, statistics.getRowCount());
+        assertEquals(DatabaseLoader.estimateSize(List.of(row, row, row, row, row)), statistics.getApproximateBytes());
+
+        try (Connection connection = loader.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT COUNT(*) FROM `MySchema`.`MyTable`;")) {
+            ResultSet result = statement.executeQuery();
+            assertTrue(result.next());
+            assertEquals(5, result.getInt(1));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testRefreshStatistics() throws Exception {
+        DatabaseLoader loader = new DatabaseLoader("testMeta");
+        RefreshStatistics statistics = RefreshStatistics.builder()
+                .schema("MySchema")
+                .documentId("docId")
+                .range("MyTable!A1:E3")
+                .tableName("MyTable")
+                .modifiedTime("2021-10-08T00:00:00.000Z")
+                .refreshMillis(25)
+                .rowCount(2)
+                .approximateBytes(100)
+                .build();
+
+        loader.recordRefresh(statistics);
+        loader.recordRefreshError("MySchema", "docId", "MyTable!A1:E3", "Quota exceeded");
+        loader.recordRefresh(statistics);
+        loader.recordRefreshError("MySchema", "otherDoc", "Other!A1:B2", "Not found");
+
+        try (Connection connection = loader.getConnection();
+             PreparedStatement statement = connection.prepareStatement(
+                     "SELECT TABLE_NAME, MODIFIED_TIME, ROW_COUNT, APPROXIMATE_BYTES, REFRESH_COUNT, LAST_ERROR "
+                             + "FROM GSHEET_META.TABLES ORDER BY DOCUMENT_ID")) {
+            ResultSet result = statement.executeQuery();
+
+            assertTrue(result.next());
+            assertEquals("MyTable", result.getString(1));
+            assertEquals("2021-10-08T00:00:00.000Z", result.getString(2));
+            assertEquals(2, result.getLong(3));
+            assertEquals(100, result.getLong(4));
+            assertEquals(2, result.getLong(5));
+            assertNull(result.getString(6));
+
+            assertTrue(result.next());
+            assertNull(result.getString(1));
+            assertEquals(0, result.getLong(5));
+            assertEquals("Not found", result.getString(6));
+        } finally {
+            loader.close();
+        }
+    }
+
+    @Test
+    public void testEstimateSize() {
+        List<Object> row = Arrays.asList("abcd", 1.0, null, true);
+        assertEquals(2 * (8 + 8 + 8), DatabaseLoader.estimateSize(List.of(row, row)));
+    }
+
+    @Test
+    public void testParallelLoad() throws Exception {
+        int tables = 4;
+        int rows = 5_000;
+        DatabaseLoader loader = new DatabaseLoader("parallelLoadTest");
+        ExecutorService executor = Executors.newFixedThreadPool(tables);
+
+        //Every load waits inside refreshTempTable until all the others have started inserting.
+        CountDownLatch loading = new CountDownLatch(tables);
+        AtomicBoolean overlapped = new AtomicBoolean(true);
+
+        try {
+            List<Future<LoadStatistics>> loads = new ArrayList<>();
+            for (int idx = 0; idx < tables; idx++) {
+                Table parallelTable = Table.builder()
+                        .schema("Parallel")
+                        .tableName("Table" + idx)
+                        .columns(table.getColumns())
+                        .build();
+                List<List<Object>> records = new ArrayList<>();
+                for (int row = 0; row < rows; row++) {
+                    records.add(Arrays.asList("row" + row, row % 2 == 0, (double) row + idx, null, null));
+                }
+                Iterator<List<List<Object>>> batches = IntStream.range(0, rows / 1000)
+                        .mapToObj((batch) -> records.subList(batch * 1000, (batch + 1) * 1000))
+                        .iterator();
+
+                loads.add(executor.submit(() -> {
+                    LoadStatistics statistics = loader.refreshTempTable(parallelTable, new Iterator<>() {
+                        private boolean started = false;
+
+                        @Override
+                        public boolean hasNext() {
+                            return batches.hasNext();
+                        }
+
+                        @Override
+                        public List<List<Object>> next() {
+                            if (!started) {
+                                started = true;
+                                loading.countDown();
+                                try {
+                                    if (!loading.await(10, TimeUnit.SECONDS)) {
+                                        overlapped.set(false);
+                                    }
+                                } catch (InterruptedException e) {
+                                    throw new IllegalStateException(e);
+                                }
+                            }
+                            return batches.next();
+                        }
+                    });
+                    loader.swapTables(parallelTable);
+                    return statistics;
+                }));
+            }
+            for (Future<LoadStatistics> load : loads) {
+                assertEquals(rows, load.get().getRowCount());
+            }
+            assertTrue(overlapped.get(), "Loads of different tables did not run concurrently");
+
+            try (Connection connection = loader.getConnection()) {
+                for (int idx = 0; idx < tables; idx++) {
+                    ResultSet result = connection.createStatement().executeQuery(
+                            "SELECT COUNT(*), SUM(`exampleNumber`) FROM `Parallel`.`Table" + idx + "`");
+                    assertTrue(result.next());
+                    assertEquals(rows, result.getLong(1));
+                    assertEquals((double) rows * (rows - 1) / 2 + idx * rows, result.getDouble(2));
+                }
+            }
+        } finally {
+            executor.shutdown();
+            loader.close();
+        }
+    }
 }
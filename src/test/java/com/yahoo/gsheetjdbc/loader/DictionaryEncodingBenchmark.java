@@ -0,0 +1,124 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Reports the heap retained by a loaded table with and without dictionary encoding.  Heap usage is a footprint
+ * rather than a throughput, so this runs as a plain program (one JVM per mode) instead of a JMH benchmark:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.DictionaryEncodingBenchmark [rows]
+ * </pre>
+ * The fixture resembles a tracking sheet: a handful of regions and statuses, a few dozen teams, a couple of
+ * thousand owners, a unique description per row, an amount and a date.
+ */
+public class DictionaryEncodingBenchmark {
+
+    private static final String[] REGIONS = {"North America", "South America", "Europe", "Middle East", "Africa",
+        "Asia Pacific"};
+    private static final String[] STATUSES = {"Open", "In Progress", "Blocked", "Resolved", "Closed"};
+
+    static final Table TABLE = Table.builder()
+            .schema("Benchmark")
+            .tableName("Tracker")
+            .column(Column.builder().name("Region").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Team").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Owner").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Status").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Description").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Amount").type(Column.ColumnType.NUMBER).build())
+            .column(Column.builder().name("Due").type(Column.ColumnType.DATE).build())
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        for (boolean dictionary : new boolean[] {false, true}) {
+            //Each mode runs in a fresh process so earlier loads do not skew the heap.
+            Process process = new ProcessBuilder(System.getProperty("java.home") + "/bin/java",
+                    "-cp", System.getProperty("java.class.path"),
+                    DictionaryEncodingBenchmark.class.getName() + "$Measure",
+                    String.valueOf(rows), String.valueOf(dictionary))
+                    .inheritIO()
+                    .start();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Loads the fixture once and prints the retained heap.
+     */
+    public static class Measure {
+        public static void main(String[] args) throws Exception {
+            int rows = Integer.parseInt(args[0]);
+            boolean dictionary = Boolean.parseBoolean(args[1]);
+
+            DatabaseLoader loader = DatabaseLoader.builder()
+                    .dbName("dictionaryBenchmark")
+                    .dictionaryEncoding(dictionary)
+                    .build();
+            loader.refreshTempTable(TABLE, List.of(List.<Object>of("warmup", "", "", "", "", 0.0,
+                    LocalDate.of(2021, 1, 1))));
+            loader.swapTables(TABLE);
+
+            long before = usedHeap();
+            loader.refreshTempTable(TABLE, batches(rows));
+            loader.swapTables(TABLE);
+            long after = usedHeap();
+
+            System.out.printf("dictionary=%s rows=%d retainedMB=%.1f%n", dictionary, rows,
+                    (after - before) / 1e6);
+            loader.close();
+        }
+    }
+
+    static Iterator<List<List<Object>>> batches(int rows) {
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public List<List<Object>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<List<Object>> batch = new ArrayList<>();
+                for (; next < rows && batch.size() < 1000; next++) {
+                    //New string instances per row, as the JSON parser produces them.
+                    batch.add(List.of(
+                            new String(REGIONS[next % REGIONS.length]),
+                            "Team " + (next % 40),
+                            "owner" + (next * 7919 % 2000) + "@example.com",
+                            new String(STATUSES[next % STATUSES.length]),
+                            "Tracking item number " + next,
+                            next * 1.5,
+                            LocalDate.of(2021, 1, 1).plusDays(next % 365)));
+                }
+                return batch;
+            }
+        };
+    }
+
+    static long usedHeap() throws InterruptedException {
+        Runtime runtime = Runtime.getRuntime();
+        for (int idx = 0; idx < 5; idx++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
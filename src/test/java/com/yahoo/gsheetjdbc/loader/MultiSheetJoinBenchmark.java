@@ -0,0 +1,134 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compares join queries across several loaded sheets with and without gathering column statistics after each load
+ * ({@link DatabaseLoader#ANALYZE_SAMPLE_PROPERTY}):
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.MultiSheetJoinBenchmark [orders] [customers] [queries per kind]
+ * </pre>
+ * Three sheets are loaded: orders referencing customers, customers referencing one of 8 regions, and the regions.
+ * Each configuration reports the load time, the median time of each query and whether H2 chose the same plan.
+ */
+public class MultiSheetJoinBenchmark {
+
+    private static final Table ORDERS = table("Orders", "Id", "Customer", "Amount", "Status");
+    private static final Table CUSTOMERS = table("Customers", "Id", "Region", "Name");
+    private static final Table REGIONS = table("Regions", "Id", "Name");
+
+    private static final String[] QUERIES = {
+        //Open orders of one region.
+        "SELECT r.`Name`, SUM(o.`Amount`) FROM `Benchmark`.`Orders` o "
+                + "JOIN `Benchmark`.`Customers` c ON o.`Customer` = c.`Id` "
+                + "JOIN `Benchmark`.`Regions` r ON c.`Region` = r.`Id` "
+                + "WHERE o.`Status` = 'Open' AND r.`Name` = 'Region %d' GROUP BY r.`Name`",
+        //Customers of one region, written with the large table first.
+        "SELECT COUNT(*) FROM `Benchmark`.`Customers` c JOIN `Benchmark`.`Regions` r ON c.`Region` = r.`Id` "
+                + "WHERE r.`Name` = 'Region %d'",
+        //Order count per customer of one region.
+        "SELECT c.`Name`, COUNT(*) FROM `Benchmark`.`Customers` c "
+                + "JOIN `Benchmark`.`Orders` o ON o.`Customer` = c.`Id` "
+                + "WHERE c.`Region` = %d GROUP BY c.`Name`",
+    };
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+        int customers = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int queries = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        //Each configuration runs twice; the first round warms up the JIT.
+        int[] configurations = {0, 10000, 0, 10000};
+        List<String> plans = null;
+        for (int run = 0; run < configurations.length; run++) {
+            int sampleRows = configurations[run];
+            DatabaseLoader loader = DatabaseLoader.builder()
+                    .dbName("joinBenchmark" + run)
+                    .dictionaryEncoding(false)
+                    .storageMode(StorageMode.HEAP)
+                    .analyzeSampleRows(sampleRows)
+                    .build();
+            long start = System.nanoTime();
+            load(loader, ORDERS, orders, idx -> List.of((double) idx, (double) (idx % customers),
+                    (double) (idx % 97), idx % 50 == 0 ? "Open" : "Closed"));
+            load(loader, CUSTOMERS, customers, idx -> List.of((double) idx, (double) (idx % 8), "Customer " + idx));
+            load(loader, REGIONS, 8, idx -> List.of((double) idx, "Region " + idx));
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+
+            try (Connection connection = loader.getConnection()) {
+                List<String> explained = new ArrayList<>();
+                StringBuilder medians = new StringBuilder();
+                for (int kind = 0; kind < QUERIES.length; kind++) {
+                    explained.add(first(connection, "EXPLAIN " + String.format(QUERIES[kind], 0)));
+                    long[] micros = new long[queries];
+                    for (int idx = 0; idx < queries; idx++) {
+                        //Varied so that H2 does not return the previous result of an identical query.
+                        String sql = String.format(QUERIES[kind], idx % 8);
+                        long begin = System.nanoTime();
+                        first(connection, sql);
+                        micros[idx] = (System.nanoTime() - begin) / 1000;
+                    }
+                    Arrays.sort(micros);
+                    medians.append(String.format(" q%d=%.1f ms", kind + 1, micros[queries / 2] / 1e3));
+                }
+                System.out.printf("analyzeSampleRows=%d loadMs=%d%s samePlans=%s%n", sampleRows, loadMillis,
+                        medians, plans == null ? "-" : plans.equals(explained));
+                plans = explained;
+            }
+            loader.close();
+        }
+    }
+
+    /**
+     * Produces the values of one row.
+     */
+    @FunctionalInterface
+    interface Row {
+        List<Object> values(int idx);
+    }
+
+    private static void load(DatabaseLoader loader, Table table, int rows, Row row) throws Exception {
+        List<List<Object>> records = new ArrayList<>();
+        for (int idx = 0; idx < rows; idx++) {
+            records.add(row.values(idx));
+        }
+        loader.refreshTempTable(table, records);
+        loader.swapTables(table);
+    }
+
+    private static String first(Connection connection, String sql) throws Exception {
+        try (Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery(sql)) {
+            String value = null;
+            while (result.next()) {
+                value = value == null ? result.getString(1) : value;
+            }
+            return value;
+        }
+    }
+
+    private static Table table(String name, String... columns) {
+        Table.TableBuilder builder = Table.builder().schema("Benchmark").tableName(name);
+        for (String column : columns) {
+            builder.column(Column.builder()
+                    .name(column)
+                    .type(column.equals("Name") || column.equals("Status")
+                            ? Column.ColumnType.STRING : Column.ColumnType.NUMBER)
+                    .build());
+        }
+        return builder.build();
+    }
+}
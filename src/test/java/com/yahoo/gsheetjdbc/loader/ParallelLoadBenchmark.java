@@ -0,0 +1,104 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Compares loading many tables one at a time with loading them all at once:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.ParallelLoadBenchmark [tables] [rows] [rounds]
+ * </pre>
+ * Each round loads every table serially and then concurrently, and the median time of each is reported.  With more
+ * than one core the concurrent loads should finish well ahead of the serial ones.
+ */
+public class ParallelLoadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int tables = args.length > 0 ? Integer.parseInt(args[0]) : 2 * Runtime.getRuntime().availableProcessors();
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 20_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        DatabaseLoader loader = DatabaseLoader.builder()
+                .dbName("parallelLoadBenchmark")
+                .dictionaryEncoding(false)
+                .storageMode(StorageMode.HEAP)
+                .build();
+        ExecutorService executor = Executors.newFixedThreadPool(tables);
+        long[] serial = new long[rounds];
+        long[] parallel = new long[rounds];
+        try {
+            //Warms up the JIT.
+            load(loader, executor, tables, rows, tables);
+            for (int round = 0; round < rounds; round++) {
+                serial[round] = load(loader, executor, tables, rows, 1);
+                parallel[round] = load(loader, executor, tables, rows, tables);
+            }
+        } finally {
+            executor.shutdown();
+            loader.close();
+        }
+        Arrays.sort(serial);
+        Arrays.sort(parallel);
+        System.out.printf("tables=%d rows=%d serial p50=%d ms parallel p50=%d ms%n", tables, rows,
+                serial[rounds / 2], parallel[rounds / 2]);
+    }
+
+    private static long load(
+            DatabaseLoader loader,
+            ExecutorService executor,
+            int tables,
+            int rows,
+            int concurrency
+    ) throws Exception {
+        //A different first row every time, so the content fingerprint never skips a load.
+        long nonce = System.nanoTime();
+        List<List<Object>> records = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            records.add(List.of("row" + row, row % 2 == 0, (double) (row == 0 ? nonce : row)));
+        }
+
+        long start = System.currentTimeMillis();
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<?>> loads = new ArrayList<>();
+        for (int idx = 0; idx < tables; idx++) {
+            Table table = table(idx);
+            loads.add(executor.submit(() -> {
+                permits.acquire();
+                try {
+                    loader.refreshTempTable(table, records);
+                    loader.swapTables(table);
+                    return null;
+                } finally {
+                    permits.release();
+                }
+            }));
+        }
+        for (Future<?> load : loads) {
+            load.get();
+        }
+        return System.currentTimeMillis() - start;
+    }
+
+    private static Table table(int idx) {
+        return Table.builder()
+                .schema("Benchmark")
+                .tableName("Table" + idx)
+                .column(Column.builder().name("Name").type(Column.ColumnType.STRING).build())
+                .column(Column.builder().name("Even").type(Column.ColumnType.BOOLEAN).build())
+                .column(Column.builder().name("Amount").type(Column.ColumnType.NUMBER).build())
+                .build();
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Times reloading small sheets whose columns never change, the case where creating and dropping tables costs
+ * more than inserting the rows:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.ReloadBenchmark [reloads] [tables]
+ * </pre>
+ * Every reload changes one cell, so the content fingerprint never skips it.  The tables are reloaded round robin
+ * and the mean, median and 99th percentile time of a load plus swap are reported for each table size.
+ */
+public class ReloadBenchmark {
+
+    private static final int[] ROWS = {10, 100, 1000};
+
+    public static void main(String[] args) throws Exception {
+        int reloads = args.length > 0 ? Integer.parseInt(args[0]) : 5000;
+        int tables = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        for (int rows : ROWS) {
+            DatabaseLoader loader = DatabaseLoader.builder()
+                    .dbName("reloadBenchmark" + rows)
+                    .dictionaryEncoding(false)
+                    .storageMode(StorageMode.HEAP)
+                    .build();
+            //Warms up the JIT.
+            reload(loader, tables, rows, reloads / 5);
+            long[] micros = reload(loader, tables, rows, reloads);
+            Arrays.sort(micros);
+            System.out.printf("rows=%d tables=%d reloads=%d mean=%.0f us p50=%d us p99=%d us%n", rows, tables,
+                    reloads, Arrays.stream(micros).average().orElse(0), micros[reloads / 2],
+                    micros[(int) Math.ceil(reloads * 0.99) - 1]);
+            loader.close();
+        }
+    }
+
+    private static long[] reload(DatabaseLoader loader, int tables, int rows, int reloads) throws Exception {
+        long[] micros = new long[reloads];
+        for (int idx = 0; idx < reloads; idx++) {
+            Table table = table(idx % tables);
+            List<List<Object>> records = new ArrayList<>();
+            for (int row = 0; row < rows; row++) {
+                records.add(List.of("Item " + row, (double) (row == 0 ? idx : row), row % 2 == 0));
+            }
+            long start = System.nanoTime();
+            loader.refreshTempTable(table, records);
+            loader.swapTables(table);
+            micros[idx] = (System.nanoTime() - start) / 1000;
+        }
+        return micros;
+    }
+
+    private static Table table(int idx) {
+        return Table.builder()
+                .schema("Benchmark")
+                .tableName("Sheet" + idx)
+                .column(Column.builder().name("Name").type(Column.ColumnType.STRING).build())
+                .column(Column.builder().name("Amount").type(Column.ColumnType.NUMBER).build())
+                .column(Column.builder().name("Done").type(Column.ColumnType.BOOLEAN).build())
+                .build();
+    }
+}
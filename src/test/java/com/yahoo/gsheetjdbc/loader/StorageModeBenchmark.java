@@ -0,0 +1,162 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Table;
+import com.sun.management.GarbageCollectionNotificationInfo;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import javax.management.NotificationEmitter;
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Compares the heap retained by loaded tables and the garbage collection pauses under a sustained query load for
+ * every {@link StorageMode}.  Each mode runs in a fresh JVM with the same heap limit:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.StorageModeBenchmark [rows per table] [tables] [seconds] [threads]
+ *     [max heap]
+ * </pre>
+ * The tables use the {@link DictionaryEncodingBenchmark} fixture.  The query mix is a grouped aggregate, a
+ * point lookup on an unindexed column and a range filter, run back to back by every thread.
+ */
+public class StorageModeBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        String rows = args.length > 0 ? args[0] : "200000";
+        String tables = args.length > 1 ? args[1] : "4";
+        String seconds = args.length > 2 ? args[2] : "30";
+        String threads = args.length > 3 ? args[3] : "4";
+        String heap = args.length > 4 ? args[4] : "1g";
+        for (StorageMode mode : StorageMode.values()) {
+            Process process = new ProcessBuilder(System.getProperty("java.home") + "/bin/java", "-Xmx" + heap,
+                    "-XX:+UseG1GC", "-cp", System.getProperty("java.class.path"),
+                    StorageModeBenchmark.class.getName() + "$Measure",
+                    mode.name(), rows, tables, seconds, threads)
+                    .inheritIO()
+                    .start();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Loads the tables in one storage mode, then queries them and reports heap and pauses.
+     */
+    public static class Measure {
+        private static final AtomicLong PAUSES = new AtomicLong();
+        private static final AtomicLong PAUSE_MILLIS = new AtomicLong();
+        private static final LongAccumulator MAX_PAUSE_MILLIS = new LongAccumulator(Math::max, 0);
+
+        public static void main(String[] args) throws Exception {
+            StorageMode mode = StorageMode.valueOf(args[0]);
+            int rows = Integer.parseInt(args[1]);
+            int tables = Integer.parseInt(args[2]);
+            long seconds = Long.parseLong(args[3]);
+            int threads = Integer.parseInt(args[4]);
+
+            DatabaseLoader loader = DatabaseLoader.builder()
+                    .dbName("storageBenchmark")
+                    .dictionaryEncoding(false)
+                    .storageMode(mode)
+                    .build();
+            long before = DictionaryEncodingBenchmark.usedHeap();
+            long start = System.nanoTime();
+            for (int idx = 0; idx < tables; idx++) {
+                Table table = table(idx);
+                loader.refreshTempTable(table, DictionaryEncodingBenchmark.batches(rows));
+                loader.swapTables(table);
+            }
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            long retained = DictionaryEncodingBenchmark.usedHeap() - before;
+
+            listenForPauses();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            List<Future<Long>> clients = new ArrayList<>();
+            for (int idx = 0; idx < threads; idx++) {
+                clients.add(executor.submit(() -> query(loader, tables, rows, deadline)));
+            }
+            long queries = 0;
+            for (Future<Long> client : clients) {
+                queries += client.get();
+            }
+            executor.shutdown();
+
+            System.out.printf("mode=%s rows=%d retainedMB=%.1f loadMs=%d queries/s=%.1f gcPauses=%d "
+                            + "gcPauseMs=%d maxGcPauseMs=%d%n", mode, (long) rows * tables, retained / 1e6,
+                    loadMillis, queries / (double) seconds, PAUSES.get(), PAUSE_MILLIS.get(),
+                    MAX_PAUSE_MILLIS.get());
+            loader.close();
+        }
+
+        private static Table table(int idx) {
+            return Table.builder()
+                    .schema(DictionaryEncodingBenchmark.TABLE.getSchema())
+                    .tableName(DictionaryEncodingBenchmark.TABLE.getTableName() + idx)
+                    .columns(DictionaryEncodingBenchmark.TABLE.getColumns())
+                    .build();
+        }
+
+        private static long query(DatabaseLoader loader, int tables, int rows, long deadline) throws Exception {
+            long queries = 0;
+            try (Connection connection = loader.getConnection()) {
+                while (System.nanoTime() < deadline) {
+                    String table = "`Benchmark`.`Tracker" + ThreadLocalRandom.current().nextInt(tables) + "`";
+                    int row = ThreadLocalRandom.current().nextInt(rows);
+                    run(connection, "SELECT `Region`, `Status`, COUNT(*), SUM(`Amount`) FROM " + table
+                            + " GROUP BY `Region`, `Status`");
+                    run(connection, "SELECT * FROM " + table + " WHERE `Description` = 'Tracking item number "
+                            + row + "'");
+                    run(connection, "SELECT `Owner`, `Amount` FROM " + table + " WHERE `Amount` BETWEEN "
+                            + row + " AND " + (row + 1500));
+                    queries += 3;
+                }
+            }
+            return queries;
+        }
+
+        private static void run(Connection connection, String sql) throws Exception {
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    result.getObject(1);
+                }
+            }
+        }
+
+        private static void listenForPauses() {
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                ((NotificationEmitter) collector).addNotificationListener((notification, handback) -> {
+                    String type = notification.getType();
+                    if (!type.equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION)) {
+                        return;
+                    }
+                    GarbageCollectionNotificationInfo info =
+                            GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+                    //Concurrent cycles run alongside the application and are not pauses.
+                    if (info.getGcName().contains("Concurrent")) {
+                        return;
+                    }
+                    long duration = info.getGcInfo().getDuration();
+                    PAUSES.incrementAndGet();
+                    PAUSE_MILLIS.addAndGet(duration);
+                    MAX_PAUSE_MILLIS.accumulate(duration);
+                }, null, null);
+            }
+        }
+    }
+}
@@ -0,0 +1,202 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.loader;
+
+import com.yahoo.gsheetjdbc.schema.Column;
+import com.yahoo.gsheetjdbc.schema.Table;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+
+/**
+ * Compares memory saved against query latency for the storage modes a text heavy sheet would use.  Each mode runs
+ * in a fresh JVM:
+ * <pre>
+ * java -cp ... com.yahoo.gsheetjdbc.loader.TextCompressionBenchmark [rows] [queries per kind]
+ * </pre>
+ * The fixture resembles a feedback sheet: an id, a product, a rating and two free text columns (a comment of a
+ * few sentences and a shorter resolution note) drawn from a small vocabulary, as written text is.  Retained
+ * memory is heap plus direct buffers.  Latency percentiles are reported for a point lookup by id, a substring
+ * search over the comments and a grouped aggregate.
+ */
+public class TextCompressionBenchmark {
+
+    private static final StorageMode[] MODES = {StorageMode.HEAP, StorageMode.COMPRESSED,
+        StorageMode.OFF_HEAP_COMPRESSED};
+
+    private static final String[] PRODUCTS = {"Mail", "Calendar", "Drive", "Sheets", "Docs", "Slides", "Chat"};
+    private static final String[] WORDS = ("the a an and or but when after before while customer user team "
+            + "report reported issue problem page screen button menu dashboard export import sync upload "
+            + "download login account password invoice order shipment delivery refund support ticket agent "
+            + "reply response slow fast broken missing error crash freeze timeout works again still never "
+            + "always sometimes since update version release mobile desktop browser app phone tablet "
+            + "please fix check confirm thanks great terrible confusing helpful expected actual steps "
+            + "reproduce attached screenshot logs settings notification email message calendar event "
+            + "meeting shared folder file permission access denied granted").split(" ");
+
+    static final Table TABLE = Table.builder()
+            .schema("Benchmark")
+            .tableName("Feedback")
+            .column(Column.builder().name("Id").type(Column.ColumnType.NUMBER).build())
+            .column(Column.builder().name("Product").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Rating").type(Column.ColumnType.NUMBER).build())
+            .column(Column.builder().name("Comment").type(Column.ColumnType.STRING).build())
+            .column(Column.builder().name("Resolution").type(Column.ColumnType.STRING).build())
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String rows = args.length > 0 ? args[0] : "100000";
+        String queries = args.length > 1 ? args[1] : "20";
+        for (StorageMode mode : MODES) {
+            Process process = new ProcessBuilder(System.getProperty("java.home") + "/bin/java",
+                    "-cp", System.getProperty("java.class.path"),
+                    TextCompressionBenchmark.class.getName() + "$Measure",
+                    mode.name(), rows, queries)
+                    .inheritIO()
+                    .start();
+            process.waitFor();
+        }
+    }
+
+    /**
+     * Loads the fixture in one storage mode, then times each kind of query.
+     */
+    public static class Measure {
+        public static void main(String[] args) throws Exception {
+            StorageMode mode = StorageMode.valueOf(args[0]);
+            int rows = Integer.parseInt(args[1]);
+            int queries = Integer.parseInt(args[2]);
+
+            DatabaseLoader loader = DatabaseLoader.builder()
+                    .dbName("textBenchmark")
+                    .dictionaryEncoding(false)
+                    .storageMode(mode)
+                    .build();
+            long before = usedMemory();
+            long start = System.nanoTime();
+            loader.refreshTempTable(TABLE, batches(rows));
+            loader.swapTables(TABLE);
+            long loadMillis = (System.nanoTime() - start) / 1_000_000;
+            long retained = usedMemory() - before;
+
+            Random random = new Random(7);
+            String table = "`Benchmark`.`Feedback`";
+            try (Connection connection = loader.getConnection()) {
+                String lookup = latencies(connection, queries, () -> "SELECT * FROM " + table + " WHERE `Id` = "
+                        + random.nextInt(rows));
+                String search = latencies(connection, queries, () -> "SELECT `Id` FROM " + table
+                        + " WHERE `Comment` LIKE '%" + WORDS[random.nextInt(WORDS.length)] + " crash%'");
+                //Varied so that H2 does not return the previous result of an identical query.
+                String aggregate = latencies(connection, queries, () -> "SELECT `Product`, AVG(`Rating`), "
+                        + "MAX(LENGTH(`Comment`)) FROM " + table + " WHERE `Id` >= " + random.nextInt(rows / 10)
+                        + " GROUP BY `Product`");
+
+                System.out.printf("mode=%s rows=%d textMB=%.1f retainedMB=%.1f loadMs=%d%n"
+                                + "    lookup %s%n    search %s%n    aggregate %s%n", mode, rows,
+                        textBytes(rows) / 1e6, retained / 1e6, loadMillis, lookup, search, aggregate);
+            }
+            loader.close();
+        }
+
+        private static String latencies(Connection connection, int queries, Query query) throws Exception {
+            //Warm up the page cache and the JIT before timing.
+            for (int idx = 0; idx < Math.max(1, queries / 10); idx++) {
+                run(connection, query.sql());
+            }
+            long[] micros = new long[queries];
+            for (int idx = 0; idx < queries; idx++) {
+                String sql = query.sql();
+                long begin = System.nanoTime();
+                run(connection, sql);
+                micros[idx] = (System.nanoTime() - begin) / 1000;
+            }
+            Arrays.sort(micros);
+            return String.format("p50=%.2f ms p99=%.2f ms", micros[queries / 2] / 1e3,
+                    micros[Math.min(queries - 1, (int) Math.ceil(queries * 0.99) - 1)] / 1e3);
+        }
+
+        private static void run(Connection connection, String sql) throws Exception {
+            try (PreparedStatement statement = connection.prepareStatement(sql);
+                 ResultSet result = statement.executeQuery()) {
+                while (result.next()) {
+                    result.getObject(1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Produces the SQL of the next query.
+     */
+    @FunctionalInterface
+    interface Query {
+        String sql();
+    }
+
+    static Iterator<List<List<Object>>> batches(int rows) {
+        return new Iterator<>() {
+            private final Random random = new Random(42);
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public List<List<Object>> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                List<List<Object>> batch = new ArrayList<>();
+                for (; next < rows && batch.size() < 1000; next++) {
+                    batch.add(List.of(
+                            (double) next,
+                            PRODUCTS[next % PRODUCTS.length],
+                            (double) (1 + random.nextInt(5)),
+                            text(random, 40 + random.nextInt(80)),
+                            text(random, 10 + random.nextInt(20))));
+                }
+                return batch;
+            }
+        };
+    }
+
+    private static String text(Random random, int words) {
+        StringBuilder text = new StringBuilder();
+        for (int idx = 0; idx < words; idx++) {
+            text.append(idx == 0 ? "" : idx % 12 == 0 ? ". " : " ").append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return text.append('.').toString();
+    }
+
+    private static long textBytes(int rows) {
+        long bytes = 0;
+        for (Iterator<List<List<Object>>> it = batches(rows); it.hasNext();) {
+            for (List<Object> row : it.next()) {
+                bytes += ((String) row.get(3)).length() + ((String) row.get(4)).length();
+            }
+        }
+        return bytes;
+    }
+
+    static long usedMemory() throws InterruptedException {
+        long direct = 0;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            direct += pool.getMemoryUsed();
+        }
+        return DictionaryEncodingBenchmark.usedHeap() + direct;
+    }
+}
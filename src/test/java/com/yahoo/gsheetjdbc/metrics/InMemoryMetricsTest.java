@@ -0,0 +1,83 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+package com.yahoo.gsheetjdbc.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+
+public class InMemoryMetricsTest {
+
+    @Test
+    public void testCounters() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        metrics.increment(MetricNames.ROWS_LOADED, 10);
+        metrics.increment(MetricNames.ROWS_LOADED, 5);
+        metrics.increment(MetricNames.CACHE_HITS);
+
+        assertEquals(15, metrics.getCounter(MetricNames.ROWS_LOADED));
+        assertEquals(0, metrics.getCounter(MetricNames.BYTES_FETCHED));
+        assertEquals(Map.of(MetricNames.ROWS_LOADED, 15L, MetricNames.CACHE_HITS, 1L), metrics.getCounters());
+    }
+
+    @Test
+    public void testCacheHitRatio() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        assertEquals(0.0, metrics.getCacheHitRatio());
+
+        metrics.increment(MetricNames.CACHE_HITS, 3);
+        metrics.increment(MetricNames.CACHE_MISSES);
+        assertEquals(0.75, metrics.getCacheHitRatio());
+    }
+
+    @Test
+    public void testTimers() {
+        InMemoryMetrics metrics = new InMemoryMetrics();
+        for (int idx = 1; idx <= 100; idx++) {
+            metrics.recordTime(MetricNames.CONNECT, idx * 1_000_000L);
+        }
+
+        Histogram.Snapshot snapshot = metrics.getTimer(MetricNames.CONNECT);
+        assertEquals(100, snapshot.getCount());
+        assertEquals(50.5, snapshot.getMeanMillis(), 0.001);
+        assertEquals(100.0, snapshot.getMaxMillis(), 0.001);
+
+        //Percentiles are bucket upper bounds, so they can overshoot by at most a factor of two.
+        assertTrue(snapshot.getP50Millis() >= 50 && snapshot.getP50Millis() <= 100);
+        assertTrue(snapshot.getP99Millis() >= 99 && snapshot.getP99Millis() <= 100);
+        assertTrue(snapshot.getP50Millis() <= snapshot.getP95Millis());
+
+        assertEquals(0, metrics.getTimer(MetricNames.SWAP).getCount());
+
+        metrics.reset();
+        assertTrue(metrics.getTimers().isEmpty());
+    }
+
+    @Test
+    public void testJmx() throws Exception {
+        InMemoryMetrics metrics = new InMemoryMetrics().registerMBean();
+        metrics.increment(MetricNames.BYTES_FETCHED, 1024);
+        metrics.recordTime(MetricNames.SHEET_FETCH, 2_000_000L);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(InMemoryMetrics.OBJECT_NAME);
+
+        TabularData counters = (TabularData) server.getAttribute(name, "Counters");
+        assertEquals(1024L, counters.get(new Object[] {MetricNames.BYTES_FETCHED}).get("value"));
+
+        TabularData timers = (TabularData) server.getAttribute(name, "Timers");
+        CompositeData timer = (CompositeData) timers.get(new Object[] {MetricNames.SHEET_FETCH}).get("value");
+        assertEquals(1L, timer.get("count"));
+
+        server.unregisterMBean(name);
+    }
+}
@@ -0,0 +1,67 @@
+/**
+ * Copyright 2021, Yahoo Holdings Inc.
+ * Licensed under the terms of the MIT license. See accompanying LICENSE.md file for terms.
+ */
+
+package com.yahoo.gsheetjdbc.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serial date conversion through the cached epoch-day table against adding seconds to the epoch.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateConversionBenchmark {
+
+    private final double[] serialDates = new double[10000];
+
+    @Setup
+    public void setup() {
+        //Timestamps spread over 2015 - 2025.
+        Random random = new Random(0);
+        for (int idx = 0; idx < serialDates.length; idx++) {
+            serialDates[idx] = 42005 + random.nextDouble() * 3653;
+        }
+    }
+
+    @Benchmark
+    public void plusSeconds(Blackhole blackhole) {
+        for (double serialDate : serialDates) {
+            blackhole.consume(DateUtils.GOOGLE_EPOCH_REFERENCE.plusSeconds((long) (86400 * serialDate)));
+        }
+    }
+
+    @Benchmark
+    public void epochDayTable(Blackhole blackhole) {
+        for (double serialDate : serialDates) {
+            blackhole.consume(DateUtils.convert(serialDate));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DateConversionBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
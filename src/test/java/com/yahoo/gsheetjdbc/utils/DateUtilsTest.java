@@ -5,7 +5,10 @@
 package com.yahoo.gsheetjdbc.utils;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -24,4 +27,60 @@ public class DateUtilsTest {
         assertEquals(LocalDateTime.of(LocalDate.of(2008,  9,  29), LocalTime.of(5, 45, 0, 0)),
                 DateUtils.convert(39720.239583333336));
     }
+
+    @Test
+    public void testBoxedAndTextDates() {
+        LocalDateTime expected = LocalDateTime.of(LocalDate.of(2021, 10, 3), LocalTime.of(12, 0, 0, 0));
+        assertEquals(expected, DateUtils.convert(44472.5));
+        assertEquals(expected, DateUtils.convert(Double.valueOf(44472.5)));
+        assertEquals(expected, DateUtils.convert((Object) 44472.5f));
+        assertEquals(expected, DateUtils.convert((Object) "44472.5"));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            //1900 is not a leap year.
+            "60, 1900-02-28T00:00",
+            "61, 1900-03-01T00:00",
+            //2000 is.
+            "36585, 2000-02-29T00:00",
+            "36586, 2000-03-01T00:00",
+            "45351.75, 2024-02-29T18:00",
+            "73050, 2099-12-31T00:00",
+            "73051, 2100-01-01T00:00",
+            "73110, 2100-03-01T00:00",
+            "109575, 2200-01-01T00:00",
+            "-1, 1899-12-29T00:00",
+            "-0.25, 1899-12-29T18:00",
+            "-36522, 1800-01-01T00:00"
+    })
+    public void testLeapYears(double serialDate, String expected) {
+        assertEquals(LocalDateTime.parse(expected), DateUtils.convert(serialDate));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            //Fractions of a second are truncated, as they always were.
+            "45351.00001736111, 2024-02-29T00:00:01",
+            "45351.999999988424, 2024-02-29T23:59:59",
+            "45351.999999999, 2024-02-29T23:59:59",
+            "44472.123456789, 2021-10-03T02:57:46",
+            "-0.000011574074074074073, 1899-12-29T23:59:59"
+    })
+    public void testFractionalSeconds(double serialDate, String expected) {
+        assertEquals(LocalDateTime.parse(expected), DateUtils.convert(serialDate));
+    }
+
+    @Test
+    public void testEveryCachedDay() {
+        LocalDate expected = DateUtils.GOOGLE_EPOCH_REFERENCE.toLocalDate();
+        for (int day = 0; day < 80000; day++) {
+            assertEquals(expected, DateUtils.convert(day + 0.5).toLocalDate());
+            assertEquals(LocalTime.NOON, DateUtils.convert(day + 0.5).toLocalTime());
+            if (expected.getYear() <= 2100) {
+                assertSame(DateUtils.toLocalDate(day), DateUtils.convert((double) day).toLocalDate());
+            }
+            expected = expected.plusDays(1);
+        }
+    }
 }